@@ -0,0 +1,182 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.higherfrequencytrading.chronicle.impl.IndexedChronicle;
+import com.higherfrequencytrading.chronicle.tools.ChronicleTools;
+
+/**
+ * The fifo within one jvm: a single threaded add, an add and take round 
+ * trip through the chronicle reader thread, and an adding thread racing a 
+ * removing thread. Each sweeps the payload size and the marshaller. Each 
+ * iteration writes a fresh chronicle in the temp directory which is deleted 
+ * afterwards, so the add benchmark needs a few GB of free disk at the 
+ * largest payload. 
+ * 
+ * Run with: mvn -Pjmh package && java -jar target/benchmarks.jar FifoBenchmark -prof gc
+ */
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FifoBenchmark {
+	
+	static final String TMP = System.getProperty("java.io.tmpdir");
+	
+	static final int BUFFER_SIZE = 2 << 14;
+	
+	/**
+	 * A fifo with only a head, so nothing reads what is added. 
+	 */
+	@State(Scope.Benchmark)
+	public static class FifoState {
+		
+		@Param({"16", "256", "1024"})
+		int payloadSize;
+		
+		@Param({"object", "pojo"})
+		String marshaller;
+		
+		String location;
+		
+		IndexedChronicle chronicle;
+		
+		Fifo<Payload>.FifoHead head;
+		
+		Fifo<Payload>.FifoTail tail;
+		
+		Payload payload;
+		
+		final AtomicLong added = new AtomicLong();
+		
+		final AtomicLong removed = new AtomicLong();
+		
+		@Setup(Level.Iteration)
+		public void setup() throws Exception {
+			location = TMP + "/" + FifoBenchmark.class.getSimpleName() + "-" + System.nanoTime();
+			chronicle = new IndexedChronicle(location);
+			final Fifo<Payload> fifo = new Fifo<Payload>("benchmark", chronicle, Payload.class, 
+					Payload.maxMessageSize(payloadSize), BUFFER_SIZE, Payload.marshaller(marshaller));
+			head = fifo.head();
+			head.start();
+			if( drained() ) {
+				tail = fifo.tail(WaitPolicy.BUSY_SPIN);
+				tail.start();
+			}
+			payload = new Payload(payloadSize);
+			added.set(0);
+			removed.set(0);
+		}
+		
+		@TearDown(Level.Iteration)
+		public void tearDown() throws IOException {
+			if( tail != null ) {
+				tail.stop();
+				tail.close();
+				tail = null;
+			}
+			head.close();
+			chronicle.close();
+			ChronicleTools.deleteOnExit(location);
+			new File(location + ".benchmark.head.stats").deleteOnExit();
+		}
+		
+		boolean drained() {
+			return false;
+		}
+	}
+	
+	/**
+	 * A fifo with a head and a busy spinning tail. 
+	 */
+	@State(Scope.Benchmark)
+	public static class DrainedFifoState extends FifoState {
+		
+		@Override
+		boolean drained() {
+			return true;
+		}
+	}
+	
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Transfers {
+		public long transferred;
+		
+		@Setup(Level.Iteration)
+		public void clean() {
+			transferred = 0;
+		}
+	}
+	
+	@Benchmark
+	@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public void add(FifoState state) {
+		state.head.add(state.payload);
+	}
+	
+	/**
+	 * One message from the adding thread through the chronicle and the 
+	 * tail's reader thread and ring back to the adding thread. 
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SampleTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public Payload roundTrip(DrainedFifoState state) throws InterruptedException {
+		state.head.add(state.payload);
+		return state.tail.take();
+	}
+	
+	/**
+	 * The adder backs off rather than getting more than a ring ahead so 
+	 * the chronicle only grows as fast as the remover keeps up. The 
+	 * "transferred" counter is the number of messages which made it across. 
+	 */
+	@Benchmark
+	@Group("pipeline")
+	@GroupThreads(1)
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public boolean pipelineAdd(DrainedFifoState state) {
+		if( state.added.get() - state.removed.get() >= BUFFER_SIZE ) {
+			return false;
+		}
+		state.head.add(state.payload);
+		state.added.lazySet(state.added.get() + 1);
+		return true;
+	}
+	
+	@Benchmark
+	@Group("pipeline")
+	@GroupThreads(1)
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public Payload pipelineRemove(DrainedFifoState state, Transfers transfers) {
+		final Payload payload = state.tail.poll();
+		if( payload != null ) {
+			state.removed.lazySet(state.removed.get() + 1);
+			transfers.transferred++;
+		}
+		return payload;
+	}
+}
@@ -0,0 +1,28 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs every fifo benchmark with the allocation profiler and writes the 
+ * results as json so that a run before and after an upgrade can be 
+ * compared. The sample time modes report the latency percentiles. 
+ * 
+ * Run with: mvn -Pjmh package && java -cp target/benchmarks.jar com.github.simbo1905.chronicle.fifo.FifoBenchmarks [regex]
+ */
+public final class FifoBenchmarks {
+	
+	public static void main(String[] args) throws RunnerException {
+		final Options options = new OptionsBuilder()
+				.include((args.length == 0) ? FifoBenchmarks.class.getPackage().getName() + ".*Benchmark" : args[0])
+				.addProfiler(GCProfiler.class)
+				.resultFormat(ResultFormatType.JSON)
+				.result("target/jmh-result.json")
+				.build();
+		new Runner(options).run();
+	}
+}
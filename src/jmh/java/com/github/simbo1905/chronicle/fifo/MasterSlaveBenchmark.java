@@ -0,0 +1,132 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.higherfrequencytrading.chronicle.impl.IndexedChronicle;
+import com.higherfrequencytrading.chronicle.tools.ChronicleTools;
+
+/**
+ * The round trip between two processes on the same host as in the 
+ * FifoMaster and FifoSlave demos. The benchmark adds to a "ping" fifo and 
+ * takes from a "pong" fifo while a slave jvm, started with the benchmark's 
+ * own classpath, echoes each ping back as a pong. Half the round trip is 
+ * the one way latency between the processes. 
+ * 
+ * Run with: mvn -Pjmh package && java -jar target/benchmarks.jar MasterSlaveBenchmark -prof gc
+ */
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MasterSlaveBenchmark {
+	
+	static final String TMP = System.getProperty("java.io.tmpdir");
+	
+	static final int BUFFER_SIZE = 2 << 14;
+	
+	@State(Scope.Benchmark)
+	public static class MasterState {
+		
+		@Param({"16", "256", "1024"})
+		int payloadSize;
+		
+		@Param({"object", "pojo"})
+		String marshaller;
+		
+		String location;
+		
+		IndexedChronicle ping;
+		
+		IndexedChronicle pong;
+		
+		Fifo<Payload>.FifoHead head;
+		
+		Fifo<Payload>.FifoTail tail;
+		
+		Payload payload;
+		
+		Process slave;
+		
+		@Setup(Level.Trial)
+		public void setup() throws Exception {
+			location = TMP + "/" + MasterSlaveBenchmark.class.getSimpleName() + "-" + System.nanoTime();
+			ping = new IndexedChronicle(location + "-ping");
+			pong = new IndexedChronicle(location + "-pong");
+			head = fifo("ping", ping, payloadSize, marshaller).head();
+			head.start();
+			tail = fifo("pong", pong, payloadSize, marshaller).tail(WaitPolicy.BUSY_SPIN);
+			tail.start();
+			payload = new Payload(payloadSize);
+			final String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+			slave = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), 
+					MasterSlaveBenchmark.class.getName(), location, Integer.toString(payloadSize), marshaller)
+					.redirectErrorStream(true).start();
+			// the slave replays the first ping when it starts
+			head.add(payload);
+			tail.take();
+		}
+		
+		@TearDown(Level.Trial)
+		public void tearDown() throws Exception {
+			slave.destroy();
+			slave.waitFor();
+			tail.close();
+			head.close();
+			ping.close();
+			pong.close();
+			ChronicleTools.deleteOnExit(location + "-ping");
+			ChronicleTools.deleteOnExit(location + "-pong");
+			new File(location + "-ping.ping.head.stats").deleteOnExit();
+			new File(location + "-pong.pong.head.stats").deleteOnExit();
+		}
+	}
+	
+	static Fifo<Payload> fifo(String name, IndexedChronicle chronicle, int payloadSize, String marshaller) {
+		return new Fifo<Payload>(name, chronicle, Payload.class, Payload.maxMessageSize(payloadSize), 
+				BUFFER_SIZE, Payload.marshaller(marshaller));
+	}
+	
+	@Benchmark
+	public Payload roundTrip(MasterState state) throws InterruptedException {
+		state.head.add(state.payload);
+		return state.tail.take();
+	}
+	
+	/**
+	 * The slave which echoes every ping as a pong until it is destroyed. 
+	 * 
+	 * @param args the chronicles' location, the payload size and the marshaller
+	 */
+	public static void main(String[] args) throws IOException, IllegalAccessException {
+		final int payloadSize = Integer.parseInt(args[1]);
+		final IndexedChronicle ping = new IndexedChronicle(args[0] + "-ping");
+		final IndexedChronicle pong = new IndexedChronicle(args[0] + "-pong");
+		final Fifo<Payload>.FifoHead head = fifo("pong", pong, payloadSize, args[2]).head();
+		head.start();
+		final Fifo<Payload>.FifoTail tail = fifo("ping", ping, payloadSize, args[2]).tail(WaitPolicy.BUSY_SPIN, 
+				new FifoHandler<Payload>() {
+			@Override
+			public void onMessage(Payload message, long sequence, boolean endOfBatch) throws Exception {
+				head.add(message);
+			}
+		});
+		tail.start();
+	}
+}
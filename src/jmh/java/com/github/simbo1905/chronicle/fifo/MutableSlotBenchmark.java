@@ -0,0 +1,182 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.simbo1905.chronicle.fifo.Fifo.MutableSlot;
+import com.lmax.disruptor.EventFactory;
+import com.lmax.disruptor.InsufficientCapacityException;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.Sequence;
+import com.lmax.disruptor.Sequencer;
+import com.lmax.disruptor.SingleThreadedClaimStrategy;
+
+/**
+ * The ring hop of the FifoSingleJvm workload: one thread publishes GUIDs into 
+ * the tail's ring while another takes them off. Compares the original slot 
+ * with synchronized accessors against the plain padded {@link MutableSlot}. 
+ * The "transferred" counter is the number of GUIDs which made it across; 
+ * the raw group score also counts attempts on a full or empty ring. 
+ * 
+ * Run with: mvn -Pjmh package && java -jar target/benchmarks.jar MutableSlot
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MutableSlotBenchmark {
+	
+	static final String GUID = "3F2504E0-4F89-11D3-9A0C-0305E82C3301";
+	
+	static final int BUFFER_SIZE = 2 << 14;
+	
+	/**
+	 * The slot as it was before it was made lock free. 
+	 */
+	static final class SynchronizedSlot
+	{
+		private Object value;
+		private long sequence;
+
+		public synchronized long getSequence() {
+			return sequence;
+		}
+
+		public synchronized Object getValue()
+		{
+			return value;
+		}
+
+		public synchronized void setValue(final Object value)
+		{
+			this.value = value;
+		}
+
+		public synchronized void setSequence(long sequence) {
+			this.sequence = sequence;
+		}
+	}
+	
+	@State(Scope.Group)
+	public static class SynchronizedRing {
+		RingBuffer<SynchronizedSlot> ring;
+		Sequence consumed;
+		
+		@Setup
+		public void setup() {
+			ring = new RingBuffer<SynchronizedSlot>(new EventFactory<SynchronizedSlot>() {
+				public SynchronizedSlot newInstance() {
+					return new SynchronizedSlot();
+				}
+			}, new SingleThreadedClaimStrategy(BUFFER_SIZE), new BackoffWaitStrategy());
+			consumed = new Sequence(Sequencer.INITIAL_CURSOR_VALUE);
+			ring.setGatingSequences(consumed);
+		}
+	}
+	
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Transfers {
+		public long transferred;
+		
+		@Setup(Level.Iteration)
+		public void clean() {
+			transferred = 0;
+		}
+	}
+	
+	@State(Scope.Group)
+	public static class PlainRing {
+		RingBuffer<MutableSlot<String>> ring;
+		Sequence consumed;
+		
+		@Setup
+		public void setup() {
+			ring = new RingBuffer<MutableSlot<String>>(Fifo.<String>slotFactory(), 
+					new SingleThreadedClaimStrategy(BUFFER_SIZE), new BackoffWaitStrategy());
+			consumed = new Sequence(Sequencer.INITIAL_CURSOR_VALUE);
+			ring.setGatingSequences(consumed);
+		}
+	}
+	
+	@Benchmark
+	@Group("synchronized")
+	@GroupThreads(1)
+	public boolean publishSynchronized(SynchronizedRing state) {
+		final long sequence;
+		try {
+			sequence = state.ring.tryNext(1);
+		} catch (InsufficientCapacityException e) {
+			return false;
+		}
+		final SynchronizedSlot slot = state.ring.get(sequence);
+		slot.setValue(GUID);
+		slot.setSequence(sequence);
+		state.ring.publish(sequence);
+		return true;
+	}
+	
+	@Benchmark
+	@Group("synchronized")
+	@GroupThreads(1)
+	public Object removeSynchronized(SynchronizedRing state, Transfers transfers) {
+		final long next = state.consumed.get() + 1;
+		if( state.ring.getCursor() < next ) {
+			return null;
+		}
+		final SynchronizedSlot slot = state.ring.get(next);
+		final Object value = slot.getValue();
+		slot.setValue(null);
+		state.consumed.set(next);
+		transfers.transferred++;
+		return value;
+	}
+	
+	@Benchmark
+	@Group("plain")
+	@GroupThreads(1)
+	public boolean publishPlain(PlainRing state) {
+		final long sequence;
+		try {
+			sequence = state.ring.tryNext(1);
+		} catch (InsufficientCapacityException e) {
+			return false;
+		}
+		final MutableSlot<String> slot = state.ring.get(sequence);
+		slot.setValue(GUID);
+		slot.setSequence(sequence);
+		state.ring.publish(sequence);
+		return true;
+	}
+	
+	@Benchmark
+	@Group("plain")
+	@GroupThreads(1)
+	public Object removePlain(PlainRing state, Transfers transfers) {
+		final long next = state.consumed.get() + 1;
+		if( state.ring.getCursor() < next ) {
+			return null;
+		}
+		final MutableSlot<String> slot = state.ring.get(next);
+		final String value = slot.getValue();
+		slot.setValue(null);
+		state.consumed.set(next);
+		transfers.transferred++;
+		return value;
+	}
+}
@@ -0,0 +1,138 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.simbo1905.chronicle.slavelist.ReplicaProgress;
+import com.higherfrequencytrading.chronicle.datamodel.DataStore;
+import com.higherfrequencytrading.chronicle.datamodel.ListWrapper;
+import com.higherfrequencytrading.chronicle.datamodel.ModelMode;
+import com.higherfrequencytrading.chronicle.impl.IndexedChronicle;
+import com.higherfrequencytrading.chronicle.tools.ChronicleTools;
+
+/**
+ * A slave catching up on a chronicle which interleaves the edits of several
+ * lists, replayed on the data store's reader thread and by a
+ * {@link ParallelReplay} with a worker per list. Each invocation replays
+ * the whole chronicle into fresh lists. The edits insert at the front of
+ * an ArrayList so that applying them rather than reading them dominates.
+ *
+ * Run with: mvn -Pjmh package && java -jar target/benchmarks.jar ParallelReplayBenchmark
+ */
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParallelReplayBenchmark {
+
+	static final String TMP = System.getProperty("java.io.tmpdir");
+
+	static final int EDITS = 20000;
+
+	@State(Scope.Benchmark)
+	public static class ChronicleState {
+
+		@Param({"1", "4"})
+		int names;
+
+		String location;
+
+		IndexedChronicle chronicle;
+
+		long[] lastIndexes;
+
+		@Setup(Level.Trial)
+		public void setup() throws IOException {
+			location = TMP + "/" + ParallelReplayBenchmark.class.getSimpleName() + "-" + names + "-" + System.nanoTime();
+			chronicle = new IndexedChronicle(location);
+			final DataStore master = new DataStore(chronicle, ModelMode.MASTER);
+			final List<ListWrapper<String>> lists = new ArrayList<ListWrapper<String>>();
+			for( int name = 0; name < names; name++ ) {
+				lists.add(new ListWrapper<String>(master, "list" + name, String.class, new ArrayList<String>(), 128));
+			}
+			master.start();
+			lastIndexes = new long[names];
+			for( int edit = 0; edit < EDITS; edit++ ) {
+				for( int name = 0; name < names; name++ ) {
+					lists.get(name).add(0, "element" + edit);
+					lastIndexes[name] = chronicle.size() - 1;
+				}
+			}
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			chronicle.close();
+			ChronicleTools.deleteOnExit(location);
+		}
+	}
+
+	@Benchmark
+	public int readerThread(ChronicleState state) throws Exception {
+		final IndexedChronicle chronicle = new IndexedChronicle(state.location);
+		final DataStore slave = new DataStore(chronicle, ModelMode.READ_ONLY);
+		final List<ReplicaProgress<String>> progress = lists(state, slave, chronicle, null);
+		slave.start();
+		final int size = await(state, progress);
+		slave.close();
+		chronicle.close();
+		return size;
+	}
+
+	@Benchmark
+	public int parallelReplay(ChronicleState state) throws Exception {
+		final IndexedChronicle chronicle = new IndexedChronicle(state.location);
+		final DataStore slave = new DataStore(chronicle, ModelMode.READ_ONLY);
+		final ParallelReplay replay = new ParallelReplay(slave, chronicle, WaitPolicy.YIELD, 2 << 12);
+		final List<ReplicaProgress<String>> progress = lists(state, slave, chronicle, replay);
+		replay.start();
+		final int size = await(state, progress);
+		replay.close();
+		chronicle.close();
+		return size;
+	}
+
+	static List<ReplicaProgress<String>> lists(ChronicleState state, DataStore slave, IndexedChronicle chronicle,
+			ParallelReplay replay) {
+		final List<ReplicaProgress<String>> progress = new ArrayList<ReplicaProgress<String>>();
+		for( int name = 0; name < state.names; name++ ) {
+			final ListWrapper<String> list = new ListWrapper<String>(slave, "list" + name, String.class,
+					new ArrayList<String>(), 128);
+			final ReplicaProgress<String> applied = new ReplicaProgress<String>(chronicle, -1);
+			list.addListener(applied);
+			if( replay != null ) {
+				replay.add("list" + name, list);
+			}
+			progress.add(applied);
+		}
+		return progress;
+	}
+
+	static int await(ChronicleState state, List<ReplicaProgress<String>> progress) throws InterruptedException {
+		int applied = 0;
+		for( int name = 0; name < state.names; name++ ) {
+			if( !progress.get(name).awaitIndex(state.lastIndexes[name], 60, TimeUnit.SECONDS) ) {
+				throw new IllegalStateException("list" + name + " did not catch up");
+			}
+			applied++;
+		}
+		return applied;
+	}
+}
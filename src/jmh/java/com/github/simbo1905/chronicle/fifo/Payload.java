@@ -0,0 +1,44 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import java.io.Serializable;
+
+/**
+ * The message of the fifo benchmarks: a stamp and a body whose size is swept. 
+ * It is flat so the {@link PojoMarshaller} can copy it as well as the 
+ * {@link ObjectMarshaller} serialising it. 
+ */
+public class Payload implements Serializable {
+	
+	private static final long serialVersionUID = 1L;
+	
+	long stamp;
+	
+	byte[] body;
+	
+	public Payload() {
+	}
+	
+	Payload(int size) {
+		body = new byte[size];
+		for( int index = 0; index < size; index++ ) {
+			body[index] = (byte) index;
+		}
+	}
+	
+	static Marshaller<Payload> marshaller(String name) {
+		if( "object".equals(name) ) {
+			return new ObjectMarshaller<Payload>();
+		}
+		if( "pojo".equals(name) ) {
+			return new PojoMarshaller<Payload>(Payload.class);
+		}
+		throw new IllegalArgumentException("unknown marshaller " + name);
+	}
+	
+	/**
+	 * Leaves room for the object marshaller's class descriptor. 
+	 */
+	static int maxMessageSize(int size) {
+		return size + 256;
+	}
+}
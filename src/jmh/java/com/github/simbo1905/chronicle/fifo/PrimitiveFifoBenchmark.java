@@ -0,0 +1,199 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.higherfrequencytrading.chronicle.impl.IndexedChronicle;
+import com.higherfrequencytrading.chronicle.tools.ChronicleTools;
+
+/**
+ * A sequence number through a generic Fifo&lt;String&gt; holding it as its
+ * decimal string, a {@link LongFifo} holding it raw and a
+ * {@link FixedRecordFifo} holding it in a 16 byte record, so the cost of
+ * boxing, serialising and the object per slot shows up in the gc profiler.
+ *
+ * Run with: mvn -Pjmh package && java -jar target/benchmarks.jar PrimitiveFifoBenchmark -prof gc
+ */
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimitiveFifoBenchmark {
+
+	static final String TMP = System.getProperty("java.io.tmpdir");
+
+	static final int BUFFER_SIZE = 2 << 14;
+
+	static final int RECORD_SIZE = 16;
+
+	/**
+	 * The chronicle of one iteration which is deleted afterwards.
+	 */
+	public abstract static class ChronicleState {
+
+		String location;
+
+		IndexedChronicle chronicle;
+
+		long sequence;
+
+		void open(String kind) throws IOException {
+			location = TMP + "/" + PrimitiveFifoBenchmark.class.getSimpleName() + "-" + kind + "-" + System.nanoTime();
+			chronicle = new IndexedChronicle(location);
+			sequence = 0;
+		}
+
+		void close() {
+			chronicle.close();
+			ChronicleTools.deleteOnExit(location);
+			new File(location + ".benchmark.head.stats").deleteOnExit();
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class StringState extends ChronicleState {
+
+		Fifo<String>.FifoHead head;
+
+		Fifo<String>.FifoTail tail;
+
+		@Setup(Level.Iteration)
+		public void setup() throws Exception {
+			open("string");
+			final Fifo<String> fifo = new Fifo<String>("benchmark", chronicle, String.class, 64, BUFFER_SIZE);
+			head = fifo.head();
+			head.start();
+			tail = fifo.tail(WaitPolicy.BUSY_SPIN);
+			tail.start();
+		}
+
+		@TearDown(Level.Iteration)
+		public void tearDown() throws IOException {
+			tail.close();
+			head.close();
+			close();
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class LongState extends ChronicleState {
+
+		LongFifo.LongHead head;
+
+		LongFifo.LongTail tail;
+
+		@Setup(Level.Iteration)
+		public void setup() throws Exception {
+			open("long");
+			final LongFifo fifo = new LongFifo("benchmark", chronicle, BUFFER_SIZE);
+			head = fifo.head();
+			head.start();
+			tail = fifo.longTail(WaitPolicy.BUSY_SPIN);
+			tail.start();
+		}
+
+		@TearDown(Level.Iteration)
+		public void tearDown() throws IOException {
+			tail.close();
+			head.close();
+			close();
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class RecordState extends ChronicleState {
+
+		FixedRecordFifo.RecordHead head;
+
+		FixedRecordFifo.RecordTail tail;
+
+		final byte[] record = new byte[RECORD_SIZE];
+
+		final UnsafeMemory memory = new UnsafeMemory(record);
+
+		@Setup(Level.Iteration)
+		public void setup() throws Exception {
+			open("record");
+			final FixedRecordFifo fifo = new FixedRecordFifo("benchmark", chronicle, RECORD_SIZE, BUFFER_SIZE);
+			head = fifo.head();
+			head.start();
+			tail = fifo.recordTail(WaitPolicy.BUSY_SPIN);
+			tail.start();
+		}
+
+		void encode(long sequence) {
+			memory.reset();
+			memory.putLong(sequence);
+			memory.putLong(System.nanoTime());
+		}
+
+		@TearDown(Level.Iteration)
+		public void tearDown() throws IOException {
+			tail.close();
+			head.close();
+			close();
+		}
+	}
+
+	@Benchmark
+	@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public void addString(StringState state) {
+		state.head.add(Long.toString(state.sequence++));
+	}
+
+	@Benchmark
+	@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public void addLong(LongState state) {
+		state.head.add(state.sequence++);
+	}
+
+	@Benchmark
+	@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public void addRecord(RecordState state) {
+		state.encode(state.sequence++);
+		state.head.add(state.record, 0);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SampleTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public long roundTripString(StringState state) throws InterruptedException {
+		state.head.add(Long.toString(state.sequence++));
+		return Long.parseLong(state.tail.take());
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SampleTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public long roundTripLong(LongState state) throws InterruptedException {
+		state.head.add(state.sequence++);
+		return state.tail.take();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SampleTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public long roundTripRecord(RecordState state) throws InterruptedException {
+		state.encode(state.sequence++);
+		state.head.add(state.record, 0);
+		state.tail.take(state.record, 0);
+		state.memory.reset();
+		return state.memory.getLong();
+	}
+}
@@ -0,0 +1,90 @@
+package com.github.simbo1905.chronicle.slavelist;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The positional add and remove which a slave replays into the list behind
+ * its ListWrapper, on an ArrayList and a {@link ChunkedList} holding from a
+ * thousand to a million elements. Each operation adds at one position and
+ * removes at another so the size stays put. The list is only read and
+ * written, not replicated, so this is the cost of the underlying list alone.
+ *
+ * Run with: mvn -Pjmh package && java -jar target/benchmarks.jar ChunkedListBenchmark
+ */
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ChunkedListBenchmark {
+
+	static final int POSITIONS = 1 << 16;
+
+	@State(Scope.Thread)
+	public static class ListState {
+
+		@Param({"1000", "100000", "1000000"})
+		int size;
+
+		@Param({"array", "chunked"})
+		String list;
+
+		List<String> elements;
+
+		final int[] positions = new int[POSITIONS];
+
+		int next;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			elements = "chunked".equals(list) ? new ChunkedList<String>() : new ArrayList<String>();
+			for( int i = 0; i < size; i++ ) {
+				elements.add("element" + i);
+			}
+			final Random random = new Random(1);
+			for( int i = 0; i < POSITIONS; i++ ) {
+				positions[i] = random.nextInt(size);
+			}
+		}
+
+		int position() {
+			return positions[next++ & (POSITIONS - 1)];
+		}
+	}
+
+	@Benchmark
+	public String randomAddRemove(ListState state) {
+		state.elements.add(state.position(), "added");
+		return state.elements.remove(state.position());
+	}
+
+	/**
+	 * The pattern of the ListWriterMaster demo.
+	 */
+	@Benchmark
+	public String frontAddRemove(ListState state) {
+		state.elements.add(0, "added");
+		return state.elements.remove(0);
+	}
+
+	@Benchmark
+	public String get(ListState state) {
+		return state.elements.get(state.position());
+	}
+}
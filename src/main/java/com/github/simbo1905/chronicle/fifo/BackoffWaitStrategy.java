@@ -0,0 +1,85 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.lmax.disruptor.AlertException;
+import com.lmax.disruptor.Sequence;
+import com.lmax.disruptor.SequenceBarrier;
+import com.lmax.disruptor.WaitStrategy;
+import com.lmax.disruptor.util.Util;
+
+/**
+ * Spins briefly and then parks for exponentially longer periods up to a
+ * ceiling. An idle consumer costs next to no CPU while one which is kept busy
+ * never leaves the spin phase.
+ *
+ * @author simbo
+ */
+public final class BackoffWaitStrategy implements WaitStrategy {
+
+	private static final int SPIN_TRIES = 100;
+
+	private static final long MIN_PARK_NANOS = 1000;
+
+	private final long maxParkNanos;
+
+	public BackoffWaitStrategy() {
+		this(TimeUnit.MILLISECONDS.toNanos(1));
+	}
+
+	public BackoffWaitStrategy(long maxParkNanos) {
+		this.maxParkNanos = Math.max(MIN_PARK_NANOS, maxParkNanos);
+	}
+
+	@Override
+	public long waitFor(long sequence, Sequence cursor, Sequence[] dependents,
+			SequenceBarrier barrier) throws AlertException, InterruptedException {
+		return waitFor(sequence, cursor, dependents, barrier, Long.MAX_VALUE);
+	}
+
+	@Override
+	public long waitFor(long sequence, Sequence cursor, Sequence[] dependents,
+			SequenceBarrier barrier, long timeout, TimeUnit sourceUnit)
+			throws AlertException, InterruptedException {
+		return waitFor(sequence, cursor, dependents, barrier, sourceUnit.toNanos(timeout));
+	}
+
+	/**
+	 * The deadline may wrap around so it is only ever compared by the sign
+	 * of its difference from the time now.
+	 */
+	private long waitFor(long sequence, Sequence cursor, Sequence[] dependents,
+			SequenceBarrier barrier, long timeoutNanos) throws AlertException, InterruptedException {
+		final long deadline = System.nanoTime() + timeoutNanos;
+		int counter = SPIN_TRIES;
+		long parkNanos = MIN_PARK_NANOS;
+		long availableSequence;
+		while( (availableSequence = available(cursor, dependents)) < sequence ) {
+			barrier.checkAlert();
+			if( counter > 0 ) {
+				counter--;
+				continue;
+			}
+			if( Thread.interrupted() ) {
+				throw new InterruptedException();
+			}
+			final long remaining = deadline - System.nanoTime();
+			if( remaining <= 0 ) {
+				break;
+			}
+			LockSupport.parkNanos(Math.min(parkNanos, remaining));
+			parkNanos = Math.min(parkNanos << 1, maxParkNanos);
+		}
+		return availableSequence;
+	}
+
+	private static long available(Sequence cursor, Sequence[] dependents) {
+		return (dependents.length == 0) ? cursor.get() : Util.getMinimumSequence(dependents);
+	}
+
+	@Override
+	public void signalAllWhenBlocking() {
+		// noop
+	}
+}
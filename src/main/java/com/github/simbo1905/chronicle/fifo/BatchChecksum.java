@@ -0,0 +1,75 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+import com.higherfrequencytrading.chronicle.Excerpt;
+
+/**
+ * Checksums a range of an excerpt. CRC32C is used where the JVM has it, as 
+ * it is an intrinsic on modern hardware, and CRC32 otherwise. The trailer 
+ * marker records which was used so a reader on an older JVM can still check 
+ * a batch written with CRC32 and passes over one written with CRC32C. 
+ * 
+ * Chronicle 1.6 gives no access to the memory behind an excerpt so the 
+ * range is fed to the checksum through a small fixed window which stays in 
+ * the L1 cache rather than copied whole onto the heap. 
+ * 
+ * Not thread safe, each head and reader has its own. 
+ * 
+ * @author simbo
+ */
+final class BatchChecksum {
+	
+	static final int CRC32_MARKER = 0x0F1F0C32;
+	
+	static final int CRC32C_MARKER = 0x0F1F0C3C;
+	
+	static final int WINDOW_SIZE = 4096;
+	
+	private final Checksum crc32 = new CRC32();
+	
+	private final Checksum crc32c = newCrc32c();
+	
+	private final byte[] window = new byte[WINDOW_SIZE];
+	
+	/**
+	 * @return the marker of the checksum this JVM writes
+	 */
+	int marker() {
+		return (crc32c != null) ? CRC32C_MARKER : CRC32_MARKER;
+	}
+	
+	/**
+	 * @return true if this JVM can compute the checksum of the marker
+	 */
+	boolean supports(int marker) {
+		return marker == CRC32_MARKER || (marker == CRC32C_MARKER && crc32c != null);
+	}
+	
+	/**
+	 * Checksums the bytes from the start up to the end without moving the 
+	 * excerpt's position. 
+	 */
+	int compute(int marker, Excerpt excerpt, int start, int end) {
+		final Checksum checksum = (marker == CRC32C_MARKER) ? crc32c : crc32;
+		checksum.reset();
+		final int position = excerpt.position();
+		excerpt.position(start);
+		for( int from = start; from < end; from += WINDOW_SIZE ) {
+			final int length = Math.min(WINDOW_SIZE, end - from);
+			excerpt.readFully(window, 0, length);
+			checksum.update(window, 0, length);
+		}
+		excerpt.position(position);
+		return (int) checksum.getValue();
+	}
+	
+	private static Checksum newCrc32c() {
+		try {
+			return (Checksum) Class.forName("java.util.zip.CRC32C").getConstructor().newInstance();
+		} catch (Exception e) {
+			return null;
+		}
+	}
+}
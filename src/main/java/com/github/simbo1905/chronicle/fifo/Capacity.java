@@ -0,0 +1,58 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import java.util.Arrays;
+
+/**
+ * Bounds how many messages a {@link Fifo.FifoHead} may be ahead of the 
+ * slowest of some consumer groups, which keeps both the journal which has 
+ * still to be read and, with {@link Retention}, the disk it takes bounded 
+ * when consumers slow down. The head reads how far each group has got from 
+ * its cursor file so the groups may be in other processes. A group only 
+ * counts the messages it has consumed since it was created so groups should 
+ * be created along with the fifo. 
+ * 
+ * @author simbo
+ */
+public final class Capacity {
+	
+	/**
+	 * Never holds back the head. 
+	 */
+	public static final Capacity UNBOUNDED = new Capacity(Long.MAX_VALUE, Overflow.BLOCK);
+	
+	final long messages;
+	
+	final Overflow overflow;
+	
+	final String[] groups;
+	
+	private Capacity(long messages, Overflow overflow, String... groups) {
+		this.messages = messages;
+		this.overflow = overflow;
+		this.groups = groups;
+	}
+	
+	/**
+	 * @param messages how far ahead of the slowest group the head may be
+	 * @param overflow what an add does when the head is that far ahead
+	 * @param groups every consumer group which must see each message
+	 */
+	public static Capacity of(long messages, Overflow overflow, String... groups) {
+		if( messages < 1 ) {
+			throw new IllegalArgumentException("messages must be positive: " + messages);
+		}
+		if( groups.length == 0 ) {
+			throw new IllegalArgumentException("no consumer groups to bound");
+		}
+		return new Capacity(messages, overflow, groups);
+	}
+	
+	boolean isBounded() {
+		return this != UNBOUNDED;
+	}
+	
+	@Override
+	public String toString() {
+		return isBounded() ? overflow + " at " + messages + " " + Arrays.toString(groups) : "UNBOUNDED";
+	}
+}
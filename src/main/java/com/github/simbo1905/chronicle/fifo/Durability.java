@@ -0,0 +1,66 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * When a {@link Fifo.FifoHead} forces the chronicle's mapped data and index 
+ * files to disk. Without a force the data is only as durable as the OS page 
+ * cache, which survives the process dying but not the host. 
+ * 
+ * @author simbo
+ */
+public final class Durability {
+	
+	/**
+	 * Never forces, the OS writes the pages back when it chooses. 
+	 */
+	public static final Durability ASYNC = new Durability(0, 0);
+	
+	/**
+	 * Forces after every batch before the add returns. 
+	 */
+	public static final Durability SYNC = new Durability(1, 0);
+	
+	final int messages;
+	
+	final long periodNanos;
+	
+	private Durability(int messages, long periodNanos) {
+		this.messages = messages;
+		this.periodNanos = periodNanos;
+	}
+	
+	/**
+	 * Group commit which forces on the adding thread once this many 
+	 * messages have been added since the last force. 
+	 */
+	public static Durability everyMessages(int messages) {
+		if( messages < 1 ) {
+			throw new IllegalArgumentException("messages must be positive: " + messages);
+		}
+		return new Durability(messages, 0);
+	}
+	
+	/**
+	 * Group commit which forces on a background thread every period if 
+	 * anything has been added, so the adding thread never waits on the disk. 
+	 */
+	public static Durability every(long period, TimeUnit unit) {
+		if( period < 1 ) {
+			throw new IllegalArgumentException("period must be positive: " + period);
+		}
+		return new Durability(0, unit.toNanos(period));
+	}
+	
+	@Override
+	public String toString() {
+		if( messages == 0 && periodNanos == 0 ) {
+			return "ASYNC";
+		}
+		if( messages == 1 ) {
+			return "SYNC";
+		}
+		return (messages > 0) ? "every " + messages + " messages" 
+				: "every " + TimeUnit.NANOSECONDS.toMicros(periodNanos) + "us";
+	}
+}
@@ -6,30 +6,102 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.channels.FileLock;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import com.higherfrequencytrading.chronicle.Chronicle;
 import com.higherfrequencytrading.chronicle.Excerpt;
 import com.higherfrequencytrading.chronicle.datamodel.DataStore;
 import com.higherfrequencytrading.chronicle.datamodel.ModelMode;
 import com.higherfrequencytrading.chronicle.datamodel.Wrapper;
+import com.lmax.disruptor.AlertException;
 import com.lmax.disruptor.EventFactory;
 import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.FatalExceptionHandler;
+import com.lmax.disruptor.MultiThreadedClaimStrategy;
 import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.Sequence;
+import com.lmax.disruptor.SequenceBarrier;
+import com.lmax.disruptor.Sequencer;
 import com.lmax.disruptor.SingleThreadedClaimStrategy;
-import com.lmax.disruptor.SleepingWaitStrategy;
+import com.lmax.disruptor.WorkHandler;
+import com.lmax.disruptor.WorkerPool;
 import com.lmax.disruptor.dsl.Disruptor;
 
 /**
  * A first in first out structure backed by a memory mapped file for
  * interprocess communication. 
  * 
+ * Each excerpt holds a batch of messages: an int count, the int position 
+ * of the trailer and the head's wall clock nanoseconds when it started the 
+ * batch followed by that many messages, each written as an int 
+ * length and then the marshalled message. The trailer is a commit marker 
+ * which is written last so an excerpt whose data never fully reached the 
+ * file is detected as torn and skipped. Depending on the {@link Integrity} 
+ * the marker is preceded by a checksum of the batch. A single 
+ * {@link FifoHead#add(Object)} is a batch of one. 
+ * 
+ * A rolling fifo is spread over numbered {@link Segments}. When its 
+ * {@link RollPolicy} is due the head seals the current segment with a roll 
+ * marker, an excerpt whose count is -1, and moves on to the next one. Tails 
+ * follow the marker into the next segment. 
+ * 
  * @author simbo
  */
 public class Fifo<T> {
 	static final String TMP = System.getProperty("java.io.tmpdir");
+	
+	private static final Logger LOGGER = Logger.getLogger(Fifo.class.getName());
+	
+	static final int COUNT_SIZE = 4;
+	
+	static final int LENGTH_SIZE = 4;
+	
+	static final int STAMP_SIZE = 8;
+	
+	static final int HEADER_SIZE = COUNT_SIZE + 4 + STAMP_SIZE;
+	
+	static final int TRAILER_SIZE = 4;
+	
+	static final int CHECKSUM_SIZE = 4;
+	
+	static final int COMMIT_MARKER = 0x0F1F0C0D;
+	
+	/**
+	 * Upper bound on the size of a single batch excerpt. 
+	 */
+	static final int MAX_BATCH_BYTES = 1 << 20;
+	
+	/**
+	 * The count of the excerpt which ends a segment. 
+	 */
+	static final int ROLL_MARKER = -1;
+	
+	/**
+	 * Returned by {@link #readHeader(Excerpt, BatchChecksum)} for an excerpt without a 
+	 * commit marker. 
+	 */
+	static final int TORN = -2;
+	
+	/**
+	 * Returned by {@link #readHeader(Excerpt, BatchChecksum)} for an excerpt 
+	 * whose checksum does not match. 
+	 */
+	static final int CORRUPT = -3;
+
+	/**
+	 * How long a full head parks between rereading the cursors. 
+	 */
+	static final long FULL_PARK_NANOS = 50 * 1000;
 
 	private final String name;
 
@@ -37,150 +109,1783 @@ public class Fifo<T> {
 	protected final Class<T> clazz;
 	protected final int buffersize;
 	protected final Chronicle chronicle;
+	protected final Marshaller<T> marshaller;
+	protected final Segments segments;
+	protected final RollPolicy rollPolicy;
+	protected final Integrity integrity;
 
 	private FifoHead head;
 	private FifoTail tail;
 
 	public Fifo(String name, Chronicle chronicle, Class<T> clazz, int maxMessageSize, int bufferSize){
+		this(name, chronicle, clazz, maxMessageSize, bufferSize, new ObjectMarshaller<T>());
+	}
+
+	public Fifo(String name, Chronicle chronicle, Class<T> clazz, int maxMessageSize, int bufferSize, Marshaller<T> marshaller){
+		this(name, chronicle, clazz, maxMessageSize, bufferSize, marshaller, Integrity.NONE);
+	}
+
+	public Fifo(String name, Chronicle chronicle, Class<T> clazz, int maxMessageSize, int bufferSize, Marshaller<T> marshaller, Integrity integrity){
 		this.name = name;
 		this.chronicle = chronicle;
 		this.maxMessageSize = maxMessageSize;
 		this.clazz = clazz;
 		this.buffersize = bufferSize;
+		this.marshaller = marshaller;
+		this.segments = null;
+		this.rollPolicy = null;
+		this.integrity = integrity;
+	}
+
+	public Fifo(String name, Segments segments, RollPolicy rollPolicy, Class<T> clazz, int maxMessageSize, int bufferSize){
+		this(name, segments, rollPolicy, clazz, maxMessageSize, bufferSize, new ObjectMarshaller<T>());
+	}
+
+	/**
+	 * A rolling fifo whose messages are spread over the segments. 
+	 */
+	public Fifo(String name, Segments segments, RollPolicy rollPolicy, Class<T> clazz, int maxMessageSize, int bufferSize, Marshaller<T> marshaller){
+		this(name, segments, rollPolicy, clazz, maxMessageSize, bufferSize, marshaller, Integrity.NONE);
+	}
+
+	public Fifo(String name, Segments segments, RollPolicy rollPolicy, Class<T> clazz, int maxMessageSize, int bufferSize, Marshaller<T> marshaller, Integrity integrity){
+		this.name = name;
+		this.chronicle = null;
+		this.maxMessageSize = maxMessageSize;
+		this.clazz = clazz;
+		this.buffersize = bufferSize;
+		this.marshaller = marshaller;
+		this.segments = segments;
+		this.rollPolicy = rollPolicy;
+		this.integrity = integrity;
+	}
+
+	/**
+	 * @return the chronicle holding the segment which is the only chronicle 
+	 * of a fifo which does not roll
+	 */
+	Chronicle chronicle(int segment) throws IOException {
+		return (segments == null) ? chronicle : segments.open(segment);
 	}
 
-	public class FifoHead implements Closeable {
+	int firstSegment() {
+		return (segments == null) ? 0 : Math.max(0, segments.first());
+	}
+
+	int lastSegment() {
+		return (segments == null) ? 0 : Math.max(0, segments.last());
+	}
+
+	String name() {
+		return name;
+	}
+
+	/**
+	 * @return the path which the fifo's own files such as cursors sit beside
+	 */
+	String path() {
+		return (segments == null) ? chronicle.name() : segments.base();
+	}
+
+	/**
+	 * Reads the header of a batch leaving the excerpt at its first message. 
+	 * 
+	 * @param checksum checks the batch's checksum, if it has one, unless null
+	 * @return the count of messages, {@link #ROLL_MARKER}, {@link #TORN} or 
+	 * {@link #CORRUPT}
+	 */
+	static int readHeader(Excerpt excerpt, BatchChecksum checksum) {
+		final int start = excerpt.position();
+		final int count = excerpt.readInt();
+		final int trailer = excerpt.readInt();
+		if( trailer < start + HEADER_SIZE || trailer + TRAILER_SIZE > excerpt.capacity() ) {
+			return TORN;
+		}
+		excerpt.position(start + HEADER_SIZE);
+		final int marker = excerpt.readInt(trailer);
+		if( marker == COMMIT_MARKER ) {
+			return count;
+		}
+		if( (marker != BatchChecksum.CRC32_MARKER && marker != BatchChecksum.CRC32C_MARKER)
+				|| trailer - CHECKSUM_SIZE < start + HEADER_SIZE ) {
+			return TORN;
+		}
+		if( checksum != null && checksum.supports(marker) 
+				&& checksum.compute(marker, excerpt, start, trailer - CHECKSUM_SIZE) != excerpt.readInt(trailer - CHECKSUM_SIZE) ) {
+			return CORRUPT;
+		}
+		return count;
+	}
+
+	/**
+	 * The producing end of the fifo. On {@link #start()} the head replays the 
+	 * segment it appends to and counts any torn or corrupt excerpts, which 
+	 * readers skip. 
+	 * Only the last segment of a rolling fifo is scanned so recovery is 
+	 * bounded by the roll policy rather than the size of the journal. 
+	 * Chronicle has no way to truncate an indexed excerpt so a torn one is 
+	 * left in place and new batches are appended after it. 
+	 * 
+	 * The {@link Durability} decides when appended batches are forced to 
+	 * disk and the latency of every add is recorded so the cost of each 
+	 * policy can be read off {@link #addLatency()}. The head's 
+	 * {@link FifoStats} are mapped from a file which other processes can 
+	 * read with {@link Fifo#stats()}. 
+	 * 
+	 * A head with a bounded {@link Capacity} keeps a count of every message 
+	 * it has appended in a mapped {@link FifoCounter} and compares it with 
+	 * the counts in the cursors of the slowest consumer group. The cursors 
+	 * are only reread once the count it last read says the fifo is full. 
+	 */
+	public class FifoHead implements Wrapper, Closeable {
 		
-		protected final DataStore dataStore;
+		protected DataStore dataStore;
 
 		final protected FileLock fileLock;
 		
+		private Chronicle current;
+		
+		private int segment;
+		
+		private long segmentBytes;
+		
+		private long segmentStarted;
+		
+		private int torn;
+		
+		private int corrupt;
+		
+		private final BatchChecksum checksum;
+		
+		/**
+		 * True if the last excerpt replayed was a roll marker. 
+		 */
+		private boolean sealed;
+		
+		private final Durability durability;
+		
+		/**
+		 * The files of the current segment, null if never forced. 
+		 */
+		volatile SegmentFiles files;
+		
+		/**
+		 * Why the flusher last failed to force, which fails the next add and 
+		 * the close, or null. 
+		 */
+		private volatile RuntimeException flushFailure;
+		
+		private int unforced;
+		
+		private volatile boolean dirty;
+		
+		private final ScheduledExecutorService flusher;
+		
+		private final FifoStats stats;
+		
+		private final Capacity capacity;
+		
+		/**
+		 * The count of appended messages, null if unbounded. 
+		 */
+		private final FifoCounter counter;
+		
+		private final List<FifoCursor> cursors = new ArrayList<FifoCursor>();
+		
+		private long appended;
+		
+		/**
+		 * How many messages the slowest group had consumed when last read. 
+		 */
+		private long slowest;
+		
+		/**
+		 * The position of the header of the batch being written. 
+		 */
+		private int batchStart;
+		
+		/**
+		 * Forces and closes the files and releases the lock. 
+		 * 
+		 * @throws IOException if the flusher failed to force at some point, 
+		 * or the final force fails, so batches may not be on disk
+		 */
 		@Override
 		public void close() throws IOException {
-			this.fileLock.release();
+			if( flusher != null ) {
+				flusher.shutdown();
+			}
+			RuntimeException failure = flushFailure;
+			try {
+				if( files != null ) {
+					try {
+						files.force();
+					} catch (RuntimeException e) {
+						if( failure == null ) {
+							failure = e;
+						}
+					}
+					files.close();
+				}
+			} finally {
+				this.fileLock.release();
+			}
+			if( failure != null ) {
+				throw new IOException("could not force fifo " + name + " to disk", failure);
+			}
 		}
 
 		public FifoHead(FileLock fileLock) throws IOException {
+			this(fileLock, Durability.ASYNC);
+		}
+
+		public FifoHead(FileLock fileLock, Durability durability) throws IOException {
+			this(fileLock, durability, Capacity.UNBOUNDED);
+		}
+
+		public FifoHead(FileLock fileLock, Durability durability, Capacity capacity) throws IOException {
 			this.fileLock = fileLock;
-			dataStore = new DataStore(chronicle, ModelMode.MASTER);
+			this.durability = durability;
+			this.capacity = capacity;
+			stats = new FifoStats(file("head.stats"));
+			stats.reset();
+			if( capacity.isBounded() ) {
+				counter = counter();
+				for( String group : capacity.groups ) {
+					cursors.add(cursor(group));
+				}
+				appended = counter.appended();
+				slowest = slowest();
+			} else {
+				counter = null;
+			}
+			checksum = (integrity == Integrity.NONE) ? null : new BatchChecksum();
+			segment = lastSegment();
+			current = chronicle(segment);
+			dataStore = new DataStore(current, ModelMode.MASTER);
+			dataStore.add(name, this);
+			segmentStarted = System.currentTimeMillis();
+			if( durability != Durability.ASYNC ) {
+				files = new SegmentFiles(current.name());
+			}
+			if( durability.periodNanos > 0 ) {
+				flusher = Executors.newSingleThreadScheduledExecutor();
+				flusher.scheduleAtFixedRate(new Runnable() {
+					public void run() {
+						if( dirty ) {
+							dirty = false;
+							try {
+								files.force();
+							} catch (RuntimeException e) {
+								// an exception would cancel every later run without a word
+								flushFailure = e;
+								dirty = true;
+							}
+						}
+					}
+				}, durability.periodNanos, durability.periodNanos, TimeUnit.NANOSECONDS);
+			} else {
+				flusher = null;
+			}
 		}
 		
+		/**
+		 * Appends the message, first applying the {@link Overflow} of a 
+		 * bounded head which is full. 
+		 * 
+		 * @throws IllegalStateException if the head fails on overflow and is 
+		 * full or if the thread is interrupted while blocked
+		 */
 		public void add(T t) {
+			final long started = System.nanoTime();
 			checkWritable();
-			Excerpt excerpt = dataStore.startExcerpt(
-					maxMessageSize + 2 + name.length() + 1, name);
-			excerpt.writeObject(t);
+			reserve(1);
+			append(t);
+			stats.latency().record(System.nanoTime() - started);
+		}
+		
+		/**
+		 * Appends the message unless a bounded head is full. 
+		 * 
+		 * @return true if the message was appended
+		 */
+		public boolean offer(T t) {
+			final long started = System.nanoTime();
+			checkWritable();
+			if( !hasRoom(1) ) {
+				return false;
+			}
+			append(t);
+			stats.latency().record(System.nanoTime() - started);
+			return true;
+		}
+		
+		/**
+		 * Waits up to the timeout for a bounded head to have room for the 
+		 * message and appends it. 
+		 * 
+		 * @return true if the message was appended
+		 */
+		public boolean offer(T t, long timeout, TimeUnit unit) throws InterruptedException {
+			final long started = System.nanoTime();
+			checkWritable();
+			final long deadline = started + unit.toNanos(timeout);
+			while( !hasRoom(1) ) {
+				if( System.nanoTime() - deadline >= 0 ) {
+					return false;
+				}
+				if( Thread.interrupted() ) {
+					throw new InterruptedException();
+				}
+				LockSupport.parkNanos(FULL_PARK_NANOS);
+			}
+			append(t);
+			stats.latency().record(System.nanoTime() - started);
+			return true;
+		}
+		
+		private void append(T t) {
+			Excerpt excerpt = beginBatch(1);
+			writeMessage(excerpt, t);
+			endBatch(excerpt, 1);
+		}
+		
+		/**
+		 * Appends the messages in iteration order packing as many as will fit 
+		 * into each excerpt so that the index and header overhead is paid once 
+		 * per batch rather than once per message. 
+		 */
+		public void addAll(Collection<? extends T> batch) {
+			final long started = System.nanoTime();
+			checkWritable();
+			reserve(batch.size());
+			final int maxBatch = Math.max(1, MAX_BATCH_BYTES / (maxMessageSize + LENGTH_SIZE));
+			final Iterator<? extends T> iterator = batch.iterator();
+			int remaining = batch.size();
+			while( remaining > 0 ) {
+				final int count = Math.min(remaining, maxBatch);
+				Excerpt excerpt = beginBatch(count);
+				for( int index = 0; index < count; index++ ) {
+					writeMessage(excerpt, iterator.next());
+				}
+				endBatch(excerpt, count);
+				remaining -= count;
+			}
+			stats.latency().record(System.nanoTime() - started);
+		}
+		
+		/**
+		 * @return how many messages the slowest consumer group of a bounded 
+		 * head has still to consume
+		 */
+		public long lag() {
+			if( counter == null ) {
+				return 0;
+			}
+			slowest = slowest();
+			final long lag = Math.max(0, appended - slowest);
+			stats.lag(lag);
+			return lag;
+		}
+		
+		/**
+		 * Messages below the floor count as consumed as the groups will 
+		 * skip them. 
+		 */
+		private long slowest() {
+			long slowest = Long.MAX_VALUE;
+			for( FifoCursor cursor : cursors ) {
+				cursor.load();
+				slowest = Math.min(slowest, cursor.messages());
+			}
+			return Math.max(slowest, counter.floor());
+		}
+		
+		/**
+		 * @return true if the messages fit, or the slowest group has read 
+		 * everything so that a batch larger than the capacity is let through
+		 */
+		boolean hasRoom(int count) {
+			if( counter == null || appended + count - slowest <= capacity.messages ) {
+				return true;
+			}
+			slowest = slowest();
+			stats.lag(appended - slowest);
+			return appended + count - slowest <= capacity.messages || slowest >= appended;
+		}
+		
+		void reserve(int count) {
+			if( hasRoom(count) ) {
+				return;
+			}
+			switch( capacity.overflow ) {
+			case FAIL:
+				throw new IllegalStateException("fifo " + name + " is full: " + capacity);
+			case DROP_OLDEST:
+				counter.floor(Math.max(counter.floor(), appended + count - capacity.messages));
+				return;
+			default:
+				while( !hasRoom(count) ) {
+					if( Thread.interrupted() ) {
+						Thread.currentThread().interrupt();
+						throw new IllegalStateException("interrupted awaiting capacity");
+					}
+					LockSupport.parkNanos(FULL_PARK_NANOS);
+				}
+			}
+		}
+		
+		/**
+		 * Counts the messages then forces now if the 
+		 * policy counts messages, otherwise leaves it to the flusher. 
+		 */
+		private void appended(int count) {
+			stats.added(count);
+			if( counter != null ) {
+				appended += count;
+				counter.appended(appended);
+			}
+			if( files == null ) {
+				return;
+			}
+			if( durability.messages > 0 ) {
+				unforced += count;
+				if( unforced >= durability.messages ) {
+					files.force();
+					unforced = 0;
+				}
+			} else {
+				dirty = true;
+			}
+		}
+		
+		/**
+		 * @return the latency of each add and addAll in nanoseconds which is 
+		 * recorded on the adding thread
+		 */
+		public LatencyHistogram addLatency() {
+			return stats.latency();
+		}
+		
+		public FifoStats stats() {
+			return stats;
+		}
+		
+		/**
+		 * Rolls if due and starts a batch of the count of messages which the 
+		 * caller writes, each as an int length and then the message, before 
+		 * calling {@link #endBatch(Excerpt, int)}. 
+		 */
+		Excerpt beginBatch(int count) {
+			final int capacity = capacity(count);
+			rollIfDue(capacity);
+			Excerpt excerpt = startBatch(capacity, count);
+			batchStart = excerpt.position() - HEADER_SIZE;
+			return excerpt;
+		}
+		
+		void endBatch(Excerpt excerpt, int count) {
+			finishBatch(excerpt, batchStart);
+			segmentBytes += capacity(count);
+			appended(count);
+		}
+		
+		private int capacity(int count) {
+			return HEADER_SIZE + count * (maxMessageSize + LENGTH_SIZE) + CHECKSUM_SIZE + TRAILER_SIZE + 2 + name.length() + 1;
+		}
+		
+		private Excerpt startBatch(int capacity, int count) {
+			Excerpt excerpt = dataStore.startExcerpt(capacity, name);
+			excerpt.writeInt(count);
+			excerpt.writeInt(0);
+			excerpt.writeLong(FifoStats.wallClockNanos());
+			return excerpt;
+		}
+		
+		/**
+		 * Points the header at the trailer, checksums the batch including its 
+		 * header and writes the marker last. 
+		 */
+		private void finishBatch(Excerpt excerpt, int start) {
+			if( checksum == null ) {
+				excerpt.writeInt(start + COUNT_SIZE, excerpt.position());
+				excerpt.writeInt(COMMIT_MARKER);
+			} else {
+				final int end = excerpt.position();
+				final int marker = checksum.marker();
+				excerpt.writeInt(start + COUNT_SIZE, end + CHECKSUM_SIZE);
+				excerpt.writeInt(checksum.compute(marker, excerpt, start, end));
+				excerpt.writeInt(marker);
+			}
 			excerpt.finish();
 		}
+		
+		private void rollIfDue(int capacity) {
+			if( rollPolicy != null 
+					&& rollPolicy.isDue(segmentBytes, capacity, System.currentTimeMillis() - segmentStarted) ) {
+				roll();
+			}
+		}
+		
+		/**
+		 * Seals the current segment before opening the next one. If the head 
+		 * dies in between then on restart it finds the last segment sealed 
+		 * and moves on rather than appending after the roll marker. 
+		 */
+		private void roll() {
+			Excerpt marker = startBatch(capacity(0), ROLL_MARKER);
+			finishBatch(marker, marker.position() - HEADER_SIZE);
+			advance();
+		}
+		
+		private void advance() {
+			final Chronicle next;
+			try {
+				next = segments.open(segment + 1);
+			} catch (IOException e) {
+				throw new IllegalStateException("could not open segment " + (segment + 1), e);
+			}
+			final DataStore nextStore = new DataStore(next, ModelMode.MASTER);
+			nextStore.add(name, this);
+			sealed = false;
+			nextStore.start();
+			if( files != null ) {
+				final SegmentFiles ended = files;
+				try {
+					files = new SegmentFiles(next.name());
+					ended.force();
+					ended.close();
+				} catch (IOException e) {
+					throw new IllegalStateException("could not open files of segment " + (segment + 1), e);
+				}
+				unforced = 0;
+			}
+			current.close();
+			current = next;
+			dataStore = nextStore;
+			segment++;
+			segmentBytes = 0;
+			segmentStarted = System.currentTimeMillis();
+		}
+		
+		private void writeMessage(Excerpt excerpt, T t) {
+			final int start = excerpt.position();
+			excerpt.writeInt(0);
+			marshaller.write(excerpt, t);
+			excerpt.writeInt(start, excerpt.position() - start - LENGTH_SIZE);
+		}
 
+		/**
+		 * @throws IllegalStateException if the store is not writable or the 
+		 * flusher has failed to force
+		 */
 		void checkWritable() {
 			dataStore.checkWritable();
+			final RuntimeException failure = flushFailure;
+			if( failure != null ) {
+				throw new IllegalStateException("periodic force of fifo " + name + " failed", failure);
+			}
 		}
 
+		/**
+		 * Replays the segment being appended to before it is written. 
+		 */
 		public void start() {
 			dataStore.start();
+			if( sealed ) {
+				advance();
+			}
+		}
+		
+		/**
+		 * @return how many torn excerpts were found when the head started
+		 */
+		public int tornExcerpts() {
+			return torn;
+		}
+		
+		/**
+		 * @return how many excerpts failed their checksum when the head started
+		 */
+		public int corruptExcerpts() {
+			return corrupt;
+		}
+		
+		/**
+		 * Counts the replayed excerpts towards the size of the segment and 
+		 * ages the segment from the stamp of its first batch so that a 
+		 * reopened head rolls where one which never stopped would have. 
+		 */
+		@Override
+		public void onExcerpt(Excerpt excerpt) {
+			try {
+				final int header = excerpt.position();
+				final boolean first = (segmentBytes == 0);
+				segmentBytes += excerpt.capacity();
+				final int count = readHeader(excerpt, checksum);
+				if( count == TORN ) {
+					torn++;
+				} else if( count == CORRUPT ) {
+					corrupt++;
+				} else if( first ) {
+					final long started = excerpt.readLong(header + COUNT_SIZE + 4) / 1000000L;
+					if( started > 0 && started < segmentStarted ) {
+						segmentStarted = started;
+					}
+				}
+				sealed = (count == ROLL_MARKER);
+			} finally {
+				excerpt.finish();
+			}
+		}
+		
+		@Override
+		public void notifyOff(boolean notifyOff) {
+			// noop
 		}
 	}
 	
-    public final static EventFactory<MutableSlot> EVENT_FACTORY = new EventFactory<MutableSlot>()
-    {
-        public MutableSlot newInstance()
-        {
-            return new MutableSlot();
-        }
-    };
+	/**
+	 * A head which any number of producer threads may add to concurrently. 
+	 * Producers claim slots in a multi-producer Disruptor ring without 
+	 * taking a lock and a single writer thread drains the ring into the 
+	 * underlying {@link FifoHead}, appending everything which is available 
+	 * as one batch. The order in which slots were claimed is the total order 
+	 * that every {@link FifoTail} sees. 
+	 * 
+	 * Messages are appended asynchronously so they must not be modified after 
+	 * they have been added. {@link #appended()} is the sequence up to which 
+	 * the writer has appended them to the underlying head. {@link #close()} 
+	 * waits until the ring is drained. If an append fails the writer drops 
+	 * whatever else is added and {@link #add(Object)} and {@link #close()} 
+	 * throw the failure. 
+	 */
+	public class SharedHead implements Closeable {
+		
+		private final FifoHead head;
+		
+		private final Sequence appended = new Sequence(Sequencer.INITIAL_CURSOR_VALUE);
+		
+		private volatile RuntimeException failure;
+		
+		private final ExecutorService executor;
+		
+		private final Disruptor<MutableSlot<T>> disruptor;
+		
+		private final RingBuffer<MutableSlot<T>> ringBuffer;
+		
+		public SharedHead(final FifoHead head, WaitPolicy waitPolicy) {
+			this.head = head;
+			executor = Executors.newSingleThreadExecutor();
+			disruptor = new Disruptor<MutableSlot<T>>(Fifo.<T>slotFactory(), executor, 
+					new MultiThreadedClaimStrategy(buffersize),
+					waitPolicy.newWaitStrategy());
+			final List<T> batch = new ArrayList<T>();
+			EventHandler<MutableSlot<T>> writer = new EventHandler<MutableSlot<T>>() {
+				public void onEvent(final MutableSlot<T> event, final long sequence, final boolean endOfBatch) throws Exception {
+					if( failure == null ) {
+						batch.add(event.getValue());
+					}
+					event.setValue(null);
+					if( endOfBatch && failure == null ) {
+						try {
+							head.addAll(batch);
+							appended.set(sequence);
+						} catch (RuntimeException e) {
+							failure = e;
+						} finally {
+							batch.clear();
+						}
+					}
+				}
+			};
+			disruptor.handleEventsWith(writer);
+			ringBuffer = disruptor.start();
+		}
+		
+		/**
+		 * Safe to call from any thread. 
+		 * 
+		 * @return the sequence of the message which {@link #appended()} 
+		 * reaches once it has been appended
+		 * @throws IllegalStateException if an append has failed
+		 */
+		public long add(T t) {
+			checkFailure();
+			final long sequence = ringBuffer.next();
+			final MutableSlot<T> slot = ringBuffer.get(sequence);
+			slot.setValue(t);
+			slot.setSequence(sequence);
+			ringBuffer.publish(sequence);
+			return sequence;
+		}
+		
+		/**
+		 * @return the sequence of the last message which the writer has 
+		 * appended to the underlying head, as durable as its 
+		 * {@link Durability} makes it 
+		 */
+		public long appended() {
+			return appended.get();
+		}
+		
+		/**
+		 * @return the failure which stopped the writer appending or null 
+		 */
+		public RuntimeException failure() {
+			return failure;
+		}
+		
+		void checkFailure() {
+			final RuntimeException failure = this.failure;
+			if( failure != null ) {
+				throw new IllegalStateException("writer of fifo " + name + " failed", failure);
+			}
+		}
+		
+		public void start() {
+			head.start();
+		}
+		
+		/**
+		 * @throws IOException if an append failed
+		 */
+		@Override
+		public void close() throws IOException {
+			disruptor.shutdown();
+			executor.shutdown();
+			head.close();
+			final RuntimeException failure = this.failure;
+			if( failure != null ) {
+				throw new IOException("writer of fifo " + name + " failed", failure);
+			}
+		}
+	}
+	
+	/**
+	 * Creates the slots which are preallocated in a tail's ring. 
+	 */
+	public static <T> EventFactory<MutableSlot<T>> slotFactory() {
+		return new EventFactory<MutableSlot<T>>()
+		{
+			public MutableSlot<T> newInstance()
+			{
+				return new MutableSlot<T>();
+			}
+		};
+	}
 	
-	public static final class MutableSlot
+	/**
+	 * An event in a tail's ring. The accessors are plain as the Disruptor's 
+	 * sequence barriers already order the chronicle reader's writes before 
+	 * the consumer's reads. The padding keeps the neighbouring slot, which the 
+	 * reader is filling while the consumer reads this one, off the same cache 
+	 * line. The segment, excerpt index and ordinal within the batch locate the 
+	 * message in the chronicle for a {@link FifoCursor} and the message is 
+	 * the number the cursor counts it as. The stamp is the head's wall clock 
+	 * nanoseconds of the message's batch, see {@link FifoStats#wallClockNanos()}. 
+	 */
+	public static final class MutableSlot<T>
 	{
-		private Object value;
+		private T value;
 		private long sequence;
+		private int segment;
+		private long index;
+		private int ordinal;
+		private long message;
+		private long stamp;
+		private int partition;
+		@SuppressWarnings("unused")
+		private long p1, p2, p3, p4, p5, p6, p7;
 
-		public synchronized long getSequence() {
+		public long getSequence() {
 			return sequence;
 		}
 
-		public synchronized Object getValue()
-	    {
-	        return value;
-	    }
+		public T getValue()
+		{
+			return value;
+		}
 
-	    public synchronized void setValue(final Object value)
-	    {
-	        this.value = value;
-	    }
+		public void setValue(final T value)
+		{
+			this.value = value;
+		}
 
-		public synchronized void setSequence(long sequence) {
+		public void setSequence(long sequence) {
 			this.sequence = sequence;
 		}
 
+		public int getSegment() {
+			return segment;
+		}
+
+		public long getIndex() {
+			return index;
+		}
+
+		public int getOrdinal() {
+			return ordinal;
+		}
+
+		public long getMessage() {
+			return message;
+		}
+
+		public void setPosition(int segment, long index, int ordinal, long message) {
+			this.segment = segment;
+			this.index = index;
+			this.ordinal = ordinal;
+			this.message = message;
+		}
+
+		public long getStamp() {
+			return stamp;
+		}
+
+		public void setStamp(long stamp) {
+			this.stamp = stamp;
+		}
+
+		public int getPartition() {
+			return partition;
+		}
+
+		public void setPartition(int partition) {
+			this.partition = partition;
+		}
 	}
 
-	public class FifoTail implements Wrapper, Closeable {
+	/**
+	 * Reads the fifo's batches off the chronicle on a {@link DataStore} thread 
+	 * and hands each message to the subclass. It follows a rolling fifo from 
+	 * segment to segment and skips whatever its cursor had committed when it 
+	 * was opened. A reader with a cursor numbers the messages it reads from 
+	 * the count its cursor had committed and also skips any message which a 
+	 * head dropping on {@link Overflow#DROP_OLDEST} has put below the floor. 
+	 * Its {@link FifoStats} are mapped beside the cursor of a reader which 
+	 * has one so other processes can read them. 
+	 */
+	abstract class FifoReader implements Wrapper {
+		
+		protected final FifoCursor cursor;
+		
+		private DataStore dataStore;
+		
+		/**
+		 * The segment before last which is only closed on the next roll so 
+		 * the reader thread which read its roll marker is long gone. 
+		 */
+		private Chronicle retired;
+		
+		private Chronicle current;
+		
+		private int segment;
+		
+		/**
+		 * The cursor position when the reader was opened. Messages up to 
+		 * here are skipped without being read. 
+		 */
+		private long resumeIndex = -1;
+		
+		private int resumeConsumed;
+		
+		private volatile long torn;
+		
+		private volatile long corrupt;
+		
+		private final BatchChecksum checksum;
+		
+		/**
+		 * The head's counter which is only read by a reader with a cursor. 
+		 */
+		private final FifoCounter counter;
 		
-		private final DataStore dataStore;
+		/**
+		 * The number of the next message read. 
+		 */
+		private long message;
+		
+		private volatile long dropped;
+		
+		protected final FifoStats stats;
+		
+		FifoReader(FifoCursor cursor, boolean verify) throws IOException {
+			this.cursor = cursor;
+			this.stats = (cursor == null) ? new FifoStats() : new FifoStats(statsFile(cursor));
+			stats.reset();
+			this.checksum = verify ? new BatchChecksum() : null;
+			this.counter = (cursor == null) ? null : counter();
+			this.message = (cursor == null) ? 0 : cursor.messages();
+			segment = firstSegment();
+			if( cursor != null && cursor.segment() >= segment ) {
+				segment = cursor.segment();
+				resumeIndex = cursor.index();
+				resumeConsumed = cursor.consumed();
+			}
+			current = chronicle(segment);
+			dataStore = open(current);
+		}
+		
+		private DataStore open(Chronicle chronicle) {
+			final DataStore store = new DataStore(chronicle, ModelMode.READ_ONLY);
+			store.add(name, this);
+			return store;
+		}
+		
+		public void start() {
+			dataStore.start();
+		}
+		
+		@Override
+		public void onExcerpt(Excerpt excerpt) {
+			try {
+				final long index = excerpt.index();
+				if( index < resumeIndex ) {
+					return;
+				}
+				final int header = excerpt.position();
+				final int count = readHeader(excerpt, checksum);
+				if( count == TORN ) {
+					torn++;
+					return;
+				}
+				if( count == CORRUPT ) {
+					corrupt++;
+					return;
+				}
+				if( count == ROLL_MARKER ) {
+					roll();
+					return;
+				}
+				final long stamp = excerpt.readLong(header + COUNT_SIZE + 4);
+				for( int ordinal = 0; ordinal < count; ordinal++ ) {
+					final int length = excerpt.readInt();
+					final int start = excerpt.position();
+					if( index > resumeIndex || ordinal >= resumeConsumed ) {
+						if( counter != null && message < counter.floor() ) {
+							dropped++;
+						} else {
+							onMessage(excerpt, segment, index, ordinal, message, stamp);
+						}
+						message++;
+					}
+					excerpt.position(start + length);
+				}
+			} finally {
+				excerpt.finish();
+			}
+		}
+		
+		/**
+		 * @return how many torn excerpts have been skipped
+		 */
+		public long tornExcerpts() {
+			return torn;
+		}
+		
+		/**
+		 * @return how many excerpts have been skipped as their checksum failed
+		 */
+		public long corruptExcerpts() {
+			return corrupt;
+		}
+		
+		/**
+		 * @return how many messages were skipped as the head dropped them
+		 */
+		public long droppedMessages() {
+			return dropped;
+		}
+		
+		public FifoStats stats() {
+			return stats;
+		}
+		
+		/**
+		 * Stops reading the chronicle. 
+		 */
+		void stop() {
+			dataStore.close();
+		}
+		
+		/**
+		 * Called with the excerpt positioned at the start of the message. 
+		 */
+		abstract void onMessage(Excerpt excerpt, int segment, long index, int ordinal, long message, long stamp);
+		
+		/**
+		 * Called on the reader thread of the segment which has ended. A new 
+		 * reader thread takes over at the start of the next segment. 
+		 */
+		private void roll() {
+			if( retired != null ) {
+				retired.close();
+			}
+			final Chronicle next;
+			try {
+				next = chronicle(segment + 1);
+			} catch (IOException e) {
+				throw new IllegalStateException("could not open segment " + (segment + 1), e);
+			}
+			final DataStore ended = dataStore;
+			retired = current;
+			current = next;
+			segment++;
+			resumeIndex = -1;
+			resumeConsumed = 0;
+			dataStore = open(next);
+			ended.close();
+			dataStore.start();
+		}
+		
+		@Override
+		public void notifyOff(boolean notifyOff) {
+			// noop
+		}
+	}
+	
+	/**
+	 * The consuming end of the fifo. Messages are read off the chronicle by the
+	 * {@link DataStore} thread and published into a Disruptor ring. They are
+	 * then either pulled off the ring with {@link #remove()} or pushed to a
+	 * {@link FifoHandler} which runs as the Disruptor event handler. Either way
+	 * there is no intermediate queue between the ring and the application.
+	 * 
+	 * A tail with a {@link FifoCursor} commits each message as it is handed 
+	 * to the application and, when restarted, skips everything the cursor 
+	 * had committed before it was opened. 
+	 * 
+	 * A handler tail may also be drained by a pool of worker threads, either 
+	 * competing for messages or each owning the messages of some partitions. 
+	 * Neither pool mode takes a cursor as messages complete out of order. 
+	 * 
+	 * A message is only published to the ring once the marshaller has read 
+	 * it. If a read fails the reader publishes nothing more, a polled tail 
+	 * throws the failure once it has taken what was published before it and 
+	 * {@link #failure()} reports it. 
+	 */
+	public class FifoTail extends FifoReader implements Closeable {
 		
 		private final ExecutorService executor;
 		
-		private final RingBuffer<MutableSlot> ringBuffer;
+		private final RingBuffer<MutableSlot<T>> ringBuffer;
+		
+		private final Disruptor<MutableSlot<T>> disruptor; 
+		
+		private final WorkerPool<MutableSlot<T>> workerPool;
+		
+		private final Partitioner<T> partitioner;
+		
+		private final int partitions;
+		
+		private final Sequence consumed;
+		
+		private final SequenceBarrier barrier;
+		
+		/**
+		 * True when messages never escape the ring so the marshaller may 
+		 * read into the message previously held by a slot. 
+		 */
+		private final boolean recycle;
 		
-		private final Disruptor<MutableSlot> disruptor; 
+		private volatile RuntimeException failure;
 		
-		ArrayBlockingQueue<Object> buffer = new ArrayBlockingQueue<Object>(buffersize, true);
+		private volatile boolean closed;
+		
+		/**
+		 * Where the message returned by {@link #pollUncommitted} sits, read 
+		 * out of its slot before the reader may refill it. 
+		 */
+		private int pendingSegment;
+		
+		private long pendingIndex;
+		
+		private int pendingOrdinal;
+		
+		private long pendingMessage;
+		
+		private boolean pending;
 		
 		@Override
 		public void close() {
-	        disruptor.shutdown();
-	        executor.shutdown();
+			closed = true;
+			if( disruptor != null ) {
+				disruptor.shutdown();
+				executor.shutdown();
+			} else if( workerPool != null ) {
+				workerPool.drainAndHalt();
+				executor.shutdown();
+			} else {
+				barrier.alert();
+			}
 		}
 		
-		@SuppressWarnings("unchecked")
-		public FifoTail() throws IOException {
-			dataStore = new DataStore(chronicle, ModelMode.READ_ONLY);
-			dataStore.add(name, this);
+		/**
+		 * A tail which is drained by calling {@link #take()}, {@link #poll()} 
+		 * or {@link #remove()}. The caller claims sequences directly from the 
+		 * ring and waits according to the policy. 
+		 */
+		public FifoTail(WaitPolicy waitPolicy) throws IOException {
+			this(waitPolicy, (FifoCursor) null);
+		}
+		
+		/**
+		 * A polled tail which resumes from, and commits to, the cursor. 
+		 */
+		public FifoTail(WaitPolicy waitPolicy, FifoCursor cursor) throws IOException {
+			super(cursor, integrity == Integrity.VERIFY);
+			executor = null;
+			disruptor = null;
+			workerPool = null;
+			partitioner = null;
+			partitions = 1;
+			ringBuffer = new RingBuffer<MutableSlot<T>>(Fifo.<T>slotFactory(), 
+					new SingleThreadedClaimStrategy(buffersize),
+					waitPolicy.newWaitStrategy());
+			consumed = new Sequence(Sequencer.INITIAL_CURSOR_VALUE);
+			ringBuffer.setGatingSequences(consumed);
+			barrier = ringBuffer.newBarrier();
+			recycle = false;
+		}
+		
+		/**
+		 * A tail which pushes every message to the supplied handler on the 
+		 * Disruptor thread. {@link #remove()} is not supported. The message 
+		 * is only valid for the duration of the callback as the marshaller 
+		 * may read the next message into the same object. 
+		 */
+		public FifoTail(WaitPolicy waitPolicy, final FifoHandler<T> handler) throws IOException {
+			this(waitPolicy, null, handler);
+		}
+		
+		/**
+		 * A handler tail which resumes from the cursor and commits each 
+		 * message once the handler has returned. 
+		 */
+		public FifoTail(WaitPolicy waitPolicy, final FifoCursor cursor, final FifoHandler<T> handler) throws IOException {
+			super(cursor, integrity == Integrity.VERIFY);
 			executor = Executors.newSingleThreadExecutor();
 			disruptor =
-					  new Disruptor<MutableSlot>(EVENT_FACTORY, executor, 
+					  new Disruptor<MutableSlot<T>>(Fifo.<T>slotFactory(), executor, 
 					                            new SingleThreadedClaimStrategy(buffersize),
-					                            new SleepingWaitStrategy());
+					                            waitPolicy.newWaitStrategy());
 			
-			EventHandler<MutableSlot> eventHandler = new EventHandler<Fifo.MutableSlot>() {
-	            public void onEvent(final MutableSlot event, final long sequence, final boolean endOfBatch) throws Exception {
-	            	buffer.put(event.getValue());
+			EventHandler<MutableSlot<T>> eventHandler = new EventHandler<MutableSlot<T>>() {
+	            public void onEvent(final MutableSlot<T> event, final long sequence, final boolean endOfBatch) throws Exception {
+	            	handler.onMessage(event.getValue(), sequence, endOfBatch);
+	            	stats.consumed(event.getStamp());
+	            	if( cursor != null ) {
+	            		cursor.commit(event.getSegment(), event.getIndex(), event.getOrdinal(), event.getMessage());
+	            		stats.committed(event.getSegment(), event.getIndex(), event.getOrdinal());
+	            	}
 	            }
 	        };
 			disruptor.handleEventsWith(eventHandler);	        
 			ringBuffer = disruptor.start();	   
+			workerPool = null;
+			partitioner = null;
+			partitions = 1;
+			consumed = null;
+			barrier = null;
+			recycle = true;
+		}
+		
+		/**
+		 * A tail whose messages are shared out between a pool of worker 
+		 * threads, each message going to whichever worker claims it first. 
+		 * There is no ordering between workers so the handler must be thread 
+		 * safe and is always told it is at the end of a batch. 
+		 */
+		public FifoTail(WaitPolicy waitPolicy, int workers, final FifoHandler<T> handler) throws IOException {
+			super(null, integrity == Integrity.VERIFY);
+			executor = Executors.newFixedThreadPool(workers);
+			@SuppressWarnings("unchecked")
+			final WorkHandler<MutableSlot<T>>[] workHandlers = (WorkHandler<MutableSlot<T>>[]) new WorkHandler<?>[workers];
+			for( int worker = 0; worker < workers; worker++ ) {
+				workHandlers[worker] = new WorkHandler<MutableSlot<T>>() {
+					public void onEvent(final MutableSlot<T> event) throws Exception {
+						handler.onMessage(event.getValue(), event.getSequence(), true);
+					}
+				};
+			}
+			workerPool = new WorkerPool<MutableSlot<T>>(Fifo.<T>slotFactory(), 
+					new SingleThreadedClaimStrategy(buffersize),
+					waitPolicy.newWaitStrategy(), new FatalExceptionHandler(), workHandlers);
+			ringBuffer = workerPool.start(executor);
+			disruptor = null;
+			partitioner = null;
+			partitions = 1;
+			consumed = null;
+			barrier = null;
+			recycle = true;
+		}
+		
+		/**
+		 * A tail with one worker thread per partition. The reader thread keys 
+		 * each message with the partitioner so all messages with the same key 
+		 * go to the same worker in fifo order. The handler must be thread safe. 
+		 */
+		public FifoTail(WaitPolicy waitPolicy, int workers, Partitioner<T> partitioner, final FifoHandler<T> handler) throws IOException {
+			super(null, integrity == Integrity.VERIFY);
+			executor = Executors.newFixedThreadPool(workers);
+			disruptor =
+					  new Disruptor<MutableSlot<T>>(Fifo.<T>slotFactory(), executor, 
+					                            new SingleThreadedClaimStrategy(buffersize),
+					                            waitPolicy.newWaitStrategy());
+			@SuppressWarnings("unchecked")
+			final EventHandler<MutableSlot<T>>[] eventHandlers = (EventHandler<MutableSlot<T>>[]) new EventHandler<?>[workers];
+			for( int worker = 0; worker < workers; worker++ ) {
+				eventHandlers[worker] = new PartitionHandler(worker, handler);
+			}
+			disruptor.handleEventsWith(eventHandlers);
+			ringBuffer = disruptor.start();
+			workerPool = null;
+			this.partitioner = partitioner;
+			partitions = workers;
+			consumed = null;
+			barrier = null;
+			recycle = true;
 		}
 
-		@SuppressWarnings("unchecked")
+		/**
+		 * Blocks until the next message is available on the ring and returns it. 
+		 * 
+		 * @throws IllegalStateException if the tail is closed or the thread is 
+		 * interrupted while waiting
+		 */
 		public T remove() {
-			Object value = buffer.poll();
-			while( value == null ) {
-				Thread.yield();
-				value = buffer.poll();
+			try {
+				return take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("interrupted awaiting message", e);
+			}
+		}
+		
+		/**
+		 * Blocks until the next message is available on the ring and returns it. 
+		 */
+		public T take() throws InterruptedException {
+			checkPollable();
+			final long next = consumed.get() + 1;
+			try {
+				barrier.waitFor(next);
+			} catch (AlertException e) {
+				alerted(e, next);
+			}
+			return consume(next);
+		}
+		
+		/**
+		 * Waits up to the timeout for the next message. 
+		 * 
+		 * @return the next message or null if none arrived in time
+		 */
+		public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+			checkPollable();
+			final long next = consumed.get() + 1;
+			long available;
+			try {
+				available = barrier.waitFor(next, timeout, unit);
+			} catch (AlertException e) {
+				available = alerted(e, next);
+			}
+			return (available < next) ? null : consume(next);
+		}
+		
+		/**
+		 * @return the next message or null if none is available right now
+		 */
+		public T poll() {
+			checkPollable();
+			final long next = consumed.get() + 1;
+			return (barrier.getCursor() < next) ? none() : consume(next);
+		}
+		
+		private void checkPollable() {
+			if( barrier == null ) {
+				throw new UnsupportedOperationException(
+						"cannot poll a tail with a FifoHandler");
 			}
-			return (T) value;
+		}
+		
+		/**
+		 * Like {@link #poll(long, TimeUnit)} but leaves the message to be 
+		 * committed by {@link #commit()} so that a caller which hands it on 
+		 * only commits once it has done so. 
+		 */
+		T pollUncommitted(long timeout, TimeUnit unit) throws InterruptedException {
+			checkPollable();
+			final long next = consumed.get() + 1;
+			long available;
+			try {
+				available = barrier.waitFor(next, timeout, unit);
+			} catch (AlertException e) {
+				available = alerted(e, next);
+			}
+			return (available < next) ? null : consume(next, false);
+		}
+		
+		/**
+		 * @return the next message without committing it or null if none is 
+		 * available right now
+		 */
+		T pollUncommitted() {
+			checkPollable();
+			final long next = consumed.get() + 1;
+			return (barrier.getCursor() < next) ? none() : consume(next, false);
+		}
+		
+		/**
+		 * Commits the message last returned by {@link #pollUncommitted} and 
+		 * every message before it. 
+		 */
+		void commit() {
+			if( cursor != null && pending ) {
+				cursor.commit(pendingSegment, pendingIndex, pendingOrdinal, pendingMessage);
+				stats.committed(pendingSegment, pendingIndex, pendingOrdinal);
+				pending = false;
+			}
+		}
+		
+		private T consume(long next) {
+			return consume(next, true);
+		}
+		
+		private T consume(long next, boolean commit) {
+			final MutableSlot<T> slot = ringBuffer.get(next);
+			final T value = slot.getValue();
+			slot.setValue(null);
+			stats.consumed(slot.getStamp());
+			if( cursor != null ) {
+				if( commit ) {
+					cursor.commit(slot.getSegment(), slot.getIndex(), slot.getOrdinal(), slot.getMessage());
+					stats.committed(slot.getSegment(), slot.getIndex(), slot.getOrdinal());
+				} else {
+					pendingSegment = slot.getSegment();
+					pendingIndex = slot.getIndex();
+					pendingOrdinal = slot.getOrdinal();
+					pendingMessage = slot.getMessage();
+					pending = true;
+				}
+			}
+			consumed.set(next);
+			return value;
 		}
 
+		@Override
+		void onMessage(Excerpt excerpt, int segment, long index, int ordinal, long message, long stamp) {
+			if( ordinal == 0 ) {
+				stats.occupancy(ringBuffer.getBufferSize() - ringBuffer.remainingCapacity());
+			}
+			// the reader is the only publisher so it fills the next slot before 
+			// claiming it and a failed read leaves nothing published 
+			while( !ringBuffer.hasAvailableCapacity(1) ) {
+				if( failure != null || closed ) {
+					return;
+				}
+				LockSupport.parkNanos(FULL_PARK_NANOS);
+			}
+			if( failure != null ) {
+				return;
+			}
+			final long sequence = ringBuffer.getCursor() + 1;
+			final MutableSlot<T> event = ringBuffer.get(sequence);
+			try {
+				T reuse = recycle ? event.getValue() : null;
+				final T value = marshaller.read(excerpt, reuse);
+				event.setValue(value);
+				if( partitioner != null ) {
+					event.setPartition((partitioner.partition(value) & Integer.MAX_VALUE) % partitions);
+				}
+			} catch (RuntimeException e) {
+				failure = e;
+				if( barrier != null ) {
+					barrier.alert();
+				}
+				return;
+			}
+			event.setSequence(sequence);
+			event.setPosition(segment, index, ordinal, message);
+			event.setStamp(stamp);
+			ringBuffer.publish(ringBuffer.next());
+			if( workerPool != null || partitioner != null ) {
+				stats.consumed(stamp);
+			}
+		}
+		
+		/**
+		 * @return the exception which stopped the reader handing messages to 
+		 * the tail or null if none
+		 */
+		public RuntimeException failure() {
+			return failure;
+		}
+		
+		/**
+		 * A reader which failed alerts the barrier, but whatever it had 
+		 * published before still goes to the application. 
+		 * 
+		 * @return the highest available sequence 
+		 */
+		private long alerted(AlertException e, long next) {
+			final RuntimeException failure = this.failure;
+			if( failure == null ) {
+				throw new IllegalStateException("tail has been closed", e);
+			}
+			final long available = barrier.getCursor();
+			if( available >= next ) {
+				return available;
+			}
+			throw new IllegalStateException("reader of fifo " + name + " failed", failure);
+		}
+		
+		/**
+		 * @return null as nothing is available unless the reader failed
+		 */
+		private T none() {
+			final RuntimeException failure = this.failure;
+			if( failure != null ) {
+				throw new IllegalStateException("reader of fifo " + name + " failed", failure);
+			}
+			return null;
+		}
+		
+		/**
+		 * Sees every event but only handles those of its own partition. The 
+		 * last of its own messages in a batch is held back until the batch 
+		 * ends so the handler is still told when it is at the end of a batch. 
+		 */
+		private final class PartitionHandler implements EventHandler<MutableSlot<T>> {
+			
+			private final int partition;
+			
+			private final FifoHandler<T> handler;
+			
+			private MutableSlot<T> pending;
+			
+			PartitionHandler(int partition, FifoHandler<T> handler) {
+				this.partition = partition;
+				this.handler = handler;
+			}
+			
+			public void onEvent(final MutableSlot<T> event, final long sequence, final boolean endOfBatch) throws Exception {
+				if( event.getPartition() == partition ) {
+					if( pending != null ) {
+						handler.onMessage(pending.getValue(), pending.getSequence(), false);
+					}
+					pending = event;
+				}
+				if( endOfBatch && pending != null ) {
+					final MutableSlot<T> last = pending;
+					pending = null;
+					handler.onMessage(last.getValue(), last.getSequence(), true);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * A tail which binds a {@link Flyweight} to each message in place on the 
+	 * chronicle reader thread. There is no ring and no copy into the heap. 
+	 * With a {@link FifoCursor} each message is committed once the handler 
+	 * has returned. 
+	 */
+	public class FlyweightTail<V extends Flyweight> extends FifoReader implements Closeable {
+		
+		private final V view;
+		
+		private final FlyweightHandler<V> handler;
+		
+		public FlyweightTail(V view, FlyweightHandler<V> handler) throws IOException {
+			this(view, null, handler);
+		}
+		
+		public FlyweightTail(V view, FifoCursor cursor, FlyweightHandler<V> handler) throws IOException {
+			super(cursor, integrity == Integrity.VERIFY);
+			this.view = view;
+			this.handler = handler;
+		}
+		
+		@Override
+		void onMessage(Excerpt excerpt, int segment, long index, int ordinal, long message, long stamp) {
+			view.bind(excerpt);
+			try {
+				handler.onMessage(view);
+			} finally {
+				view.unbind();
+			}
+			stats.consumed(stamp);
+			if( cursor != null ) {
+				cursor.commit(segment, index, ordinal, message);
+				stats.committed(segment, index, ordinal);
+			}
+		}
+		
+		@Override
+		public void close() {
+			view.unbind();
+		}
+	}
+	
+	/**
+	 * A tail whose ring is a set of flat arrays indexed by sequence rather 
+	 * than an array of slot objects, so fixed width messages are copied 
+	 * straight from the excerpt into primitive storage with no boxing and 
+	 * no object per message. A Disruptor {@link Sequencer} claims and 
+	 * publishes the slots exactly as a ring buffer would. The subclass owns 
+	 * the storage of the messages and this class the position of each 
+	 * message in the chronicle. 
+	 * 
+	 * A polled tail is drained by the subclass through {@link #await()} and 
+	 * {@link #release(long)}. A handled tail runs its own consumer thread 
+	 * which delivers every available message and then commits the cursor 
+	 * once for the whole batch, so after a crash the group resumes at the 
+	 * start of the batch which was being handled. An exception thrown by the 
+	 * handler is logged and stops the tail, which then reports it through 
+	 * {@link #failure()}. The reader then drops what it reads rather than 
+	 * wait for a full ring to drain. 
+	 */
+	abstract class PrimitiveTail extends FifoReader implements Closeable {
+		
+		private final Sequencer sequencer;
+		
+		private final SequenceBarrier barrier;
+		
+		private final Sequence consumed;
+		
+		private final ExecutorService executor;
+		
+		private final int mask;
+		
+		private final int[] segments;
+		
+		private final long[] indexes;
+		
+		private final int[] ordinals;
+		
+		private final long[] messages;
+		
+		private final long[] stamps;
+		
+		private volatile Exception failure;
+		
+		private volatile boolean closed;
+		
+		/**
+		 * @param handled true to run a consumer thread from {@link #start()} 
+		 * which calls {@link #deliver(int, long, boolean)} 
+		 */
+		PrimitiveTail(WaitPolicy waitPolicy, FifoCursor cursor, boolean handled) throws IOException {
+			super(cursor, integrity == Integrity.VERIFY);
+			if( Integer.bitCount(buffersize) != 1 ) {
+				throw new IllegalArgumentException("bufferSize must be a power of 2: " + buffersize);
+			}
+			mask = buffersize - 1;
+			segments = new int[buffersize];
+			indexes = new long[buffersize];
+			ordinals = new int[buffersize];
+			messages = new long[buffersize];
+			stamps = new long[buffersize];
+			sequencer = new Sequencer(new SingleThreadedClaimStrategy(buffersize), waitPolicy.newWaitStrategy());
+			consumed = new Sequence(Sequencer.INITIAL_CURSOR_VALUE);
+			sequencer.setGatingSequences(consumed);
+			barrier = sequencer.newBarrier();
+			executor = handled ? Executors.newSingleThreadExecutor() : null;
+		}
+		
+		@Override
 		public void start() {
-			dataStore.start();
+			if( executor != null ) {
+				executor.execute(new Runnable() {
+					public void run() {
+						consume();
+					}
+				});
+			}
+			super.start();
+		}
+		
+		/**
+		 * Copies the message at the excerpt's position into the slot. 
+		 */
+		abstract void store(Excerpt excerpt, int slot);
+		
+		/**
+		 * Hands the message in the slot to the handler of a handled tail. 
+		 */
+		abstract void deliver(int slot, long sequence, boolean endOfBatch) throws Exception;
+		
+		final int slot(long sequence) {
+			return (int) sequence & mask;
 		}
 		
 		@Override
-		public void onExcerpt(Excerpt excerpt) {
-			@SuppressWarnings("unchecked")
-			T t = (T) excerpt.readObject();
-			excerpt.finish();
-			long sequence = ringBuffer.next();
-			MutableSlot event = ringBuffer.get(sequence);
-			event.setValue(t);
-			event.setSequence(sequence);
-			ringBuffer.publish(sequence);   
+		void onMessage(Excerpt excerpt, int segment, long index, int ordinal, long message, long stamp) {
+			if( ordinal == 0 ) {
+				stats.occupancy(sequencer.getBufferSize() - sequencer.remainingCapacity());
+			}
+			// the reader is the only publisher so it fills the next slot before 
+			// claiming it and a failed store leaves nothing published 
+			while( !sequencer.hasAvailableCapacity(1) ) {
+				if( failure != null || closed ) {
+					return;
+				}
+				LockSupport.parkNanos(FULL_PARK_NANOS);
+			}
+			if( failure != null ) {
+				return;
+			}
+			final int slot = slot(sequencer.getCursor() + 1);
+			store(excerpt, slot);
+			segments[slot] = segment;
+			indexes[slot] = index;
+			ordinals[slot] = ordinal;
+			messages[slot] = message;
+			stamps[slot] = stamp;
+			sequencer.publish(sequencer.next());
+		}
+		
+		/**
+		 * @return the exception which stopped the handler or null if none
+		 */
+		public Exception failure() {
+			return failure;
+		}
+		
+		private void consume() {
+			long next = consumed.get() + 1;
+			while( true ) {
+				final long available;
+				try {
+					available = barrier.waitFor(next);
+				} catch (AlertException e) {
+					return;
+				} catch (InterruptedException e) {
+					return;
+				}
+				for( long sequence = next; sequence <= available; sequence++ ) {
+					try {
+						deliver(slot(sequence), sequence, sequence == available);
+					} catch (Exception e) {
+						failure = e;
+						LOGGER.log(Level.SEVERE, "handler of fifo " + name + " failed at sequence " + sequence, e);
+						return;
+					}
+				}
+				release(available);
+				next = available + 1;
+			}
+		}
+		
+		/**
+		 * Blocks until the next message is available. 
+		 * 
+		 * @return its sequence
+		 * @throws IllegalStateException if the tail is closed
+		 */
+		final long await() throws InterruptedException {
+			checkPollable();
+			final long next = consumed.get() + 1;
+			try {
+				barrier.waitFor(next);
+			} catch (AlertException e) {
+				throw new IllegalStateException("tail has been closed", e);
+			}
+			return next;
+		}
+		
+		/**
+		 * Waits up to the timeout for the next message. 
+		 * 
+		 * @return the highest available sequence which is below the next 
+		 * sequence if nothing arrived in time
+		 */
+		final long await(long timeout, TimeUnit unit) throws InterruptedException {
+			checkPollable();
+			try {
+				return barrier.waitFor(consumed.get() + 1, timeout, unit);
+			} catch (AlertException e) {
+				throw new IllegalStateException("tail has been closed", e);
+			}
+		}
+		
+		/**
+		 * @return the sequence of the next message to consume
+		 */
+		final long next() {
+			checkPollable();
+			return consumed.get() + 1;
+		}
+		
+		/**
+		 * @return the highest sequence which has been published
+		 */
+		final long available() {
+			return barrier.getCursor();
+		}
+		
+		/**
+		 * Marks every message up to the sequence consumed, commits the 
+		 * position of the last of them and frees their slots. 
+		 */
+		final void release(long sequence) {
+			for( long released = consumed.get() + 1; released <= sequence; released++ ) {
+				stats.consumed(stamps[slot(released)]);
+			}
+			if( cursor != null ) {
+				final int slot = slot(sequence);
+				cursor.commit(segments[slot], indexes[slot], ordinals[slot], messages[slot]);
+				stats.committed(segments[slot], indexes[slot], ordinals[slot]);
+			}
+			consumed.set(sequence);
+		}
+		
+		private void checkPollable() {
+			if( executor != null ) {
+				throw new UnsupportedOperationException("cannot poll a tail with a handler");
+			}
 		}
 		
 		@Override
-		public void notifyOff(boolean notifyOff) {
-			// noop
+		public void close() {
+			closed = true;
+			barrier.alert();
+			if( executor != null ) {
+				executor.shutdown();
+			}
+		}
+	}
+	
+	/**
+	 * Reads the whole fifo in the background checking the checksum of every 
+	 * batch, so corruption is found even when tails do not verify what they 
+	 * read. It follows the fifo as it grows until it is closed. 
+	 */
+	public class Scrubber extends FifoReader implements Closeable {
+		
+		private volatile long messages;
+		
+		public Scrubber() throws IOException {
+			super(null, true);
+		}
+		
+		@Override
+		void onMessage(Excerpt excerpt, int segment, long index, int ordinal, long message, long stamp) {
+			messages++;
+		}
+		
+		/**
+		 * @return how many messages have been scrubbed
+		 */
+		public long messages() {
+			return messages;
+		}
+		
+		@Override
+		public void close() {
+			stop();
 		}
 	}
 	
@@ -190,12 +1895,168 @@ public class Fifo<T> {
 		return head;
 	}
 
+	/**
+	 * @param durability when appended batches are forced to disk
+	 */
+	public FifoHead head(Durability durability) throws IOException, IllegalAccessException {
+		final FileLock fileLock = obtainFileLock(name);
+		head = new FifoHead(fileLock, durability);
+		return head;
+	}
+
+	/**
+	 * @param capacity how far ahead of its slowest consumer group the head 
+	 * may get
+	 */
+	public FifoHead head(Capacity capacity) throws IOException, IllegalAccessException {
+		return head(Durability.ASYNC, capacity);
+	}
+
+	public FifoHead head(Durability durability, Capacity capacity) throws IOException, IllegalAccessException {
+		final FileLock fileLock = obtainFileLock(name);
+		head = new FifoHead(fileLock, durability, capacity);
+		return head;
+	}
+
+	public SharedHead sharedHead() throws IOException, IllegalAccessException {
+		return sharedHead(WaitPolicy.PARK);
+	}
+
+	/**
+	 * @param waitPolicy how the writer thread waits for producers
+	 */
+	public SharedHead sharedHead(WaitPolicy waitPolicy) throws IOException, IllegalAccessException {
+		return new SharedHead(head(), waitPolicy);
+	}
+
+	public SharedHead sharedHead(WaitPolicy waitPolicy, Durability durability) throws IOException, IllegalAccessException {
+		return new SharedHead(head(durability), waitPolicy);
+	}
+
 	public FifoTail tail() throws IOException, IllegalAccessException {
-		tail = new FifoTail();
+		return tail(WaitPolicy.PARK);
+	}
+
+	public FifoTail tail(WaitPolicy waitPolicy) throws IOException, IllegalAccessException {
+		tail = new FifoTail(waitPolicy);
+		return tail;
+	}
+
+	public FifoTail tail(FifoHandler<T> handler) throws IOException, IllegalAccessException {
+		return tail(WaitPolicy.PARK, handler);
+	}
+
+	public FifoTail tail(WaitPolicy waitPolicy, FifoHandler<T> handler) throws IOException, IllegalAccessException {
+		tail = new FifoTail(waitPolicy, handler);
+		return tail;
+	}
+
+	public <V extends Flyweight> FlyweightTail<V> tail(V view, FlyweightHandler<V> handler) throws IOException, IllegalAccessException {
+		return new FlyweightTail<V>(view, handler);
+	}
+
+	/**
+	 * A tail drained by a pool of competing worker threads. 
+	 */
+	public FifoTail tail(int workers, FifoHandler<T> handler) throws IOException, IllegalAccessException {
+		return tail(WaitPolicy.PARK, workers, handler);
+	}
+
+	public FifoTail tail(WaitPolicy waitPolicy, int workers, FifoHandler<T> handler) throws IOException, IllegalAccessException {
+		tail = new FifoTail(waitPolicy, workers, handler);
+		return tail;
+	}
+
+	/**
+	 * A tail drained by one worker thread per partition which keeps the 
+	 * messages of each key in fifo order. 
+	 */
+	public FifoTail tail(int workers, Partitioner<T> partitioner, FifoHandler<T> handler) throws IOException, IllegalAccessException {
+		return tail(WaitPolicy.PARK, workers, partitioner, handler);
+	}
+
+	public FifoTail tail(WaitPolicy waitPolicy, int workers, Partitioner<T> partitioner, FifoHandler<T> handler) throws IOException, IllegalAccessException {
+		tail = new FifoTail(waitPolicy, workers, partitioner, handler);
+		return tail;
+	}
+
+	/**
+	 * A tail for the named consumer group which resumes from where the group 
+	 * last left off. Each group has its own cursor so any number of groups 
+	 * consume the same fifo independently. 
+	 */
+	public FifoTail tail(String group) throws IOException, IllegalAccessException {
+		return tail(group, WaitPolicy.PARK);
+	}
+
+	public FifoTail tail(String group, WaitPolicy waitPolicy) throws IOException, IllegalAccessException {
+		tail = new FifoTail(waitPolicy, cursor(group));
 		return tail;
 	}
 
-	private FileLock obtainFileLock(String name)
+	public FifoTail tail(String group, FifoHandler<T> handler) throws IOException, IllegalAccessException {
+		return tail(group, WaitPolicy.PARK, handler);
+	}
+
+	public FifoTail tail(String group, WaitPolicy waitPolicy, FifoHandler<T> handler) throws IOException, IllegalAccessException {
+		tail = new FifoTail(waitPolicy, cursor(group), handler);
+		return tail;
+	}
+
+	public <V extends Flyweight> FlyweightTail<V> tail(String group, V view, FlyweightHandler<V> handler) throws IOException, IllegalAccessException {
+		return new FlyweightTail<V>(view, cursor(group), handler);
+	}
+
+	public Scrubber scrubber() throws IOException {
+		return new Scrubber();
+	}
+
+	/**
+	 * The cursor file sits alongside the chronicle's data and index files. 
+	 */
+	FifoCursor cursor(String group) throws IOException {
+		return new FifoCursor(file(group + ".cursor"));
+	}
+
+	/**
+	 * The head's counter file sits alongside the cursors. 
+	 */
+	FifoCounter counter() throws IOException {
+		return new FifoCounter(file("counter"));
+	}
+
+	/**
+	 * @return the head's counters which may be read from any process
+	 */
+	public FifoStats stats() throws IOException {
+		return new FifoStats(file("head.stats"));
+	}
+
+	/**
+	 * @return the counters of the consumer group's tail
+	 */
+	public FifoStats stats(String group) throws IOException {
+		return new FifoStats(statsFile(group));
+	}
+
+	private File file(String suffix) {
+		return new File(path() + "." + name + "." + suffix);
+	}
+
+	/**
+	 * The stats of a group sit beside its cursor. They are prefixed so that 
+	 * a group named "head" does not share the head's stats. 
+	 */
+	File statsFile(String group) {
+		return file("group." + group + ".stats");
+	}
+
+	File statsFile(FifoCursor cursor) {
+		final String path = cursor.file().getPath();
+		return statsFile(path.substring(file("").getPath().length(), path.length() - ".cursor".length()));
+	}
+
+	FileLock obtainFileLock(String name)
 			throws FileNotFoundException, IOException,
 			IllegalAccessException {
 		final File f = new File(name);
@@ -0,0 +1,50 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * How many messages the head of a fifo has ever appended and the floor 
+ * below which a dropping head has told consumer groups to skip, held in a 
+ * small memory mapped file which the head writes and the tails of any 
+ * process read. 
+ * 
+ * @author simbo
+ */
+class FifoCounter {
+	
+	private static final int APPENDED = 0, FLOOR = 8;
+	
+	private final MappedByteBuffer buffer;
+	
+	FifoCounter(File file) throws IOException {
+		final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			buffer = raf.getChannel().map(MapMode.READ_WRITE, 0, 16);
+		} finally {
+			raf.close();
+		}
+	}
+	
+	long appended() {
+		return buffer.getLong(APPENDED);
+	}
+	
+	void appended(long appended) {
+		buffer.putLong(APPENDED, appended);
+	}
+	
+	/**
+	 * @return the number of the oldest message groups should still read
+	 */
+	long floor() {
+		return buffer.getLong(FLOOR);
+	}
+	
+	void floor(long floor) {
+		buffer.putLong(FLOOR, floor);
+	}
+}
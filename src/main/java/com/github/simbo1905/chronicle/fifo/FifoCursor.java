@@ -0,0 +1,145 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * The durable read position of a named consumer group held in a small memory
+ * mapped file. The position is the segment and excerpt index of the last
+ * message consumed together with how many messages of that excerpt's batch
+ * have been consumed. It also counts every message the group has consumed so
+ * a bounded head can tell how far behind the group is.
+ *
+ * The file holds two slots which are written alternately, each stamped at
+ * both ends. A commit only overwrites the older slot so if the process dies
+ * part way through a commit the newer slot is still intact and is the one
+ * which is read back on restart. The slots are a seqlock: a commit stamps
+ * the head of the slot before its fields and the tail after them with
+ * ordered puts, and a reader reads them in the reverse order so that it
+ * only accepts a slot whose stamps agree. The mapping outlives the file
+ * handle so there is nothing to close.
+ *
+ * @author simbo
+ */
+public class FifoCursor {
+
+	static final int SLOT_SIZE = 48;
+
+	private static final int STAMP = 0, SEGMENT = 8, INDEX = 16, CONSUMED = 24, MESSAGES = 32, CHECK = 40;
+
+	private final File file;
+
+	private final UnsafeMemory memory;
+
+	private long stamp;
+
+	private int segment = -1;
+
+	private long index = -1;
+
+	private int consumed;
+
+	private long messages;
+
+	public FifoCursor(File file) throws IOException {
+		this.file = file;
+		final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		final MappedByteBuffer buffer;
+		try {
+			buffer = raf.getChannel().map(MapMode.READ_WRITE, 0, 2 * SLOT_SIZE);
+		} finally {
+			raf.close();
+		}
+		memory = new UnsafeMemory(buffer, true);
+		load();
+	}
+
+	/**
+	 * Rereads the newest intact slot, which another process may have
+	 * committed since this cursor was opened.
+	 */
+	void load() {
+		for( int slot = 0; slot < 2; slot++ ) {
+			final int base = slot * SLOT_SIZE;
+			final long check = memory.getLongVolatile(base + CHECK);
+			if( check <= stamp ) {
+				continue;
+			}
+			final long slotSegment = memory.getLongVolatile(base + SEGMENT);
+			final long slotIndex = memory.getLongVolatile(base + INDEX);
+			final long slotConsumed = memory.getLongVolatile(base + CONSUMED);
+			final long slotMessages = memory.getLongVolatile(base + MESSAGES);
+			if( check == memory.getLongVolatile(base + STAMP) ) {
+				stamp = check;
+				segment = (int) slotSegment;
+				index = slotIndex;
+				consumed = (int) slotConsumed;
+				messages = slotMessages;
+			}
+		}
+	}
+
+	File file() {
+		return file;
+	}
+
+	/**
+	 * @return the segment of the last message consumed or -1 if none
+	 */
+	public int segment() {
+		return segment;
+	}
+
+	/**
+	 * @return the excerpt index of the last message consumed or -1 if none
+	 */
+	public long index() {
+		return index;
+	}
+
+	/**
+	 * @return how many messages of the batch at {@link #index()} are consumed
+	 */
+	public int consumed() {
+		return consumed;
+	}
+
+	/**
+	 * @return how many messages the group has consumed in total
+	 */
+	public long messages() {
+		return messages;
+	}
+
+	/**
+	 * Records that the next message in turn has been consumed.
+	 */
+	public void commit(int segment, long index, int ordinal) {
+		commit(segment, index, ordinal, messages);
+	}
+
+	/**
+	 * Records that the message at the ordinal within the batch at the excerpt
+	 * index of the segment, and everything before it, has been consumed.
+	 *
+	 * @param message the number of the message counting from zero
+	 */
+	public void commit(int segment, long index, int ordinal, long message) {
+		final long next = stamp + 1;
+		final int base = (int) (next & 1) * SLOT_SIZE;
+		memory.putOrderedLong(base + STAMP, next);
+		memory.putOrderedLong(base + SEGMENT, segment);
+		memory.putOrderedLong(base + INDEX, index);
+		memory.putOrderedLong(base + CONSUMED, ordinal + 1);
+		memory.putOrderedLong(base + MESSAGES, message + 1);
+		memory.putOrderedLong(base + CHECK, next);
+		this.stamp = next;
+		this.segment = segment;
+		this.index = index;
+		this.consumed = ordinal + 1;
+		this.messages = message + 1;
+	}
+}
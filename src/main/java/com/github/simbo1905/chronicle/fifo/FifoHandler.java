@@ -0,0 +1,21 @@
+package com.github.simbo1905.chronicle.fifo;
+
+/**
+ * Application code which consumes a {@link Fifo} by running as the Disruptor 
+ * event handler of a {@link Fifo.FifoTail}. Messages are handed over straight 
+ * off the ring so there is no intermediate queue, lock or extra thread hop. 
+ * 
+ * @author simbo
+ */
+public interface FifoHandler<T> {
+	
+	/**
+	 * Called on the tail's Disruptor thread for every message in fifo order. 
+	 * 
+	 * @param message the message removed from the fifo which may be reused 
+	 * by the {@link Marshaller} once this method returns
+	 * @param sequence the ring sequence of the message
+	 * @param endOfBatch true if this is the last message currently available
+	 */
+	void onMessage(T message, long sequence, boolean endOfBatch) throws Exception;
+}
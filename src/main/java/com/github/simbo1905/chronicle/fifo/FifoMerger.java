@@ -0,0 +1,147 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Merges the sub-journals written by producers in other processes into one
+ * fifo. Each producer process appends to its own {@link Fifo}, on its own
+ * chronicle and with a name unique to the producer, so producers never
+ * contend for a file lock. The merger drains a tail per sub-journal on its
+ * own thread into a {@link Fifo.SharedHead} of the merged fifo whose
+ * sequence then defines the total order seen by every tail of the merged
+ * fifo.
+ *
+ * Each tail reads as a consumer group of its sub-journal. A merging thread
+ * adds whatever its tail has available, up to a batch, and commits the
+ * last of them only once the target's writer has appended them all to the
+ * merged fifo, so a restarted merger resumes where the last one left off
+ * and a message appended just before a crash may be merged again. The
+ * target's {@link Durability} decides whether an appended message survives
+ * the machine failing. A failure on a merging thread, including a failed
+ * append, stops the merger and is rethrown by {@link #close()}.
+ *
+ * @author simbo
+ */
+public class FifoMerger<T> implements Closeable {
+
+	static final String GROUP = "merger";
+
+	private static final long POLL_MS = 100;
+
+	/**
+	 * The most messages a merging thread adds before it waits for them to
+	 * be appended and commits.
+	 */
+	static final int BATCH = 256;
+
+	private final Fifo<T>.SharedHead target;
+
+	private final List<Fifo<T>.FifoTail> tails = new ArrayList<Fifo<T>.FifoTail>();
+
+	private final ExecutorService executor;
+
+	private volatile boolean running = true;
+
+	private volatile RuntimeException failure;
+
+	public FifoMerger(Fifo<T>.SharedHead target, List<Fifo<T>> sources, WaitPolicy waitPolicy)
+			throws IOException, IllegalAccessException {
+		this(target, sources, GROUP, waitPolicy);
+	}
+
+	/**
+	 * @param group the consumer group which the merger reads each source as
+	 */
+	public FifoMerger(Fifo<T>.SharedHead target, List<Fifo<T>> sources, String group, WaitPolicy waitPolicy)
+			throws IOException, IllegalAccessException {
+		this.target = target;
+		for( Fifo<T> source : sources ) {
+			tails.add(source.tail(group, waitPolicy));
+		}
+		executor = Executors.newFixedThreadPool(sources.size());
+	}
+
+	public void start() {
+		for( final Fifo<T>.FifoTail tail : tails ) {
+			tail.start();
+			executor.submit(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						while( running ) {
+							T t = tail.pollUncommitted(POLL_MS, TimeUnit.MILLISECONDS);
+							if( t == null ) {
+								continue;
+							}
+							long last = target.add(t);
+							for( int added = 1; added < BATCH && (t = tail.pollUncommitted()) != null; added++ ) {
+								last = target.add(t);
+							}
+							if( awaitAppended(last) ) {
+								tail.commit();
+							}
+						}
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					} catch (RuntimeException e) {
+						failure = e;
+						running = false;
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * @return false if the merger was closed before the target's writer
+	 * appended the message at the sequence
+	 * @throws IllegalStateException if the writer failed
+	 */
+	private boolean awaitAppended(long sequence) {
+		while( target.appended() < sequence ) {
+			if( !running ) {
+				return false;
+			}
+			target.checkFailure();
+			LockSupport.parkNanos(Fifo.FULL_PARK_NANOS);
+		}
+		return true;
+	}
+
+	/**
+	 * @return the failure which stopped the merger or null if none
+	 */
+	public RuntimeException failure() {
+		return failure;
+	}
+
+	/**
+	 * Stops merging. The target head is left open for its owner to close.
+	 *
+	 * @throws IOException if a merging thread failed
+	 */
+	@Override
+	public void close() throws IOException {
+		running = false;
+		executor.shutdown();
+		try {
+			executor.awaitTermination(POLL_MS * 10, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		for( Fifo<T>.FifoTail tail : tails ) {
+			tail.close();
+		}
+		final RuntimeException failure = this.failure;
+		if( failure != null ) {
+			throw new IOException("merging into fifo failed", failure);
+		}
+	}
+}
@@ -0,0 +1,188 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * The counters of one end of a fifo. The head counts the messages and
+ * batches it appends, the lag of a bounded head and the latency of each add.
+ * A tail counts the messages it hands to the application, samples how full
+ * its ring is at the start of each batch and records its cursor position
+ * and the latency from the head stamping a batch to the application
+ * receiving each of its messages. A pool tail records on its reader thread
+ * so its latency is to the hand off to the workers. The stamp is wall clock
+ * time so a tail in another process, or after a restart, measures against
+ * the same origin. Within one process the latency is as precise as nanoTime
+ * while between processes it is only as good as the sync of their clocks
+ * and a tail whose clock is behind the head's records zero.
+ *
+ * The head's counters and those of a consumer group's tail are kept in a
+ * small memory mapped file beside the cursors so any process may open the
+ * same file and read them while the fifo runs, at worst slightly stale.
+ * Recording is a put into the buffer with no allocation and only the
+ * owning thread records. A tail without a group keeps its counters on the
+ * heap.
+ *
+ * @author simbo
+ */
+public class FifoStats {
+
+	private static final int MESSAGES = 0, BATCHES = 8, OCCUPANCY = 16, LAG = 24,
+			SEGMENT = 32, INDEX = 40, ORDINAL = 48, LATENCY = 56;
+
+	static final int SIZE = LATENCY + LatencyHistogram.SIZE;
+
+	/**
+	 * The wall clock in nanoseconds when this class was loaded and the
+	 * nanoTime at that moment which {@link #wallClockNanos()} counts from.
+	 */
+	private static final long EPOCH_NANOS = System.currentTimeMillis() * 1000000L;
+
+	private static final long NANO_ORIGIN = System.nanoTime();
+
+	private final ByteBuffer buffer;
+
+	private final LatencyHistogram latency;
+
+	/**
+	 * Counters on the heap.
+	 */
+	public FifoStats() {
+		this(ByteBuffer.allocate(SIZE));
+	}
+
+	/**
+	 * Maps the counters of the file which may be shared with the process
+	 * recording them.
+	 */
+	public FifoStats(File file) throws IOException {
+		this(map(file));
+	}
+
+	private FifoStats(ByteBuffer buffer) {
+		this.buffer = buffer;
+		buffer.position(LATENCY);
+		latency = new LatencyHistogram(buffer.slice());
+		buffer.position(0);
+	}
+
+	private static ByteBuffer map(File file) throws IOException {
+		final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			return raf.getChannel().map(MapMode.READ_WRITE, 0, SIZE);
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * @return how many messages have been added or consumed
+	 */
+	public long messages() {
+		return buffer.getLong(MESSAGES);
+	}
+
+	/**
+	 * @return how many batch excerpts the head has appended
+	 */
+	public long batches() {
+		return buffer.getLong(BATCHES);
+	}
+
+	/**
+	 * @return how many messages were in a tail's ring waiting to be
+	 * consumed when it last started reading a batch
+	 */
+	public long ringOccupancy() {
+		return buffer.getLong(OCCUPANCY);
+	}
+
+	/**
+	 * @return how far the slowest consumer group of a bounded head was
+	 * behind when the head last looked
+	 */
+	public long lag() {
+		return buffer.getLong(LAG);
+	}
+
+	/**
+	 * @return the segment of the last message a tail committed to its cursor
+	 */
+	public int segment() {
+		return (int) buffer.getLong(SEGMENT);
+	}
+
+	/**
+	 * @return the excerpt index of the last message a tail committed
+	 */
+	public long index() {
+		return buffer.getLong(INDEX);
+	}
+
+	/**
+	 * @return the ordinal within its batch of the last message a tail committed
+	 */
+	public int ordinal() {
+		return (int) buffer.getLong(ORDINAL);
+	}
+
+	/**
+	 * @return the add latency of a head or the end to end latency of a tail
+	 * in nanoseconds
+	 */
+	public LatencyHistogram latency() {
+		return latency;
+	}
+
+	void added(int messages) {
+		buffer.putLong(MESSAGES, buffer.getLong(MESSAGES) + messages);
+		buffer.putLong(BATCHES, buffer.getLong(BATCHES) + 1);
+	}
+
+	void consumed(long stamp) {
+		buffer.putLong(MESSAGES, buffer.getLong(MESSAGES) + 1);
+		latency.record(Math.max(0, wallClockNanos() - stamp));
+	}
+
+	/**
+	 * @return nanoseconds since the epoch built on currentTimeMillis when
+	 * this class was loaded plus the nanoTime which has elapsed since, so it
+	 * has an origin which every process shares unlike nanoTime
+	 */
+	static long wallClockNanos() {
+		return EPOCH_NANOS + (System.nanoTime() - NANO_ORIGIN);
+	}
+
+	void occupancy(long occupancy) {
+		buffer.putLong(OCCUPANCY, occupancy);
+	}
+
+	/**
+	 * Zeroes the counters when their owner starts.
+	 */
+	void reset() {
+		for( int offset = 0; offset < LATENCY; offset += 8 ) {
+			buffer.putLong(offset, 0);
+		}
+		latency.reset();
+	}
+
+	void lag(long lag) {
+		buffer.putLong(LAG, lag);
+	}
+
+	void committed(int segment, long index, int ordinal) {
+		buffer.putLong(SEGMENT, segment);
+		buffer.putLong(INDEX, index);
+		buffer.putLong(ORDINAL, ordinal);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("messages=%,d batches=%,d ring=%,d lag=%,d cursor=%d:%d:%d latency %s",
+				messages(), batches(), ringOccupancy(), lag(), segment(), index(), ordinal(), latency);
+	}
+}
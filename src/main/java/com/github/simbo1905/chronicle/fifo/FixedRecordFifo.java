@@ -0,0 +1,297 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import java.io.IOException;
+import java.nio.channels.FileLock;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.higherfrequencytrading.chronicle.Chronicle;
+import com.higherfrequencytrading.chronicle.Excerpt;
+
+/**
+ * A {@link Fifo} of records which are all the same number of bytes, such as
+ * a small struct encoded with {@link UnsafeMemory}. The journal has the same
+ * batches as any fifo so a generic {@link Fifo.FifoTail} can still read a
+ * record as a byte array. The {@link RecordHead} copies a record from any
+ * offset of the caller's array straight into the excerpt and the
+ * {@link RecordTail} copies it straight into one flat byte array ring, so
+ * neither end allocates per record.
+ *
+ * @author simbo
+ */
+public class FixedRecordFifo extends Fifo<byte[]> {
+
+	protected final int recordSize;
+
+	public FixedRecordFifo(String name, Chronicle chronicle, int recordSize, int bufferSize) {
+		this(name, chronicle, recordSize, bufferSize, Integrity.NONE);
+	}
+
+	public FixedRecordFifo(String name, Chronicle chronicle, int recordSize, int bufferSize, Integrity integrity) {
+		super(name, chronicle, byte[].class, recordSize, bufferSize, marshaller(recordSize), integrity);
+		this.recordSize = recordSize;
+	}
+
+	public FixedRecordFifo(String name, Segments segments, RollPolicy rollPolicy, int recordSize, int bufferSize) {
+		super(name, segments, rollPolicy, byte[].class, recordSize, bufferSize, marshaller(recordSize));
+		this.recordSize = recordSize;
+	}
+
+	static Marshaller<byte[]> marshaller(final int recordSize) {
+		if( recordSize <= 0 ) {
+			throw new IllegalArgumentException("recordSize must be positive: " + recordSize);
+		}
+		return new Marshaller<byte[]>() {
+			@Override
+			public void write(Excerpt excerpt, byte[] record) {
+				if( record.length != recordSize ) {
+					throw new IllegalArgumentException(String.format("record of %d bytes is not %d bytes", record.length, recordSize));
+				}
+				excerpt.write(record);
+			}
+
+			@Override
+			public byte[] read(Excerpt excerpt, byte[] reuse) {
+				final byte[] record = (reuse != null && reuse.length == recordSize) ? reuse : new byte[recordSize];
+				excerpt.readFully(record);
+				return record;
+			}
+		};
+	}
+
+	public int recordSize() {
+		return recordSize;
+	}
+
+	/**
+	 * A head which also appends a record from an offset of a larger array.
+	 */
+	public class RecordHead extends FifoHead {
+
+		public RecordHead(FileLock fileLock) throws IOException {
+			super(fileLock);
+		}
+
+		public RecordHead(FileLock fileLock, Durability durability) throws IOException {
+			super(fileLock, durability);
+		}
+
+		public RecordHead(FileLock fileLock, Durability durability, Capacity capacity) throws IOException {
+			super(fileLock, durability, capacity);
+		}
+
+		/**
+		 * Appends the record size bytes at the offset.
+		 *
+		 * @see FifoHead#add(Object)
+		 */
+		public void add(byte[] records, int offset) {
+			final long started = System.nanoTime();
+			checkWritable();
+			reserve(1);
+			append(records, offset);
+			addLatency().record(System.nanoTime() - started);
+		}
+
+		/**
+		 * @see FifoHead#offer(Object)
+		 */
+		public boolean offer(byte[] records, int offset) {
+			final long started = System.nanoTime();
+			checkWritable();
+			if( !hasRoom(1) ) {
+				return false;
+			}
+			append(records, offset);
+			addLatency().record(System.nanoTime() - started);
+			return true;
+		}
+
+		/**
+		 * @see FifoHead#offer(Object, long, TimeUnit)
+		 */
+		public boolean offer(byte[] records, int offset, long timeout, TimeUnit unit) throws InterruptedException {
+			final long started = System.nanoTime();
+			checkWritable();
+			final long deadline = started + unit.toNanos(timeout);
+			while( !hasRoom(1) ) {
+				if( System.nanoTime() - deadline >= 0 ) {
+					return false;
+				}
+				if( Thread.interrupted() ) {
+					throw new InterruptedException();
+				}
+				LockSupport.parkNanos(FULL_PARK_NANOS);
+			}
+			append(records, offset);
+			addLatency().record(System.nanoTime() - started);
+			return true;
+		}
+
+		private void append(byte[] records, int offset) {
+			final Excerpt excerpt = beginBatch(1);
+			excerpt.writeInt(recordSize);
+			excerpt.write(records, offset, recordSize);
+			endBatch(excerpt, 1);
+		}
+
+		/**
+		 * Appends the count of records laid end to end from the offset
+		 * packing as many as will fit into each excerpt.
+		 *
+		 * @see FifoHead#addAll(java.util.Collection)
+		 */
+		public void addAll(byte[] records, int offset, int count) {
+			final long started = System.nanoTime();
+			checkWritable();
+			reserve(count);
+			final int maxBatch = Math.max(1, MAX_BATCH_BYTES / (recordSize + LENGTH_SIZE));
+			int next = offset;
+			int remaining = count;
+			while( remaining > 0 ) {
+				final int batch = Math.min(remaining, maxBatch);
+				final Excerpt excerpt = beginBatch(batch);
+				for( int index = 0; index < batch; index++ ) {
+					excerpt.writeInt(recordSize);
+					excerpt.write(records, next, recordSize);
+					next += recordSize;
+				}
+				endBatch(excerpt, batch);
+				remaining -= batch;
+			}
+			addLatency().record(System.nanoTime() - started);
+		}
+	}
+
+	/**
+	 * A tail whose ring is one byte array holding a record per slot. A
+	 * polled tail copies each record out with {@link #take(byte[], int)} or
+	 * {@link #poll(byte[], int)}.
+	 */
+	public class RecordTail extends PrimitiveTail {
+
+		private final byte[] records;
+
+		private final RecordHandler handler;
+
+		public RecordTail(WaitPolicy waitPolicy, FifoCursor cursor) throws IOException {
+			this(waitPolicy, cursor, null);
+		}
+
+		/**
+		 * A tail which hands every record to the handler in place in the
+		 * ring on its own thread, or a polled tail if the handler is null.
+		 */
+		public RecordTail(WaitPolicy waitPolicy, FifoCursor cursor, RecordHandler handler) throws IOException {
+			super(waitPolicy, cursor, handler != null);
+			if( (long) buffersize * recordSize > Integer.MAX_VALUE ) {
+				throw new IllegalArgumentException(String.format("a ring of %d records of %d bytes is too large", buffersize, recordSize));
+			}
+			this.records = new byte[buffersize * recordSize];
+			this.handler = handler;
+		}
+
+		@Override
+		void store(Excerpt excerpt, int slot) {
+			excerpt.readFully(records, slot * recordSize, recordSize);
+		}
+
+		@Override
+		void deliver(int slot, long sequence, boolean endOfBatch) throws Exception {
+			handler.onMessage(records, slot * recordSize, sequence, endOfBatch);
+		}
+
+		/**
+		 * Blocks until the next record is available and copies it to the
+		 * offset.
+		 */
+		public void take(byte[] into, int offset) throws InterruptedException {
+			final long sequence = await();
+			System.arraycopy(records, slot(sequence) * recordSize, into, offset, recordSize);
+			release(sequence);
+		}
+
+		/**
+		 * Copies the next record to the offset if one is available.
+		 *
+		 * @return false if no record was available
+		 */
+		public boolean poll(byte[] into, int offset) {
+			final long next = next();
+			if( available() < next ) {
+				return false;
+			}
+			System.arraycopy(records, slot(next) * recordSize, into, offset, recordSize);
+			release(next);
+			return true;
+		}
+
+		/**
+		 * Waits up to the timeout for the next record.
+		 *
+		 * @return false if no record arrived in time
+		 */
+		public boolean poll(byte[] into, int offset, long timeout, TimeUnit unit) throws InterruptedException {
+			if( await(timeout, unit) < next() ) {
+				return false;
+			}
+			return poll(into, offset);
+		}
+	}
+
+	@Override
+	public RecordHead head() throws IOException, IllegalAccessException {
+		return new RecordHead(obtainFileLock(name()));
+	}
+
+	@Override
+	public RecordHead head(Durability durability) throws IOException, IllegalAccessException {
+		return new RecordHead(obtainFileLock(name()), durability);
+	}
+
+	@Override
+	public RecordHead head(Capacity capacity) throws IOException, IllegalAccessException {
+		return head(Durability.ASYNC, capacity);
+	}
+
+	@Override
+	public RecordHead head(Durability durability, Capacity capacity) throws IOException, IllegalAccessException {
+		return new RecordHead(obtainFileLock(name()), durability, capacity);
+	}
+
+	public RecordTail recordTail() throws IOException, IllegalAccessException {
+		return recordTail(WaitPolicy.PARK);
+	}
+
+	public RecordTail recordTail(WaitPolicy waitPolicy) throws IOException, IllegalAccessException {
+		return new RecordTail(waitPolicy, null);
+	}
+
+	public RecordTail recordTail(RecordHandler handler) throws IOException, IllegalAccessException {
+		return recordTail(WaitPolicy.PARK, handler);
+	}
+
+	public RecordTail recordTail(WaitPolicy waitPolicy, RecordHandler handler) throws IOException, IllegalAccessException {
+		return new RecordTail(waitPolicy, null, handler);
+	}
+
+	/**
+	 * A tail for the named consumer group which resumes from where the group
+	 * last left off.
+	 */
+	public RecordTail recordTail(String group) throws IOException, IllegalAccessException {
+		return recordTail(group, WaitPolicy.PARK);
+	}
+
+	public RecordTail recordTail(String group, WaitPolicy waitPolicy) throws IOException, IllegalAccessException {
+		return new RecordTail(waitPolicy, cursor(group));
+	}
+
+	public RecordTail recordTail(String group, RecordHandler handler) throws IOException, IllegalAccessException {
+		return recordTail(group, WaitPolicy.PARK, handler);
+	}
+
+	public RecordTail recordTail(String group, WaitPolicy waitPolicy, RecordHandler handler) throws IOException, IllegalAccessException {
+		return new RecordTail(waitPolicy, cursor(group), handler);
+	}
+}
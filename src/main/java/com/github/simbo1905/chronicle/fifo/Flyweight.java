@@ -0,0 +1,75 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import com.higherfrequencytrading.chronicle.Excerpt;
+
+/**
+ * A reusable view over a message which reads its fields in place from the
+ * memory mapped excerpt rather than copying them into a heap object.
+ * Subclasses add typed getters on top of the protected offset reads, for
+ * example using the offsets reported by {@link PojoMarshaller#offsetOf(String)}.
+ *
+ * A view is only bound while its {@link FlyweightHandler} is being called;
+ * once the excerpt is finished any read throws an {@link IllegalStateException}
+ * so a view which has leaked out of the callback cannot see another message.
+ *
+ * @author simbo
+ */
+public abstract class Flyweight {
+
+	private Excerpt excerpt;
+
+	private int base;
+
+	final void bind(Excerpt excerpt) {
+		this.excerpt = excerpt;
+		this.base = excerpt.position();
+	}
+
+	final void unbind() {
+		this.excerpt = null;
+	}
+
+	public final boolean isBound() {
+		return excerpt != null;
+	}
+
+	private Excerpt excerpt() {
+		final Excerpt bound = excerpt;
+		if( bound == null ) {
+			throw new IllegalStateException("flyweight is not bound to an excerpt");
+		}
+		return bound;
+	}
+
+	protected final boolean getBoolean(int offset) {
+		return excerpt().readByte(base + offset) != 0;
+	}
+
+	protected final byte getByte(int offset) {
+		return excerpt().readByte(base + offset);
+	}
+
+	protected final char getChar(int offset) {
+		return excerpt().readChar(base + offset);
+	}
+
+	protected final short getShort(int offset) {
+		return excerpt().readShort(base + offset);
+	}
+
+	protected final int getInt(int offset) {
+		return excerpt().readInt(base + offset);
+	}
+
+	protected final float getFloat(int offset) {
+		return excerpt().readFloat(base + offset);
+	}
+
+	protected final long getLong(int offset) {
+		return excerpt().readLong(base + offset);
+	}
+
+	protected final double getDouble(int offset) {
+		return excerpt().readDouble(base + offset);
+	}
+}
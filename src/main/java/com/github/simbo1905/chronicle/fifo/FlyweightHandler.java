@@ -0,0 +1,17 @@
+package com.github.simbo1905.chronicle.fifo;
+
+/**
+ * Consumes a {@link Fifo} through a reusable {@link Flyweight} bound to each
+ * message in turn. Called on the chronicle reader thread while the excerpt
+ * is still open, so nothing is copied and nothing is allocated.
+ *
+ * @author simbo
+ */
+public interface FlyweightHandler<V extends Flyweight> {
+
+	/**
+	 * @param view the flyweight bound to the current message which must not
+	 * be used after this method returns
+	 */
+	void onMessage(V view);
+}
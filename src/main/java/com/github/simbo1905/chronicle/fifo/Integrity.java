@@ -0,0 +1,27 @@
+package com.github.simbo1905.chronicle.fifo;
+
+/**
+ * Whether a {@link Fifo} checksums its batches and when the checksums are 
+ * checked. A batch whose checksum does not match is skipped and counted as 
+ * corrupt in the same way as a torn one. 
+ * 
+ * @author simbo
+ */
+public enum Integrity {
+	
+	/**
+	 * Only the commit marker guards each batch. 
+	 */
+	NONE,
+	
+	/**
+	 * The head checksums each batch and tails trust it. Corruption is found 
+	 * by a {@link Fifo.Scrubber} in the background. 
+	 */
+	CHECKSUM,
+	
+	/**
+	 * The head checksums each batch and tails check it before reading it. 
+	 */
+	VERIFY
+}
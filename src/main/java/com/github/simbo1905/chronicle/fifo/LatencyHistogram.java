@@ -0,0 +1,128 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A fixed size log-linear histogram in the style of HdrHistogram. Values 
+ * below 64 are counted exactly and above that each power of two is split 
+ * into 32 buckets, so any value is reported to within about 3% while the 
+ * whole range of a long fits in under two thousand counters. Recording is 
+ * a buffer increment with no allocation. The counters may live in a slice 
+ * of a memory mapped {@link FifoStats} file so that another process can 
+ * read the percentiles. 
+ * 
+ * Only one thread may record. Other threads may read at any time and see 
+ * counts which are at worst slightly stale. 
+ * 
+ * @author simbo
+ */
+public final class LatencyHistogram {
+	
+	private static final int SUB_BITS = 5;
+	
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	
+	private static final int BUCKETS = (63 - SUB_BITS) * SUB_BUCKETS + SUB_BUCKETS;
+	
+	private static final int COUNT = 0, MAX = 8, COUNTS = 16;
+	
+	/**
+	 * The bytes of buffer a histogram takes. 
+	 */
+	static final int SIZE = COUNTS + BUCKETS * 8;
+	
+	private final ByteBuffer buffer;
+	
+	public LatencyHistogram() {
+		this(ByteBuffer.allocate(SIZE));
+	}
+	
+	/**
+	 * @param buffer holds the counters from its position zero
+	 */
+	LatencyHistogram(ByteBuffer buffer) {
+		this.buffer = buffer;
+	}
+	
+	/**
+	 * @param value a non-negative value such as a latency in nanoseconds
+	 */
+	public void record(long value) {
+		final int offset = COUNTS + index(value) * 8;
+		buffer.putLong(offset, buffer.getLong(offset) + 1);
+		buffer.putLong(COUNT, buffer.getLong(COUNT) + 1);
+		if( value > buffer.getLong(MAX) ) {
+			buffer.putLong(MAX, value);
+		}
+	}
+	
+	public long count() {
+		return buffer.getLong(COUNT);
+	}
+	
+	public long max() {
+		return buffer.getLong(MAX);
+	}
+	
+	/**
+	 * @param percentile from 0 to 100 such as 99.9
+	 * @return the highest value which is equivalent to the value at the 
+	 * percentile or 0 if nothing has been recorded
+	 */
+	public long percentile(double percentile) {
+		final long total = count();
+		final long max = max();
+		if( total == 0 ) {
+			return 0;
+		}
+		final long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+		long seen = 0;
+		for( int index = 0; index < BUCKETS; index++ ) {
+			seen += buffer.getLong(COUNTS + index * 8);
+			if( seen >= rank ) {
+				return Math.min(highest(index), max);
+			}
+		}
+		return max;
+	}
+	
+	public void reset() {
+		for( int offset = 0; offset < SIZE; offset += 8 ) {
+			buffer.putLong(offset, 0);
+		}
+	}
+	
+	/**
+	 * @return the percentiles which latency reports quote
+	 */
+	@Override
+	public String toString() {
+		return String.format("count=%,d p50=%,d p99=%,d p999=%,d max=%,d", 
+				count(), percentile(50), percentile(99), percentile(99.9), max());
+	}
+	
+	static int index(long value) {
+		if( value < 2 * SUB_BUCKETS ) {
+			return (int) Math.max(0, value);
+		}
+		final int exponent = 63 - Long.numberOfLeadingZeros(value);
+		final int shift = exponent - SUB_BITS;
+		return shift * SUB_BUCKETS + (int) (value >>> shift);
+	}
+	
+	static long lowest(int index) {
+		if( index < 2 * SUB_BUCKETS ) {
+			return index;
+		}
+		final int shift = index / SUB_BUCKETS - 1;
+		return ((long) (index % SUB_BUCKETS + SUB_BUCKETS)) << shift;
+	}
+	
+	static long highest(int index) {
+		if( index < 2 * SUB_BUCKETS ) {
+			return index;
+		}
+		final int shift = index / SUB_BUCKETS - 1;
+		return lowest(index) + (1L << shift) - 1;
+	}
+}
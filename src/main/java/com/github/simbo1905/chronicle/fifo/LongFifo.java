@@ -0,0 +1,276 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import java.io.IOException;
+import java.nio.channels.FileLock;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.higherfrequencytrading.chronicle.Chronicle;
+import com.higherfrequencytrading.chronicle.Excerpt;
+
+/**
+ * A {@link Fifo} of raw longs such as sequence numbers or ids. The journal
+ * has the same batches as any fifo, each message being an int length of 8
+ * and the long, so a generic {@link Fifo.FifoTail} can still read it as
+ * {@link Long}. The {@link LongHead} writes a long straight into the excerpt
+ * and the {@link LongTail} reads it straight into a long array ring, so
+ * neither end boxes or allocates per message.
+ *
+ * @author simbo
+ */
+public class LongFifo extends Fifo<Long> {
+
+	static final int SIZE = 8;
+
+	static final Marshaller<Long> MARSHALLER = new Marshaller<Long>() {
+		@Override
+		public void write(Excerpt excerpt, Long value) {
+			excerpt.writeLong(value);
+		}
+
+		@Override
+		public Long read(Excerpt excerpt, Long reuse) {
+			return excerpt.readLong();
+		}
+	};
+
+	public LongFifo(String name, Chronicle chronicle, int bufferSize) {
+		this(name, chronicle, bufferSize, Integrity.NONE);
+	}
+
+	public LongFifo(String name, Chronicle chronicle, int bufferSize, Integrity integrity) {
+		super(name, chronicle, Long.class, SIZE, bufferSize, MARSHALLER, integrity);
+	}
+
+	public LongFifo(String name, Segments segments, RollPolicy rollPolicy, int bufferSize) {
+		super(name, segments, rollPolicy, Long.class, SIZE, bufferSize, MARSHALLER);
+	}
+
+	/**
+	 * A head which also appends primitive longs.
+	 */
+	public class LongHead extends FifoHead {
+
+		public LongHead(FileLock fileLock) throws IOException {
+			super(fileLock);
+		}
+
+		public LongHead(FileLock fileLock, Durability durability) throws IOException {
+			super(fileLock, durability);
+		}
+
+		public LongHead(FileLock fileLock, Durability durability, Capacity capacity) throws IOException {
+			super(fileLock, durability, capacity);
+		}
+
+		/**
+		 * @see FifoHead#add(Object)
+		 */
+		public void add(long value) {
+			final long started = System.nanoTime();
+			checkWritable();
+			reserve(1);
+			append(value);
+			addLatency().record(System.nanoTime() - started);
+		}
+
+		/**
+		 * @see FifoHead#offer(Object)
+		 */
+		public boolean offer(long value) {
+			final long started = System.nanoTime();
+			checkWritable();
+			if( !hasRoom(1) ) {
+				return false;
+			}
+			append(value);
+			addLatency().record(System.nanoTime() - started);
+			return true;
+		}
+
+		/**
+		 * @see FifoHead#offer(Object, long, TimeUnit)
+		 */
+		public boolean offer(long value, long timeout, TimeUnit unit) throws InterruptedException {
+			final long started = System.nanoTime();
+			checkWritable();
+			final long deadline = started + unit.toNanos(timeout);
+			while( !hasRoom(1) ) {
+				if( System.nanoTime() - deadline >= 0 ) {
+					return false;
+				}
+				if( Thread.interrupted() ) {
+					throw new InterruptedException();
+				}
+				LockSupport.parkNanos(FULL_PARK_NANOS);
+			}
+			append(value);
+			addLatency().record(System.nanoTime() - started);
+			return true;
+		}
+
+		private void append(long value) {
+			final Excerpt excerpt = beginBatch(1);
+			excerpt.writeInt(SIZE);
+			excerpt.writeLong(value);
+			endBatch(excerpt, 1);
+		}
+
+		/**
+		 * Appends the values packing as many as will fit into each excerpt.
+		 *
+		 * @see FifoHead#addAll(java.util.Collection)
+		 */
+		public void addAll(long[] values, int offset, int length) {
+			final long started = System.nanoTime();
+			checkWritable();
+			reserve(length);
+			final int maxBatch = MAX_BATCH_BYTES / (SIZE + LENGTH_SIZE);
+			int next = offset;
+			final int end = offset + length;
+			while( next < end ) {
+				final int count = Math.min(end - next, maxBatch);
+				final Excerpt excerpt = beginBatch(count);
+				for( int index = 0; index < count; index++ ) {
+					excerpt.writeInt(SIZE);
+					excerpt.writeLong(values[next++]);
+				}
+				endBatch(excerpt, count);
+			}
+			addLatency().record(System.nanoTime() - started);
+		}
+	}
+
+	/**
+	 * A tail whose ring is a long array. A polled tail is drained with
+	 * {@link #take()} or in bulk with {@link #poll(long[])}.
+	 */
+	public class LongTail extends PrimitiveTail {
+
+		private final long[] values;
+
+		private final LongHandler handler;
+
+		public LongTail(WaitPolicy waitPolicy, FifoCursor cursor) throws IOException {
+			super(waitPolicy, cursor, false);
+			this.values = new long[buffersize];
+			this.handler = null;
+		}
+
+		/**
+		 * A tail which pushes every value to the handler on its own thread.
+		 */
+		public LongTail(WaitPolicy waitPolicy, FifoCursor cursor, LongHandler handler) throws IOException {
+			super(waitPolicy, cursor, true);
+			this.values = new long[buffersize];
+			this.handler = handler;
+		}
+
+		@Override
+		void store(Excerpt excerpt, int slot) {
+			values[slot] = excerpt.readLong();
+		}
+
+		@Override
+		void deliver(int slot, long sequence, boolean endOfBatch) throws Exception {
+			handler.onMessage(values[slot], sequence, endOfBatch);
+		}
+
+		/**
+		 * Blocks until the next value is available and returns it.
+		 */
+		public long take() throws InterruptedException {
+			final long sequence = await();
+			final long value = values[slot(sequence)];
+			release(sequence);
+			return value;
+		}
+
+		/**
+		 * Removes as many values as are available and fit without waiting.
+		 *
+		 * @return how many values were copied into the start of the array
+		 */
+		public int poll(long[] into) {
+			final long next = next();
+			final int count = (int) Math.min(available() - next + 1, into.length);
+			if( count <= 0 ) {
+				return 0;
+			}
+			for( int index = 0; index < count; index++ ) {
+				into[index] = values[slot(next + index)];
+			}
+			release(next + count - 1);
+			return count;
+		}
+
+		/**
+		 * Waits up to the timeout for a value and then removes as many as
+		 * are available and fit.
+		 *
+		 * @return how many values were copied into the start of the array
+		 */
+		public int poll(long[] into, long timeout, TimeUnit unit) throws InterruptedException {
+			if( await(timeout, unit) < next() ) {
+				return 0;
+			}
+			return poll(into);
+		}
+	}
+
+	@Override
+	public LongHead head() throws IOException, IllegalAccessException {
+		return new LongHead(obtainFileLock(name()));
+	}
+
+	@Override
+	public LongHead head(Durability durability) throws IOException, IllegalAccessException {
+		return new LongHead(obtainFileLock(name()), durability);
+	}
+
+	@Override
+	public LongHead head(Capacity capacity) throws IOException, IllegalAccessException {
+		return head(Durability.ASYNC, capacity);
+	}
+
+	@Override
+	public LongHead head(Durability durability, Capacity capacity) throws IOException, IllegalAccessException {
+		return new LongHead(obtainFileLock(name()), durability, capacity);
+	}
+
+	public LongTail longTail() throws IOException, IllegalAccessException {
+		return longTail(WaitPolicy.PARK);
+	}
+
+	public LongTail longTail(WaitPolicy waitPolicy) throws IOException, IllegalAccessException {
+		return new LongTail(waitPolicy, null);
+	}
+
+	public LongTail longTail(LongHandler handler) throws IOException, IllegalAccessException {
+		return longTail(WaitPolicy.PARK, handler);
+	}
+
+	public LongTail longTail(WaitPolicy waitPolicy, LongHandler handler) throws IOException, IllegalAccessException {
+		return new LongTail(waitPolicy, null, handler);
+	}
+
+	/**
+	 * A tail for the named consumer group which resumes from where the group
+	 * last left off.
+	 */
+	public LongTail longTail(String group) throws IOException, IllegalAccessException {
+		return longTail(group, WaitPolicy.PARK);
+	}
+
+	public LongTail longTail(String group, WaitPolicy waitPolicy) throws IOException, IllegalAccessException {
+		return new LongTail(waitPolicy, cursor(group));
+	}
+
+	public LongTail longTail(String group, LongHandler handler) throws IOException, IllegalAccessException {
+		return longTail(group, WaitPolicy.PARK, handler);
+	}
+
+	public LongTail longTail(String group, WaitPolicy waitPolicy, LongHandler handler) throws IOException, IllegalAccessException {
+		return new LongTail(waitPolicy, cursor(group), handler);
+	}
+}
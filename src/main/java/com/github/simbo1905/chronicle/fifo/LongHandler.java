@@ -0,0 +1,19 @@
+package com.github.simbo1905.chronicle.fifo;
+
+/**
+ * Consumes a {@link LongFifo} on the consumer thread of a 
+ * {@link LongFifo.LongTail} without boxing. 
+ * 
+ * @author simbo
+ */
+public interface LongHandler {
+	
+	/**
+	 * Called for every message in fifo order. 
+	 * 
+	 * @param value the message
+	 * @param sequence the ring sequence of the message
+	 * @param endOfBatch true if this is the last message currently available
+	 */
+	void onMessage(long value, long sequence, boolean endOfBatch) throws Exception;
+}
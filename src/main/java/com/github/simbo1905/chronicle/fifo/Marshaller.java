@@ -0,0 +1,25 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import com.higherfrequencytrading.chronicle.Excerpt;
+
+/**
+ * Writes and reads the messages of a {@link Fifo} directly to and from the
+ * chronicle {@link Excerpt}.
+ *
+ * @author simbo
+ */
+public interface Marshaller<T> {
+
+	/**
+	 * Writes the message at the current position of the excerpt.
+	 */
+	void write(Excerpt excerpt, T t);
+
+	/**
+	 * Reads a message from the current position of the excerpt.
+	 *
+	 * @param reuse a previously read message which may be overwritten and
+	 * returned to avoid allocation, or null if a new message is required
+	 */
+	T read(Excerpt excerpt, T reuse);
+}
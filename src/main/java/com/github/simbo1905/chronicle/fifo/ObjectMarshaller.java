@@ -0,0 +1,23 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import com.higherfrequencytrading.chronicle.Excerpt;
+
+/**
+ * The default {@link Marshaller} which uses the chronicle's generic object
+ * serialisation. It works for any type but allocates on every read and write.
+ *
+ * @author simbo
+ */
+public class ObjectMarshaller<T> implements Marshaller<T> {
+
+	@Override
+	public void write(Excerpt excerpt, T t) {
+		excerpt.writeObject(t);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public T read(Excerpt excerpt, T reuse) {
+		return (T) excerpt.readObject();
+	}
+}
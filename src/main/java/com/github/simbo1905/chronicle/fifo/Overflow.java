@@ -0,0 +1,23 @@
+package com.github.simbo1905.chronicle.fifo;
+
+/**
+ * What a bounded {@link Fifo.FifoHead} does when adding would put the 
+ * slowest consumer group more than the {@link Capacity} behind. 
+ * 
+ * @author simbo
+ */
+public enum Overflow {
+	/**
+	 * Waits for the slowest group to catch up. 
+	 */
+	BLOCK,
+	/**
+	 * Throws an {@link IllegalStateException} and appends nothing. 
+	 */
+	FAIL,
+	/**
+	 * Appends anyway and has the groups skip their oldest unread messages 
+	 * so that none of them is ever more than the capacity behind. 
+	 */
+	DROP_OLDEST
+}
@@ -0,0 +1,262 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.LockSupport;
+
+import com.higherfrequencytrading.chronicle.Chronicle;
+import com.higherfrequencytrading.chronicle.Excerpt;
+import com.higherfrequencytrading.chronicle.datamodel.DataStore;
+import com.higherfrequencytrading.chronicle.datamodel.Wrapper;
+import com.lmax.disruptor.AlertException;
+import com.lmax.disruptor.InsufficientCapacityException;
+import com.lmax.disruptor.Sequence;
+import com.lmax.disruptor.SequenceBarrier;
+import com.lmax.disruptor.Sequencer;
+import com.lmax.disruptor.SingleThreadedClaimStrategy;
+
+/**
+ * Replays the wrappers of a read only {@link DataStore} on a worker thread
+ * per wrapper rather than all of them on the data store's reader thread, so
+ * catching up on a chronicle which carries many independent names uses a
+ * core per name.
+ *
+ * Each wrapper added here is registered with the data store under its name
+ * in place of itself by a lane. The reader thread only hands the index and
+ * position of each excerpt of that name to the lane through a ring of flat
+ * arrays claimed by a Disruptor {@link Sequencer}, parking while the ring
+ * is full. The lane's worker reads the excerpt through an excerpt of its
+ * own and calls the wrapper, so the excerpts of one name are applied in
+ * chronicle order on one thread while there is no order between names.
+ * Listeners of a wrapper are called on its worker and so is notifyOff,
+ * which goes through the ring in order with the excerpts.
+ *
+ * A wrapper which throws fails its lane. The worker stops applying, the
+ * reader drops the excerpts of that name rather than wait on the full ring,
+ * and {@link #backlog()} and {@link #close()} throw the failure.
+ *
+ * The tails of a {@link Fifo} already read on their own threads so this is
+ * for the other wrappers such as a ListWrapper.
+ *
+ * @author simbo
+ */
+public class ParallelReplay implements Closeable {
+
+	private final DataStore dataStore;
+
+	private final Chronicle chronicle;
+
+	private final WaitPolicy waitPolicy;
+
+	private final int bufferSize;
+
+	private final List<Lane> lanes = new ArrayList<Lane>();
+
+	private ExecutorService executor;
+
+	private volatile boolean closed;
+
+	/**
+	 * @param dataStore a read only data store which has not been started
+	 * @param chronicle the chronicle which the data store reads
+	 * @param bufferSize the excerpts a lane may fall behind the reader, a
+	 * power of 2
+	 */
+	public ParallelReplay(DataStore dataStore, Chronicle chronicle, WaitPolicy waitPolicy, int bufferSize) {
+		if( Integer.bitCount(bufferSize) != 1 ) {
+			throw new IllegalArgumentException("bufferSize must be a power of 2: " + bufferSize);
+		}
+		this.dataStore = dataStore;
+		this.chronicle = chronicle;
+		this.waitPolicy = waitPolicy;
+		this.bufferSize = bufferSize;
+	}
+
+	/**
+	 * Replays the wrapper of the name on a worker of its own. Call after the
+	 * wrapper has registered itself with the data store and before start.
+	 */
+	public void add(String name, Wrapper wrapper) {
+		if( executor != null ) {
+			throw new IllegalStateException("already started");
+		}
+		final Lane lane = new Lane(name, wrapper);
+		lanes.add(lane);
+		dataStore.add(name, lane);
+	}
+
+	/**
+	 * Starts a worker per wrapper and then the data store.
+	 */
+	public void start() {
+		executor = Executors.newFixedThreadPool(Math.max(1, lanes.size()));
+		for( final Lane lane : lanes ) {
+			executor.execute(new Runnable() {
+				public void run() {
+					lane.consume();
+				}
+			});
+		}
+		dataStore.start();
+	}
+
+	/**
+	 * @return how many excerpts have been handed to the workers and not yet
+	 * applied
+	 * @throws IllegalStateException if a wrapper failed
+	 */
+	public long backlog() {
+		long backlog = 0;
+		for( Lane lane : lanes ) {
+			lane.checkFailure();
+			backlog += lane.backlog();
+		}
+		return backlog;
+	}
+
+	/**
+	 * @throws IllegalStateException if a wrapper failed
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		dataStore.close();
+		for( Lane lane : lanes ) {
+			lane.barrier.alert();
+		}
+		if( executor != null ) {
+			executor.shutdown();
+		}
+		for( Lane lane : lanes ) {
+			lane.checkFailure();
+		}
+	}
+
+	/**
+	 * Stands in for one wrapper on the data store.
+	 */
+	class Lane implements Wrapper {
+
+		/**
+		 * The index of a slot which carries a notifyOff toggle rather than
+		 * an excerpt. Its position is 1 to turn notifications off.
+		 */
+		static final long NOTIFY_OFF = -1;
+
+		private final String name;
+
+		private final Wrapper wrapper;
+
+		private final Sequencer sequencer;
+
+		private final SequenceBarrier barrier;
+
+		private final Sequence consumed;
+
+		private final int mask;
+
+		private final long[] indexes;
+
+		private final int[] positions;
+
+		private volatile RuntimeException failure;
+
+		Lane(String name, Wrapper wrapper) {
+			this.name = name;
+			this.wrapper = wrapper;
+			mask = bufferSize - 1;
+			indexes = new long[bufferSize];
+			positions = new int[bufferSize];
+			sequencer = new Sequencer(new SingleThreadedClaimStrategy(bufferSize), waitPolicy.newWaitStrategy());
+			consumed = new Sequence(Sequencer.INITIAL_CURSOR_VALUE);
+			sequencer.setGatingSequences(consumed);
+			barrier = sequencer.newBarrier();
+		}
+
+		@Override
+		public void onExcerpt(Excerpt excerpt) {
+			try {
+				publish(excerpt.index(), excerpt.position());
+			} finally {
+				excerpt.finish();
+			}
+		}
+
+		@Override
+		public void notifyOff(boolean notifyOff) {
+			publish(NOTIFY_OFF, notifyOff ? 1 : 0);
+		}
+
+		/**
+		 * Parks while the ring is full unless the lane has failed or the
+		 * replay is closed, in which case the entry is dropped.
+		 */
+		private void publish(long index, int position) {
+			long sequence;
+			while( true ) {
+				if( failure != null || closed ) {
+					return;
+				}
+				try {
+					sequence = sequencer.tryNext(1);
+					break;
+				} catch (InsufficientCapacityException e) {
+					LockSupport.parkNanos(Fifo.FULL_PARK_NANOS);
+				}
+			}
+			final int slot = (int) sequence & mask;
+			indexes[slot] = index;
+			positions[slot] = position;
+			sequencer.publish(sequence);
+		}
+
+		long backlog() {
+			return barrier.getCursor() - consumed.get();
+		}
+
+		void checkFailure() {
+			final RuntimeException failure = this.failure;
+			if( failure != null ) {
+				throw new IllegalStateException("replay of " + name + " failed", failure);
+			}
+		}
+
+		void consume() {
+			final Excerpt excerpt = chronicle.createExcerpt();
+			long next = consumed.get() + 1;
+			while( true ) {
+				final long available;
+				try {
+					available = barrier.waitFor(next);
+				} catch (AlertException e) {
+					return;
+				} catch (InterruptedException e) {
+					return;
+				}
+				try {
+					for( long sequence = next; sequence <= available; sequence++ ) {
+						final int slot = (int) sequence & mask;
+						final long index = indexes[slot];
+						if( index == NOTIFY_OFF ) {
+							wrapper.notifyOff(positions[slot] != 0);
+							continue;
+						}
+						if( !excerpt.index(index) ) {
+							throw new IllegalStateException(name + " could not read excerpt " + index);
+						}
+						excerpt.position(positions[slot]);
+						wrapper.onExcerpt(excerpt);
+					}
+				} catch (RuntimeException e) {
+					failure = e;
+					return;
+				}
+				consumed.set(available);
+				next = available + 1;
+			}
+		}
+	}
+}
@@ -0,0 +1,18 @@
+package com.github.simbo1905.chronicle.fifo;
+
+/**
+ * Assigns each message a key for a partitioned {@link Fifo.FifoTail}. Messages 
+ * with the same key are always handled by the same worker thread, in fifo 
+ * order, while messages with different keys are handled in parallel. 
+ * 
+ * @author simbo
+ */
+public interface Partitioner<T> {
+	
+	/**
+	 * Called once per message on the chronicle reader thread. 
+	 * 
+	 * @return the key of the message, any int including negatives
+	 */
+	int partition(T message);
+}
@@ -0,0 +1,313 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import sun.misc.Unsafe;
+
+import com.higherfrequencytrading.chronicle.Excerpt;
+
+/**
+ * A {@link Marshaller} for flat objects whose fields are all primitives or
+ * primitive arrays. The class is inspected once on construction and the
+ * fields are then copied straight between the object and the excerpt with
+ * {@link Unsafe}, so writing allocates nothing and reading allocates nothing
+ * when a previously read message is reused and its array lengths match.
+ *
+ * The layout is every primitive field in order of name within each class
+ * (superclass fields first) followed by every array field in the same
+ * order, each array being written as an int length and then its elements.
+ * Names rather than declaration order fix the layout as the order in which
+ * reflection returns fields is unspecified and may differ between the jvms
+ * which write and read a message. The primitives are therefore at fixed
+ * offsets from the start of the message, see {@link #offsetOf(String)}.
+ *
+ * @author simbo
+ */
+public class PojoMarshaller<T> implements Marshaller<T> {
+
+	private static final Unsafe unsafe;
+	static
+	{
+		try
+		{
+			Field field = Unsafe.class.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			unsafe = (Unsafe)field.get(null);
+		}
+		catch (Exception e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	static final int BOOLEAN = 0, BYTE = 1, CHAR = 2, SHORT = 3, INT = 4,
+			FLOAT = 5, LONG = 6, DOUBLE = 7;
+
+	private static final Class<?>[] PRIMITIVES = { boolean.class, byte.class,
+		char.class, short.class, int.class, float.class, long.class, double.class };
+
+	private static final int[] SIZES = { 1, 1, 2, 2, 4, 4, 8, 8 };
+
+	private final Class<T> clazz;
+
+	private final String[] names;
+
+	private final long[] offsets;
+
+	private final int[] kinds;
+
+	private final boolean[] arrays;
+
+	private final int fixedSize;
+
+	public PojoMarshaller(Class<T> clazz) {
+		this.clazz = clazz;
+		final List<Field> primitives = new ArrayList<Field>();
+		final List<Field> arrayFields = new ArrayList<Field>();
+		collectFields(clazz, primitives, arrayFields);
+		final int count = primitives.size() + arrayFields.size();
+		names = new String[count];
+		offsets = new long[count];
+		kinds = new int[count];
+		arrays = new boolean[count];
+		int size = 0;
+		for( int index = 0; index < count; index++ ) {
+			final boolean array = index >= primitives.size();
+			final Field field = array ? arrayFields.get(index - primitives.size()) : primitives.get(index);
+			names[index] = field.getName();
+			offsets[index] = unsafe.objectFieldOffset(field);
+			arrays[index] = array;
+			kinds[index] = kindOf(array ? field.getType().getComponentType() : field.getType());
+			if( !array ) {
+				size += SIZES[kinds[index]];
+			}
+		}
+		fixedSize = size;
+	}
+
+	private static final Comparator<Field> BY_NAME = new Comparator<Field>() {
+		@Override
+		public int compare(Field a, Field b) {
+			return a.getName().compareTo(b.getName());
+		}
+	};
+
+	private static void collectFields(Class<?> clazz, List<Field> primitives, List<Field> arrayFields) {
+		if( clazz == null || clazz == Object.class ) {
+			return;
+		}
+		collectFields(clazz.getSuperclass(), primitives, arrayFields);
+		final Field[] fields = clazz.getDeclaredFields();
+		Arrays.sort(fields, BY_NAME);
+		for( Field field : fields ) {
+			final int modifiers = field.getModifiers();
+			if( Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) ) {
+				continue;
+			}
+			final Class<?> type = field.getType();
+			if( type.isPrimitive() ) {
+				primitives.add(field);
+			} else if( type.isArray() && type.getComponentType().isPrimitive() ) {
+				arrayFields.add(field);
+			} else {
+				throw new IllegalArgumentException(String.format(
+						"field %s.%s of type %s is not a primitive or primitive array",
+						clazz.getName(), field.getName(), type.getName()));
+			}
+		}
+	}
+
+	private static int kindOf(Class<?> type) {
+		for( int kind = 0; kind < PRIMITIVES.length; kind++ ) {
+			if( PRIMITIVES[kind] == type ) {
+				return kind;
+			}
+		}
+		throw new IllegalArgumentException("unsupported type "+type);
+	}
+
+	/**
+	 * The number of bytes taken by the primitive fields.
+	 */
+	public int fixedSize() {
+		return fixedSize;
+	}
+
+	/**
+	 * The offset of a primitive field from the start of the message.
+	 */
+	public int offsetOf(String fieldName) {
+		int offset = 0;
+		for( int index = 0; index < names.length && !arrays[index]; index++ ) {
+			if( names[index].equals(fieldName) ) {
+				return offset;
+			}
+			offset += SIZES[kinds[index]];
+		}
+		throw new IllegalArgumentException(String.format(
+				"%s has no primitive field %s", clazz.getName(), fieldName));
+	}
+
+	@Override
+	public void write(Excerpt excerpt, T t) {
+		for( int index = 0; index < offsets.length; index++ ) {
+			final long offset = offsets[index];
+			if( arrays[index] ) {
+				writeArray(excerpt, kinds[index], unsafe.getObject(t, offset));
+				continue;
+			}
+			switch( kinds[index] ) {
+			case BOOLEAN: excerpt.writeBoolean(unsafe.getBoolean(t, offset)); break;
+			case BYTE: excerpt.writeByte(unsafe.getByte(t, offset)); break;
+			case CHAR: excerpt.writeChar(unsafe.getChar(t, offset)); break;
+			case SHORT: excerpt.writeShort(unsafe.getShort(t, offset)); break;
+			case INT: excerpt.writeInt(unsafe.getInt(t, offset)); break;
+			case FLOAT: excerpt.writeFloat(unsafe.getFloat(t, offset)); break;
+			case LONG: excerpt.writeLong(unsafe.getLong(t, offset)); break;
+			case DOUBLE: excerpt.writeDouble(unsafe.getDouble(t, offset)); break;
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public T read(Excerpt excerpt, T reuse) {
+		final T t;
+		try {
+			t = (reuse != null) ? reuse : (T) unsafe.allocateInstance(clazz);
+		} catch (InstantiationException e) {
+			throw new IllegalStateException("could not instantiate "+clazz.getName(), e);
+		}
+		for( int index = 0; index < offsets.length; index++ ) {
+			final long offset = offsets[index];
+			if( arrays[index] ) {
+				unsafe.putObject(t, offset, readArray(excerpt, kinds[index], unsafe.getObject(t, offset)));
+				continue;
+			}
+			switch( kinds[index] ) {
+			case BOOLEAN: unsafe.putBoolean(t, offset, excerpt.readBoolean()); break;
+			case BYTE: unsafe.putByte(t, offset, excerpt.readByte()); break;
+			case CHAR: unsafe.putChar(t, offset, excerpt.readChar()); break;
+			case SHORT: unsafe.putShort(t, offset, excerpt.readShort()); break;
+			case INT: unsafe.putInt(t, offset, excerpt.readInt()); break;
+			case FLOAT: unsafe.putFloat(t, offset, excerpt.readFloat()); break;
+			case LONG: unsafe.putLong(t, offset, excerpt.readLong()); break;
+			case DOUBLE: unsafe.putDouble(t, offset, excerpt.readDouble()); break;
+			}
+		}
+		return t;
+	}
+
+	private static void writeArray(Excerpt excerpt, int kind, Object array) {
+		if( array == null ) {
+			excerpt.writeInt(-1);
+			return;
+		}
+		switch( kind ) {
+		case BOOLEAN: {
+			final boolean[] values = (boolean[]) array;
+			excerpt.writeInt(values.length);
+			for( boolean value : values ) excerpt.writeBoolean(value);
+			break;
+		}
+		case BYTE: {
+			final byte[] values = (byte[]) array;
+			excerpt.writeInt(values.length);
+			excerpt.write(values);
+			break;
+		}
+		case CHAR: {
+			final char[] values = (char[]) array;
+			excerpt.writeInt(values.length);
+			for( char value : values ) excerpt.writeChar(value);
+			break;
+		}
+		case SHORT: {
+			final short[] values = (short[]) array;
+			excerpt.writeInt(values.length);
+			for( short value : values ) excerpt.writeShort(value);
+			break;
+		}
+		case INT: {
+			final int[] values = (int[]) array;
+			excerpt.writeInt(values.length);
+			for( int value : values ) excerpt.writeInt(value);
+			break;
+		}
+		case FLOAT: {
+			final float[] values = (float[]) array;
+			excerpt.writeInt(values.length);
+			for( float value : values ) excerpt.writeFloat(value);
+			break;
+		}
+		case LONG: {
+			final long[] values = (long[]) array;
+			excerpt.writeInt(values.length);
+			for( long value : values ) excerpt.writeLong(value);
+			break;
+		}
+		case DOUBLE: {
+			final double[] values = (double[]) array;
+			excerpt.writeInt(values.length);
+			for( double value : values ) excerpt.writeDouble(value);
+			break;
+		}
+		}
+	}
+
+	private static Object readArray(Excerpt excerpt, int kind, Object reuse) {
+		final int length = excerpt.readInt();
+		if( length < 0 ) {
+			return null;
+		}
+		switch( kind ) {
+		case BOOLEAN: {
+			final boolean[] values = (reuse != null && ((boolean[]) reuse).length == length) ? (boolean[]) reuse : new boolean[length];
+			for( int i = 0; i < length; i++ ) values[i] = excerpt.readBoolean();
+			return values;
+		}
+		case BYTE: {
+			final byte[] values = (reuse != null && ((byte[]) reuse).length == length) ? (byte[]) reuse : new byte[length];
+			excerpt.readFully(values);
+			return values;
+		}
+		case CHAR: {
+			final char[] values = (reuse != null && ((char[]) reuse).length == length) ? (char[]) reuse : new char[length];
+			for( int i = 0; i < length; i++ ) values[i] = excerpt.readChar();
+			return values;
+		}
+		case SHORT: {
+			final short[] values = (reuse != null && ((short[]) reuse).length == length) ? (short[]) reuse : new short[length];
+			for( int i = 0; i < length; i++ ) values[i] = excerpt.readShort();
+			return values;
+		}
+		case INT: {
+			final int[] values = (reuse != null && ((int[]) reuse).length == length) ? (int[]) reuse : new int[length];
+			for( int i = 0; i < length; i++ ) values[i] = excerpt.readInt();
+			return values;
+		}
+		case FLOAT: {
+			final float[] values = (reuse != null && ((float[]) reuse).length == length) ? (float[]) reuse : new float[length];
+			for( int i = 0; i < length; i++ ) values[i] = excerpt.readFloat();
+			return values;
+		}
+		case LONG: {
+			final long[] values = (reuse != null && ((long[]) reuse).length == length) ? (long[]) reuse : new long[length];
+			for( int i = 0; i < length; i++ ) values[i] = excerpt.readLong();
+			return values;
+		}
+		case DOUBLE: {
+			final double[] values = (reuse != null && ((double[]) reuse).length == length) ? (double[]) reuse : new double[length];
+			for( int i = 0; i < length; i++ ) values[i] = excerpt.readDouble();
+			return values;
+		}
+		default:
+			throw new IllegalStateException("unknown kind "+kind);
+		}
+	}
+}
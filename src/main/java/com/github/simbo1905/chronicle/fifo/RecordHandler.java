@@ -0,0 +1,21 @@
+package com.github.simbo1905.chronicle.fifo;
+
+/**
+ * Consumes a {@link FixedRecordFifo} on the consumer thread of a 
+ * {@link FixedRecordFifo.RecordTail} straight out of the tail's ring. 
+ * 
+ * @author simbo
+ */
+public interface RecordHandler {
+	
+	/**
+	 * Called for every record in fifo order. 
+	 * 
+	 * @param records the ring holding the record which must not be modified 
+	 * and must not be read after this method returns
+	 * @param offset the offset of the record within the ring
+	 * @param sequence the ring sequence of the record
+	 * @param endOfBatch true if this is the last record currently available
+	 */
+	void onMessage(byte[] records, int offset, long sequence, boolean endOfBatch) throws Exception;
+}
@@ -0,0 +1,84 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes the segments of a rolling {@link Fifo} which every registered 
+ * consumer group has moved past. It only reads the groups' cursor files and 
+ * deletes whole segment files on its own thread so it never contends with 
+ * the head or the tails, and the page cache of deleted segments is dropped 
+ * once the last reader unmaps them. The segment being written is never 
+ * deleted. 
+ * 
+ * @author simbo
+ */
+public class Retention implements Closeable {
+	
+	private final Segments segments;
+	
+	private final List<FifoCursor> cursors = new ArrayList<FifoCursor>();
+	
+	private final ScheduledExecutorService scheduler;
+	
+	/**
+	 * @param groups every consumer group which must see each message
+	 */
+	public Retention(Fifo<?> fifo, String... groups) throws IOException {
+		if( fifo.segments == null ) {
+			throw new IllegalArgumentException("fifo does not roll");
+		}
+		this.segments = fifo.segments;
+		for( String group : groups ) {
+			cursors.add(fifo.cursor(group));
+		}
+		scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				final Thread thread = new Thread(runnable, "retention-" + segments.base());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+	
+	/**
+	 * Compacts in the background every period. 
+	 */
+	public void start(long period, TimeUnit unit) {
+		scheduler.scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				compact();
+			}
+		}, period, period, unit);
+	}
+	
+	/**
+	 * @return how many segments were deleted
+	 */
+	public int compact() {
+		int keep = segments.last();
+		for( FifoCursor cursor : cursors ) {
+			cursor.load();
+			keep = Math.min(keep, cursor.segment());
+		}
+		int deleted = 0;
+		final int first = segments.first();
+		for( int segment = first; first >= 0 && segment < keep; segment++ ) {
+			if( segments.delete(segment) ) {
+				deleted++;
+			}
+		}
+		return deleted;
+	}
+	
+	@Override
+	public void close() {
+		scheduler.shutdown();
+	}
+}
@@ -0,0 +1,42 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * When the head of a rolling {@link Fifo} moves on to a new segment. The 
+ * check is made on each add so an idle fifo does not roll. 
+ * 
+ * @author simbo
+ */
+public final class RollPolicy {
+	
+	private final long maxBytes;
+	
+	private final long maxAgeMillis;
+	
+	/**
+	 * @param maxBytes roll before a segment would exceed this many bytes
+	 * @param maxAgeMillis roll once a segment has been written for this long
+	 */
+	public RollPolicy(long maxBytes, long maxAgeMillis) {
+		this.maxBytes = maxBytes;
+		this.maxAgeMillis = maxAgeMillis;
+	}
+	
+	public static RollPolicy bySize(long maxBytes) {
+		return new RollPolicy(maxBytes, Long.MAX_VALUE);
+	}
+	
+	public static RollPolicy byTime(long period, TimeUnit unit) {
+		return new RollPolicy(Long.MAX_VALUE, unit.toMillis(period));
+	}
+	
+	/**
+	 * @param bytes bytes already written to the segment
+	 * @param capacity the size of the excerpt about to be written
+	 * @param ageMillis how long the segment has been written to
+	 */
+	boolean isDue(long bytes, int capacity, long ageMillis) {
+		return bytes > 0 && (bytes + capacity > maxBytes || ageMillis >= maxAgeMillis);
+	}
+}
@@ -0,0 +1,53 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+
+/**
+ * Separate handles on a chronicle's data and index files which are only 
+ * used to force them to disk. On Linux an fsync of the file writes back the 
+ * pages dirtied through the chronicle's own mappings. Forcing and closing 
+ * are synchronized as a background flusher may force while the head rolls. 
+ * 
+ * @author simbo
+ */
+final class SegmentFiles {
+	
+	final RandomAccessFile data;
+	
+	private final RandomAccessFile index;
+	
+	private boolean closed;
+	
+	SegmentFiles(String chronicle) throws IOException {
+		data = new RandomAccessFile(chronicle + ".data", "rw");
+		index = new RandomAccessFile(chronicle + ".index", "rw");
+	}
+	
+	/**
+	 * Forces the data before the index so an index entry never reaches the 
+	 * disk ahead of the data which it points to. 
+	 */
+	synchronized void force() {
+		if( closed ) {
+			return;
+		}
+		try {
+			force(data.getChannel());
+			force(index.getChannel());
+		} catch (IOException e) {
+			throw new IllegalStateException("could not force chronicle to disk", e);
+		}
+	}
+	
+	private static void force(FileChannel channel) throws IOException {
+		channel.force(false);
+	}
+	
+	synchronized void close() throws IOException {
+		closed = true;
+		data.close();
+		index.close();
+	}
+}
@@ -0,0 +1,97 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.higherfrequencytrading.chronicle.Chronicle;
+import com.higherfrequencytrading.chronicle.impl.IndexedChronicle;
+
+/**
+ * The numbered chronicles which hold a rolling {@link Fifo}. Segment n of 
+ * base path "/data/orders" is the chronicle "/data/orders.n" so each segment 
+ * has its own data and index files which can be deleted once every consumer 
+ * has moved past them. 
+ * 
+ * @author simbo
+ */
+public class Segments {
+	
+	private final String base;
+	
+	private final File directory;
+	
+	private final String prefix;
+	
+	public Segments(String base) {
+		this.base = base;
+		final File file = new File(base).getAbsoluteFile();
+		this.directory = file.getParentFile();
+		this.prefix = file.getName() + ".";
+	}
+	
+	public String base() {
+		return base;
+	}
+	
+	public Chronicle open(int segment) throws IOException {
+		return new IndexedChronicle(base + "." + segment);
+	}
+	
+	/**
+	 * @return the lowest segment on disk or -1 if there are none
+	 */
+	public int first() {
+		int first = -1;
+		for( int segment : list() ) {
+			if( first == -1 || segment < first ) {
+				first = segment;
+			}
+		}
+		return first;
+	}
+	
+	/**
+	 * @return the highest segment on disk or -1 if there are none
+	 */
+	public int last() {
+		int last = -1;
+		for( int segment : list() ) {
+			last = Math.max(last, segment);
+		}
+		return last;
+	}
+	
+	/**
+	 * Deletes the data and index files of the segment. A reader which still 
+	 * has the segment mapped keeps its pages until it unmaps them. 
+	 * 
+	 * @return true if both files were deleted
+	 */
+	public boolean delete(int segment) {
+		final boolean index = new File(base + "." + segment + ".index").delete();
+		final boolean data = new File(base + "." + segment + ".data").delete();
+		return index && data;
+	}
+	
+	private int[] list() {
+		final String[] names = directory.list();
+		if( names == null ) {
+			return new int[0];
+		}
+		int[] segments = new int[names.length];
+		int count = 0;
+		for( String name : names ) {
+			if( name.startsWith(prefix) && name.endsWith(".index") ) {
+				final String number = name.substring(prefix.length(), name.length() - ".index".length());
+				try {
+					segments[count++] = Integer.parseInt(number);
+				} catch (NumberFormatException e) {
+					count--;
+				}
+			}
+		}
+		final int[] found = new int[count];
+		System.arraycopy(segments, 0, found, 0, count);
+		return found;
+	}
+}
@@ -0,0 +1,24 @@
+package com.github.simbo1905.chronicle.fifo;
+
+/**
+ * Writes and reads a message or a part of one to and from {@link UnsafeMemory}.
+ * A codec of an outer message may write its nested objects with their own
+ * codecs via {@link UnsafeMemory#putObject(Object, UnsafeCodec)}.
+ *
+ * @author simbo
+ */
+public interface UnsafeCodec<T> {
+
+	/**
+	 * Writes the message at the current position of the memory.
+	 */
+	void write(UnsafeMemory memory, T t);
+
+	/**
+	 * Reads a message from the current position of the memory.
+	 *
+	 * @param reuse a previously read message which may be overwritten and
+	 * returned to avoid allocation, or null if a new message is required
+	 */
+	T read(UnsafeMemory memory, T reuse);
+}
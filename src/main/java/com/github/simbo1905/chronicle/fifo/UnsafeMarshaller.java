@@ -0,0 +1,67 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import com.higherfrequencytrading.chronicle.Excerpt;
+
+/**
+ * A {@link Marshaller} which runs an {@link UnsafeCodec} over a scratch
+ * {@link UnsafeMemory} and moves the encoded bytes to and from the excerpt as
+ * one length prefixed block copy, so a codec written for native or mapped
+ * memory can be the codec of a fifo. The head and each tail thread have their
+ * own scratch which is bounds checked as a message larger than it would
+ * otherwise overwrite the heap.
+ *
+ * @author simbo
+ */
+public class UnsafeMarshaller<T> implements Marshaller<T> {
+
+	private final UnsafeCodec<T> codec;
+
+	private final ThreadLocal<Scratch> scratch;
+
+	private static final class Scratch {
+		final byte[] bytes;
+		final UnsafeMemory memory;
+		Scratch(int size) {
+			bytes = new byte[size];
+			memory = new UnsafeMemory(bytes, true);
+		}
+	}
+
+	/**
+	 * @param maxMessageSize the largest encoded message
+	 */
+	public UnsafeMarshaller(UnsafeCodec<T> codec, final int maxMessageSize) {
+		if( maxMessageSize <= 0 ) {
+			throw new IllegalArgumentException("maxMessageSize must be positive: "+maxMessageSize);
+		}
+		this.codec = codec;
+		this.scratch = new ThreadLocal<Scratch>() {
+			@Override
+			protected Scratch initialValue() {
+				return new Scratch(maxMessageSize);
+			}
+		};
+	}
+
+	@Override
+	public void write(Excerpt excerpt, T t) {
+		final Scratch local = scratch.get();
+		local.memory.reset();
+		codec.write(local.memory, t);
+		final int length = (int) local.memory.position();
+		excerpt.writeInt(length);
+		excerpt.write(local.bytes, 0, length);
+	}
+
+	@Override
+	public T read(Excerpt excerpt, T reuse) {
+		final Scratch local = scratch.get();
+		final int length = excerpt.readInt();
+		if( length < 0 || length > local.bytes.length ) {
+			throw new IllegalStateException(String.format("message length %d outside 0 to %d", length, local.bytes.length));
+		}
+		excerpt.readFully(local.bytes, 0, length);
+		local.memory.reset();
+		return codec.read(local.memory, reuse);
+	}
+}
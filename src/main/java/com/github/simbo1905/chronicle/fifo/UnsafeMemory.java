@@ -0,0 +1,569 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+import sun.misc.Unsafe;
+
+/**
+ * A cursor over a block of memory which puts and gets primitives, primitive
+ * arrays, strings and nested objects with {@link Unsafe}. The memory may be a
+ * heap byte array, a direct or memory mapped {@link ByteBuffer} such as a
+ * region of a file or raw native memory at a base address, so the same
+ * {@link UnsafeCodec} can write to any of them.
+ *
+ * Values are in the native byte order and arrays and strings are written as
+ * an int length followed by their elements, a length of -1 meaning null.
+ * Strings are either UTF-8 with the length in bytes or ASCII with one byte
+ * per char.
+ *
+ * An unchecked memory trusts the codec to stay within the capacity, as any
+ * access outside it corrupts the heap or crashes the JVM. A checked memory
+ * throws an {@link IndexOutOfBoundsException} instead at the cost of a
+ * compare per access, which is the safer choice while a codec is new or
+ * when reading data which may be corrupt.
+ *
+ * Not thread safe.
+ *
+ * @author simbo
+ */
+public final class UnsafeMemory {
+
+	private static final Unsafe unsafe;
+	static
+	{
+		try
+		{
+			Field field = Unsafe.class.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			unsafe = (Unsafe)field.get(null);
+		}
+		catch (Exception e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static final long BYTE_ARRAY_OFFSET = unsafe.arrayBaseOffset(byte[].class);
+	private static final long INT_ARRAY_OFFSET = unsafe.arrayBaseOffset(int[].class);
+	private static final long LONG_ARRAY_OFFSET = unsafe.arrayBaseOffset(long[].class);
+	private static final long DOUBLE_ARRAY_OFFSET = unsafe.arrayBaseOffset(double[].class);
+
+	private static final long ADDRESS_OFFSET;
+	static
+	{
+		try
+		{
+			ADDRESS_OFFSET = unsafe.objectFieldOffset(Buffer.class.getDeclaredField("address"));
+		}
+		catch (Exception e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static final int NULL_LENGTH = -1;
+
+	/**
+	 * The array of heap memory or null for native memory.
+	 */
+	private final Object base;
+
+	/**
+	 * The offset of the first byte within the base or its native address.
+	 */
+	private final long address;
+
+	private final long capacity;
+
+	private final boolean checked;
+
+	/**
+	 * Keeps a buffer reachable so its memory is not freed while in use.
+	 */
+	private final Object attachment;
+
+	private long position;
+
+	public UnsafeMemory(byte[] array) {
+		this(array, false);
+	}
+
+	public UnsafeMemory(byte[] array, boolean checked) {
+		this(array, BYTE_ARRAY_OFFSET, array.length, checked, array);
+	}
+
+	public UnsafeMemory(ByteBuffer buffer) {
+		this(buffer, false);
+	}
+
+	/**
+	 * @param buffer a heap buffer or a direct buffer, including a
+	 * {@link java.nio.MappedByteBuffer}, whose whole capacity is used
+	 * regardless of its position and limit
+	 */
+	public UnsafeMemory(ByteBuffer buffer, boolean checked) {
+		this(buffer.hasArray() ? buffer.array() : null,
+				buffer.hasArray() ? BYTE_ARRAY_OFFSET + buffer.arrayOffset() : directAddress(buffer),
+				buffer.capacity(), checked, buffer);
+	}
+
+	/**
+	 * @param address the native address of memory which the caller keeps
+	 * allocated while it is in use
+	 */
+	public UnsafeMemory(long address, long capacity, boolean checked) {
+		this(null, address, capacity, checked, null);
+		if( address == 0 ) {
+			throw new IllegalArgumentException("address is null");
+		}
+	}
+
+	private UnsafeMemory(Object base, long address, long capacity, boolean checked, Object attachment) {
+		if( capacity < 0 ) {
+			throw new IllegalArgumentException("negative capacity "+capacity);
+		}
+		this.base = base;
+		this.address = address;
+		this.capacity = capacity;
+		this.checked = checked;
+		this.attachment = attachment;
+	}
+
+	private static long directAddress(ByteBuffer buffer) {
+		if( !buffer.isDirect() ) {
+			throw new IllegalArgumentException("buffer is neither direct nor backed by an accessible array");
+		}
+		return unsafe.getLong(buffer, ADDRESS_OFFSET);
+	}
+
+	public long capacity() {
+		return capacity;
+	}
+
+	public boolean isChecked() {
+		return checked;
+	}
+
+	public long position() {
+		return position;
+	}
+
+	public void position(long position) {
+		if( position < 0 || position > capacity ) {
+			throw new IndexOutOfBoundsException(String.format("position %d outside capacity %d", position, capacity));
+		}
+		this.position = position;
+	}
+
+	public long remaining() {
+		return capacity - position;
+	}
+
+	public void reset() {
+		position = 0;
+	}
+
+	/**
+	 * Moves the position past the bytes about to be accessed returning the
+	 * offset of the first of them.
+	 */
+	private long advance(long bytes) {
+		final long at = position;
+		if( checked && (bytes < 0 || bytes > capacity - at) ) {
+			throw new IndexOutOfBoundsException(String.format("%d bytes at position %d exceed capacity %d", bytes, at, capacity));
+		}
+		position = at + bytes;
+		return address + at;
+	}
+
+	private long at(long offset, long bytes) {
+		if( checked && (offset < 0 || bytes > capacity - offset) ) {
+			throw new IndexOutOfBoundsException(String.format("%d bytes at offset %d exceed capacity %d", bytes, offset, capacity));
+		}
+		return address + offset;
+	}
+
+	public void putBoolean(boolean value) {
+		unsafe.putByte(base, advance(1), (byte) (value ? 1 : 0));
+	}
+
+	public boolean getBoolean() {
+		return unsafe.getByte(base, advance(1)) != 0;
+	}
+
+	public void putByte(byte value) {
+		unsafe.putByte(base, advance(1), value);
+	}
+
+	public byte getByte() {
+		return unsafe.getByte(base, advance(1));
+	}
+
+	public void putShort(short value) {
+		unsafe.putShort(base, advance(2), value);
+	}
+
+	public short getShort() {
+		return unsafe.getShort(base, advance(2));
+	}
+
+	public void putChar(char value) {
+		unsafe.putChar(base, advance(2), value);
+	}
+
+	public char getChar() {
+		return unsafe.getChar(base, advance(2));
+	}
+
+	public void putInt(int value) {
+		unsafe.putInt(base, advance(4), value);
+	}
+
+	public int getInt() {
+		return unsafe.getInt(base, advance(4));
+	}
+
+	public void putInt(long offset, int value) {
+		unsafe.putInt(base, at(offset, 4), value);
+	}
+
+	public int getInt(long offset) {
+		return unsafe.getInt(base, at(offset, 4));
+	}
+
+	public void putFloat(float value) {
+		unsafe.putFloat(base, advance(4), value);
+	}
+
+	public float getFloat() {
+		return unsafe.getFloat(base, advance(4));
+	}
+
+	public void putLong(long value) {
+		unsafe.putLong(base, advance(8), value);
+	}
+
+	public long getLong() {
+		return unsafe.getLong(base, advance(8));
+	}
+
+	public void putLong(long offset, long value) {
+		unsafe.putLong(base, at(offset, 8), value);
+	}
+
+	public long getLong(long offset) {
+		return unsafe.getLong(base, at(offset, 8));
+	}
+
+	/**
+	 * Puts a long which other threads or processes see no earlier than the
+	 * stores which preceded it.
+	 */
+	public void putOrderedLong(long offset, long value) {
+		unsafe.putOrderedLong(base, at(offset, 8), value);
+	}
+
+	/**
+	 * Puts a long which other threads or processes see before any store or
+	 * load which follows it.
+	 */
+	public void putLongVolatile(long offset, long value) {
+		unsafe.putLongVolatile(base, at(offset, 8), value);
+	}
+
+	/**
+	 * Gets a long ahead of any load which follows it.
+	 */
+	public long getLongVolatile(long offset) {
+		return unsafe.getLongVolatile(base, at(offset, 8));
+	}
+
+	public void putDouble(double value) {
+		unsafe.putDouble(base, advance(8), value);
+	}
+
+	public double getDouble() {
+		return unsafe.getDouble(base, advance(8));
+	}
+
+	/**
+	 * Reads an array length checking that its elements fit in what remains.
+	 */
+	private int getLength(int shift) {
+		final int length = getInt();
+		if( checked && length != NULL_LENGTH && (length < 0 || ((long) length << shift) > remaining()) ) {
+			throw new IndexOutOfBoundsException(String.format("length %d at position %d exceeds capacity %d", length, position - 4, capacity));
+		}
+		return length;
+	}
+
+	public void putByteArray(byte[] values) {
+		if( values == null ) {
+			putInt(NULL_LENGTH);
+			return;
+		}
+		putInt(values.length);
+		unsafe.copyMemory(values, BYTE_ARRAY_OFFSET, base, advance(values.length), values.length);
+	}
+
+	public byte[] getByteArray() {
+		return getByteArray(null);
+	}
+
+	/**
+	 * @param reuse an array which is filled and returned if it is the right length
+	 */
+	public byte[] getByteArray(byte[] reuse) {
+		final int length = getLength(0);
+		if( length == NULL_LENGTH ) {
+			return null;
+		}
+		final byte[] values = (reuse != null && reuse.length == length) ? reuse : new byte[length];
+		unsafe.copyMemory(base, advance(length), values, BYTE_ARRAY_OFFSET, length);
+		return values;
+	}
+
+	public void putIntArray(int[] values) {
+		if( values == null ) {
+			putInt(NULL_LENGTH);
+			return;
+		}
+		putInt(values.length);
+		final long bytes = (long) values.length << 2;
+		unsafe.copyMemory(values, INT_ARRAY_OFFSET, base, advance(bytes), bytes);
+	}
+
+	public int[] getIntArray() {
+		return getIntArray(null);
+	}
+
+	public int[] getIntArray(int[] reuse) {
+		final int length = getLength(2);
+		if( length == NULL_LENGTH ) {
+			return null;
+		}
+		final int[] values = (reuse != null && reuse.length == length) ? reuse : new int[length];
+		final long bytes = (long) length << 2;
+		unsafe.copyMemory(base, advance(bytes), values, INT_ARRAY_OFFSET, bytes);
+		return values;
+	}
+
+	public void putLongArray(long[] values) {
+		if( values == null ) {
+			putInt(NULL_LENGTH);
+			return;
+		}
+		putInt(values.length);
+		final long bytes = (long) values.length << 3;
+		unsafe.copyMemory(values, LONG_ARRAY_OFFSET, base, advance(bytes), bytes);
+	}
+
+	public long[] getLongArray() {
+		return getLongArray(null);
+	}
+
+	public long[] getLongArray(long[] reuse) {
+		final int length = getLength(3);
+		if( length == NULL_LENGTH ) {
+			return null;
+		}
+		final long[] values = (reuse != null && reuse.length == length) ? reuse : new long[length];
+		final long bytes = (long) length << 3;
+		unsafe.copyMemory(base, advance(bytes), values, LONG_ARRAY_OFFSET, bytes);
+		return values;
+	}
+
+	public void putDoubleArray(double[] values) {
+		if( values == null ) {
+			putInt(NULL_LENGTH);
+			return;
+		}
+		putInt(values.length);
+		final long bytes = (long) values.length << 3;
+		unsafe.copyMemory(values, DOUBLE_ARRAY_OFFSET, base, advance(bytes), bytes);
+	}
+
+	public double[] getDoubleArray() {
+		return getDoubleArray(null);
+	}
+
+	public double[] getDoubleArray(double[] reuse) {
+		final int length = getLength(3);
+		if( length == NULL_LENGTH ) {
+			return null;
+		}
+		final double[] values = (reuse != null && reuse.length == length) ? reuse : new double[length];
+		final long bytes = (long) length << 3;
+		unsafe.copyMemory(base, advance(bytes), values, DOUBLE_ARRAY_OFFSET, bytes);
+		return values;
+	}
+
+	/**
+	 * Writes the string as UTF-8 without allocating. An unpaired surrogate is
+	 * written as '?' as the JDK encoder does.
+	 */
+	public void putString(CharSequence value) {
+		if( value == null ) {
+			putInt(NULL_LENGTH);
+			return;
+		}
+		final int length = value.length();
+		int bytes = 0;
+		for( int i = 0; i < length; i++ ) {
+			final char c = value.charAt(i);
+			if( c < 0x80 ) {
+				bytes += 1;
+			} else if( c < 0x800 ) {
+				bytes += 2;
+			} else if( Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1)) ) {
+				bytes += 4;
+				i++;
+			} else if( c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE ) {
+				bytes += 1;
+			} else {
+				bytes += 3;
+			}
+		}
+		putInt(bytes);
+		long offset = advance(bytes);
+		for( int i = 0; i < length; i++ ) {
+			final char c = value.charAt(i);
+			if( c < 0x80 ) {
+				unsafe.putByte(base, offset++, (byte) c);
+			} else if( c < 0x800 ) {
+				unsafe.putByte(base, offset++, (byte) (0xC0 | (c >> 6)));
+				unsafe.putByte(base, offset++, (byte) (0x80 | (c & 0x3F)));
+			} else if( Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1)) ) {
+				final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+				unsafe.putByte(base, offset++, (byte) (0xF0 | (codePoint >> 18)));
+				unsafe.putByte(base, offset++, (byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+				unsafe.putByte(base, offset++, (byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+				unsafe.putByte(base, offset++, (byte) (0x80 | (codePoint & 0x3F)));
+			} else if( c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE ) {
+				unsafe.putByte(base, offset++, (byte) '?');
+			} else {
+				unsafe.putByte(base, offset++, (byte) (0xE0 | (c >> 12)));
+				unsafe.putByte(base, offset++, (byte) (0x80 | ((c >> 6) & 0x3F)));
+				unsafe.putByte(base, offset++, (byte) (0x80 | (c & 0x3F)));
+			}
+		}
+	}
+
+	public String getString() {
+		final int bytes = getLength(0);
+		if( bytes == NULL_LENGTH ) {
+			return null;
+		}
+		return decode(bytes, new StringBuilder(bytes)).toString();
+	}
+
+	/**
+	 * Appends a UTF-8 string to the builder so a reader may reuse one builder.
+	 *
+	 * @return false if the string was null
+	 */
+	public boolean getString(StringBuilder builder) {
+		final int bytes = getLength(0);
+		if( bytes == NULL_LENGTH ) {
+			return false;
+		}
+		decode(bytes, builder);
+		return true;
+	}
+
+	private StringBuilder decode(int bytes, StringBuilder builder) {
+		long offset = advance(bytes);
+		final long end = offset + bytes;
+		while( offset < end ) {
+			final int b = unsafe.getByte(base, offset++) & 0xFF;
+			if( b < 0x80 ) {
+				builder.append((char) b);
+			} else if( b < 0xE0 ) {
+				builder.append((char) (((b & 0x1F) << 6) | next(offset++, end)));
+			} else if( b < 0xF0 ) {
+				final int c = ((b & 0x0F) << 12) | (next(offset++, end) << 6);
+				builder.append((char) (c | next(offset++, end)));
+			} else {
+				final int c = ((b & 0x07) << 18) | (next(offset++, end) << 12) | (next(offset++, end) << 6);
+				builder.appendCodePoint(c | next(offset++, end));
+			}
+		}
+		return builder;
+	}
+
+	private int next(long offset, long end) {
+		if( offset >= end ) {
+			throw new IllegalStateException("truncated UTF-8 sequence");
+		}
+		return unsafe.getByte(base, offset) & 0x3F;
+	}
+
+	/**
+	 * Writes the string with one byte per char, any char above 127 being
+	 * written as '?'.
+	 */
+	public void putAscii(CharSequence value) {
+		if( value == null ) {
+			putInt(NULL_LENGTH);
+			return;
+		}
+		final int length = value.length();
+		putInt(length);
+		long offset = advance(length);
+		for( int i = 0; i < length; i++ ) {
+			final char c = value.charAt(i);
+			unsafe.putByte(base, offset++, (byte) (c < 0x80 ? c : '?'));
+		}
+	}
+
+	public String getAscii() {
+		final int length = getLength(0);
+		if( length == NULL_LENGTH ) {
+			return null;
+		}
+		final StringBuilder builder = new StringBuilder(length);
+		ascii(length, builder);
+		return builder.toString();
+	}
+
+	/**
+	 * @return false if the string was null
+	 */
+	public boolean getAscii(StringBuilder builder) {
+		final int length = getLength(0);
+		if( length == NULL_LENGTH ) {
+			return false;
+		}
+		ascii(length, builder);
+		return true;
+	}
+
+	private void ascii(int length, StringBuilder builder) {
+		long offset = advance(length);
+		for( int i = 0; i < length; i++ ) {
+			builder.append((char) unsafe.getByte(base, offset++));
+		}
+	}
+
+	/**
+	 * Writes a presence flag and then the object with its codec.
+	 */
+	public <T> void putObject(T value, UnsafeCodec<T> codec) {
+		putBoolean(value != null);
+		if( value != null ) {
+			codec.write(this, value);
+		}
+	}
+
+	public <T> T getObject(UnsafeCodec<T> codec, T reuse) {
+		return getBoolean() ? codec.read(this, reuse) : null;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("UnsafeMemory[%s position=%d capacity=%d%s]",
+				base != null ? "heap" : "native", position, capacity, checked ? " checked" : "");
+	}
+}
@@ -0,0 +1,59 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.BusySpinWaitStrategy;
+import com.lmax.disruptor.WaitStrategy;
+import com.lmax.disruptor.YieldingWaitStrategy;
+
+/**
+ * How a {@link Fifo.FifoTail} waits for the next message. Latency critical
+ * consumers can burn a core with {@link #BUSY_SPIN} while background
+ * consumers on the same box use {@link #PARK} or {@link #BLOCKING}.
+ *
+ * @author simbo
+ */
+public enum WaitPolicy {
+
+	/**
+	 * Lowest latency, uses a whole core while idle.
+	 */
+	BUSY_SPIN {
+		@Override
+		WaitStrategy newWaitStrategy() {
+			return new BusySpinWaitStrategy();
+		}
+	},
+
+	/**
+	 * Low latency, gives the core to other threads while idle.
+	 */
+	YIELD {
+		@Override
+		WaitStrategy newWaitStrategy() {
+			return new YieldingWaitStrategy();
+		}
+	},
+
+	/**
+	 * Spins and then parks with an exponential backoff, see
+	 * {@link BackoffWaitStrategy}.
+	 */
+	PARK {
+		@Override
+		WaitStrategy newWaitStrategy() {
+			return new BackoffWaitStrategy();
+		}
+	},
+
+	/**
+	 * Sleeps on a condition variable which the chronicle reader signals.
+	 */
+	BLOCKING {
+		@Override
+		WaitStrategy newWaitStrategy() {
+			return new BlockingWaitStrategy();
+		}
+	};
+
+	abstract WaitStrategy newWaitStrategy();
+}
@@ -3,7 +3,9 @@ package com.github.simbo1905.chronicle.fifo.demo;
 import static com.github.simbo1905.chronicle.fifo.demo.FifoSingleJvm.MANY;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 import com.github.simbo1905.chronicle.fifo.Fifo;
 import com.higherfrequencytrading.chronicle.Chronicle;
@@ -17,6 +19,7 @@ public class FifoMaster {
 		String guid = "3F2504E0-4F89-11D3-9A0C-0305E82C3301";
 		final int payloadSize = guid.getBytes("UTF8").length+1;
 		Fifo<String> fifo = createFifo(args, payloadSize);
+		final int batchSize = (args.length > 1)?Integer.parseInt(args[1]):1;
 		
 		Fifo<String>.FifoHead head = fifo.head();
 		head.start();
@@ -25,20 +28,33 @@ public class FifoMaster {
 		
 		long startMs = System.currentTimeMillis();
 		
-		for( int index = 0; index < MANY; index++ ){
-			head.add(guid);
+		if( batchSize == 1 ) {
+			for( int index = 0; index < MANY; index++ ){
+				head.add(guid);
+			}
+		} else {
+			final List<String> batch = new ArrayList<String>(batchSize);
+			for( int index = 0; index < MANY; index++ ){
+				batch.add(guid);
+				if( batch.size() == batchSize ) {
+					head.addAll(batch);
+					batch.clear();
+				}
+			}
+			head.addAll(batch);
 		}
 		
 		long endMs = System.currentTimeMillis();
 		
 		System.out.println(new Date());
 		
-		System.out.print(String.format("time: %s ms, count: %s\n", (endMs - startMs),MANY));
+		System.out.print(String.format("time: %s ms, count: %s, batch: %s\n", (endMs - startMs),MANY,batchSize));
 		Double timems = Double.valueOf(endMs) - Double.valueOf(startMs);
 		Object pms = MANY / timems;
 		System.out.print(String.format("per millisecond: %s\n", pms));
 		Object pmms = MANY / (1000*timems);
 		System.out.print(String.format("per microsecond: %s\n", pmms));
+		System.out.print(String.format("stats: %s\n", head.stats()));
 		
 		head.close();
 	}
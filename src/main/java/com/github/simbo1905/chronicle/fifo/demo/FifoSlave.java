@@ -44,6 +44,7 @@ public class FifoSlave {
 		System.out.print(String.format("per millisecond: %s\n", pms));
 		Object pmms = MANY / (1000*timems);
 		System.out.print(String.format("per microsecond: %s\n", pmms));
+		System.out.print(String.format("stats: %s\n", tail.stats()));
 		
 		tail.close();
 	}
@@ -0,0 +1,267 @@
+package com.github.simbo1905.chronicle.replication;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+import com.higherfrequencytrading.chronicle.Chronicle;
+import com.higherfrequencytrading.chronicle.Excerpt;
+
+/**
+ * Streams the excerpts of a chronicle to any number of 
+ * {@link ReplicationSlave}s. A single thread runs a non-blocking selector 
+ * over the slaves' sockets and copies each excerpt byte for byte, headers 
+ * and all, so the slave's chronicle is an exact copy which a 
+ * {@link com.github.simbo1905.chronicle.fifo.Fifo.FifoTail} can read. 
+ * 
+ * A slave opens with the index it wants next, which is the size of its own 
+ * chronicle, so a reconnecting slave resumes where it left off. Excerpts 
+ * are then sent as frames of [long index][int length][bytes], packed into 
+ * one write for as many as fit the buffer, and the slave acknowledges with 
+ * the index it wants next after appending them. A slave whose socket fails 
+ * is dropped while anything else stops the master, which then reports it 
+ * through {@link #failure()}. 
+ * 
+ * @author simbo
+ */
+public class ReplicationMaster implements Closeable, Runnable {
+	
+	static final int FRAME_HEADER = 8 + 4;
+	
+	static final int BUFFER_SIZE = 1 << 16;
+	
+	private final Chronicle chronicle;
+	
+	private final ServerSocketChannel server;
+	
+	private final Selector selector;
+	
+	private final Thread thread;
+	
+	private volatile boolean running = true;
+	
+	private volatile long acked = -1;
+	
+	private volatile RuntimeException failure;
+	
+	public ReplicationMaster(Chronicle chronicle, InetSocketAddress address) throws IOException {
+		this.chronicle = chronicle;
+		this.selector = Selector.open();
+		this.server = ServerSocketChannel.open();
+		server.socket().setReuseAddress(true);
+		server.socket().bind(address);
+		server.configureBlocking(false);
+		server.register(selector, SelectionKey.OP_ACCEPT);
+		thread = new Thread(this, "replication-master-" + chronicle.name());
+		thread.setDaemon(true);
+	}
+	
+	public void start() {
+		thread.start();
+	}
+	
+	/**
+	 * @return the port the master listens on which is useful if it was 
+	 * bound to port 0
+	 */
+	public int port() {
+		return server.socket().getLocalPort();
+	}
+	
+	/**
+	 * @return the lowest index which a connected slave has still to append 
+	 * or -1 if no slave has acknowledged anything
+	 */
+	public long acked() {
+		return acked;
+	}
+	
+	/**
+	 * @return the error which stopped the master or null while it runs
+	 */
+	public RuntimeException failure() {
+		return failure;
+	}
+	
+	@Override
+	public void run() {
+		try {
+			while( running ) {
+				boolean sent = false;
+				for( SelectionKey key : selector.keys() ) {
+					if( key.attachment() != null ) {
+						sent |= ((Session) key.attachment()).send(key);
+					}
+				}
+				if( sent ) {
+					selector.selectNow();
+				} else {
+					selector.select(1);
+				}
+				final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while( keys.hasNext() ) {
+					final SelectionKey key = keys.next();
+					keys.remove();
+					if( !key.isValid() ) {
+						continue;
+					}
+					if( key.isAcceptable() ) {
+						accept();
+					} else if( key.isReadable() ) {
+						((Session) key.attachment()).receive(key);
+					}
+				}
+				updateAcked();
+			}
+		} catch (IOException e) {
+			if( running ) {
+				failure = new IllegalStateException("replication master failed", e);
+				running = false;
+			}
+		} catch (RuntimeException e) {
+			failure = e;
+			running = false;
+		}
+	}
+	
+	private void accept() throws IOException {
+		final SocketChannel channel = server.accept();
+		if( channel == null ) {
+			return;
+		}
+		channel.configureBlocking(false);
+		channel.socket().setTcpNoDelay(true);
+		channel.register(selector, SelectionKey.OP_READ, new Session(channel));
+	}
+	
+	private void updateAcked() {
+		long lowest = -1;
+		for( SelectionKey key : selector.keys() ) {
+			final Session session = (Session) key.attachment();
+			if( session != null && key.isValid() && session.acked >= 0 ) {
+				lowest = (lowest == -1) ? session.acked : Math.min(lowest, session.acked);
+			}
+		}
+		acked = lowest;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		running = false;
+		selector.wakeup();
+		try {
+			thread.join(1000);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		for( SelectionKey key : selector.keys() ) {
+			key.channel().close();
+		}
+		selector.close();
+	}
+	
+	/**
+	 * The state of one connected slave. 
+	 */
+	private final class Session {
+		
+		private final SocketChannel channel;
+		
+		private final Excerpt excerpt = chronicle.createExcerpt();
+		
+		private final ByteBuffer in = ByteBuffer.allocate(8 * 64);
+		
+		private ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		
+		private byte[] copy = new byte[1024];
+		
+		/**
+		 * The next index to send or -1 until the slave has said. 
+		 */
+		private long next = -1;
+		
+		private long acked = -1;
+		
+		Session(SocketChannel channel) {
+			this.channel = channel;
+		}
+		
+		void receive(SelectionKey key) throws IOException {
+			final int read;
+			try {
+				read = channel.read(in);
+			} catch (IOException e) {
+				drop(key);
+				return;
+			}
+			if( read < 0 ) {
+				drop(key);
+				return;
+			}
+			in.flip();
+			while( in.remaining() >= 8 ) {
+				final long index = in.getLong();
+				if( next == -1 ) {
+					next = index;
+				}
+				acked = index;
+			}
+			in.compact();
+		}
+		
+		/**
+		 * Packs as many new excerpts as fit and writes what the socket takes. 
+		 * 
+		 * @return true if anything was written
+		 */
+		boolean send(SelectionKey key) throws IOException {
+			if( next == -1 || !key.isValid() ) {
+				return false;
+			}
+			while( excerpt.index(next) ) {
+				final int length = excerpt.capacity();
+				if( FRAME_HEADER + length > out.remaining() ) {
+					if( out.position() == 0 ) {
+						out = ByteBuffer.allocateDirect(Integer.highestOneBit(FRAME_HEADER + length) << 1);
+					} else {
+						break;
+					}
+				}
+				if( copy.length < length ) {
+					copy = new byte[Integer.highestOneBit(length) << 1];
+				}
+				excerpt.position(0);
+				excerpt.readFully(copy, 0, length);
+				excerpt.finish();
+				out.putLong(next);
+				out.putInt(length);
+				out.put(copy, 0, length);
+				next++;
+			}
+			if( out.position() == 0 ) {
+				return false;
+			}
+			out.flip();
+			final int written;
+			try {
+				written = channel.write(out);
+			} catch (IOException e) {
+				drop(key);
+				return false;
+			}
+			out.compact();
+			return written > 0;
+		}
+		
+		private void drop(SelectionKey key) throws IOException {
+			key.cancel();
+			channel.close();
+		}
+	}
+}
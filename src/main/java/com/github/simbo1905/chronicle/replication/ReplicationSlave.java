@@ -0,0 +1,208 @@
+package com.github.simbo1905.chronicle.replication;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import com.higherfrequencytrading.chronicle.Chronicle;
+import com.higherfrequencytrading.chronicle.Excerpt;
+
+/**
+ * Appends the excerpts streamed by a {@link ReplicationMaster} to a local 
+ * chronicle which must only be written by this slave. On connecting, and on 
+ * reconnecting after the master or the network has gone away, it asks for 
+ * the excerpt after the last one it appended. 
+ * 
+ * A frame whose index is not the next one the slave expects, a gap or a 
+ * duplicate, is a protocol error. The slave drops the connection and on 
+ * reconnecting acknowledges the size of its chronicle so the master resends 
+ * from there. Anything other than a network or protocol error stops the 
+ * slave, which then reports it through {@link #failure()}. 
+ * 
+ * @author simbo
+ */
+public class ReplicationSlave implements Closeable, Runnable {
+	
+	static final long RECONNECT_MILLIS = 100;
+	
+	private final Chronicle chronicle;
+	
+	private final InetSocketAddress master;
+	
+	private final Thread thread;
+	
+	private final Excerpt excerpt;
+	
+	private volatile boolean running = true;
+	
+	private volatile SocketChannel channel;
+	
+	private volatile long resyncs;
+	
+	private volatile Exception lastError;
+	
+	private volatile RuntimeException failure;
+	
+	private ByteBuffer in = ByteBuffer.allocateDirect(ReplicationMaster.BUFFER_SIZE);
+	
+	private final ByteBuffer ack = ByteBuffer.allocate(8);
+	
+	private byte[] copy = new byte[1024];
+	
+	public ReplicationSlave(Chronicle chronicle, InetSocketAddress master) {
+		this.chronicle = chronicle;
+		this.master = master;
+		this.excerpt = chronicle.createExcerpt();
+		thread = new Thread(this, "replication-slave-" + chronicle.name());
+		thread.setDaemon(true);
+	}
+	
+	public void start() {
+		thread.start();
+	}
+	
+	/**
+	 * @return the index of the next excerpt the slave will append
+	 */
+	public long next() {
+		return chronicle.size();
+	}
+	
+	/**
+	 * @return how many times a protocol error made the slave resync
+	 */
+	public long resyncs() {
+		return resyncs;
+	}
+	
+	/**
+	 * @return the last network or protocol error the slave recovered from 
+	 * or null
+	 */
+	public Exception lastError() {
+		return lastError;
+	}
+	
+	/**
+	 * @return the error which stopped the slave or null while it runs
+	 */
+	public RuntimeException failure() {
+		return failure;
+	}
+	
+	@Override
+	public void run() {
+		while( running ) {
+			try {
+				channel = SocketChannel.open(master);
+				channel.socket().setTcpNoDelay(true);
+				acknowledge();
+				replicate();
+			} catch (ProtocolException e) {
+				// reconnect below and acknowledge the size to resync
+				lastError = e;
+				resyncs++;
+			} catch (IOException e) {
+				// reconnect below
+				lastError = e;
+			} catch (RuntimeException e) {
+				failure = e;
+				running = false;
+			} finally {
+				closeChannel();
+			}
+			if( running ) {
+				try {
+					Thread.sleep(RECONNECT_MILLIS);
+				} catch (InterruptedException e) {
+					return;
+				}
+			}
+		}
+	}
+	
+	private void replicate() throws IOException {
+		in.clear();
+		while( running ) {
+			if( channel.read(in) < 0 ) {
+				return;
+			}
+			in.flip();
+			boolean appended = false;
+			while( in.remaining() >= ReplicationMaster.FRAME_HEADER ) {
+				final long index = in.getLong(in.position());
+				final int length = in.getInt(in.position() + 8);
+				if( in.remaining() < ReplicationMaster.FRAME_HEADER + length ) {
+					break;
+				}
+				in.position(in.position() + ReplicationMaster.FRAME_HEADER);
+				append(index, length);
+				appended = true;
+			}
+			in.compact();
+			if( in.position() == in.capacity() ) {
+				grow();
+			}
+			if( appended ) {
+				acknowledge();
+			}
+		}
+	}
+	
+	private void append(long index, int length) throws ProtocolException {
+		if( index != chronicle.size() ) {
+			throw new ProtocolException("expected index " + chronicle.size() + " but received " + index);
+		}
+		if( copy.length < length ) {
+			copy = new byte[Integer.highestOneBit(length) << 1];
+		}
+		in.get(copy, 0, length);
+		excerpt.startExcerpt(length);
+		excerpt.write(copy, 0, length);
+		excerpt.finish();
+	}
+	
+	/**
+	 * A frame larger than the buffer needs a larger buffer. 
+	 */
+	private void grow() {
+		final ByteBuffer larger = ByteBuffer.allocateDirect(in.capacity() << 1);
+		in.flip();
+		larger.put(in);
+		in = larger;
+	}
+	
+	private void acknowledge() throws IOException {
+		ack.clear();
+		ack.putLong(chronicle.size());
+		ack.flip();
+		while( ack.hasRemaining() ) {
+			channel.write(ack);
+		}
+	}
+	
+	private void closeChannel() {
+		final SocketChannel current = channel;
+		if( current != null ) {
+			try {
+				current.close();
+			} catch (IOException e) {
+				// already gone
+			}
+		}
+	}
+	
+	@Override
+	public void close() {
+		running = false;
+		closeChannel();
+		try {
+			thread.join(1000);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,18 @@
+package com.github.simbo1905.chronicle.slavelist;
+
+/**
+ * Receives the changes which a replicated list applied for one event as a
+ * single {@link ListChanges} by way of a {@link BatchingListListener}.
+ * 
+ * @author simbo
+ */
+public interface BatchListListener<E> {
+	
+	/**
+	 * Called on the thread which replays the list once the event ends. The
+	 * change set is reused for the next event so must not be kept. 
+	 * 
+	 * @param changes the changes of the event in the order applied
+	 */
+	void onChanges(ListChanges<E> changes);
+}
@@ -0,0 +1,98 @@
+package com.github.simbo1905.chronicle.slavelist;
+
+import com.higherfrequencytrading.chronicle.datamodel.ListListener;
+
+/**
+ * A {@link ListListener} which gathers the changes between eventStart and 
+ * eventEnd into a reused {@link ListChanges} and hands them to a 
+ * {@link BatchListListener} once per event rather than once per element.
+ * Changes outside an event are delivered one at a time as an event of 
+ * their own with an eventId of -1 and a null name. Must only be added to 
+ * a single list.
+ * 
+ * @author simbo
+ */
+public class BatchingListListener<E> implements ListListener<E> {
+
+	static final int DEFAULT_CAPACITY = 16;
+
+	private final BatchListListener<E> listener;
+
+	private final ListChanges<E> changes;
+
+	private boolean inEvent;
+
+	public BatchingListListener(BatchListListener<E> listener) {
+		this(listener, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param capacity the changes held before the arrays grow
+	 */
+	public BatchingListListener(BatchListListener<E> listener, int capacity) {
+		if( capacity < 1 ) {
+			throw new IllegalArgumentException("capacity must be at least 1: " + capacity);
+		}
+		this.listener = listener;
+		this.changes = new ListChanges<E>(capacity);
+	}
+
+	@Override
+	public void eventStart(long eventId, String name) {
+		changes.start(eventId, name);
+		inEvent = true;
+	}
+
+	@Override
+	public void eventEnd(boolean lastEvent) {
+		inEvent = false;
+		changes.end(lastEvent);
+		deliver();
+	}
+
+	@Override
+	public void add(E element) {
+		record(ListChanges.ADD, ListChanges.NO_INDEX, null, element);
+	}
+
+	@Override
+	public void remove(E element) {
+		record(ListChanges.REMOVE, ListChanges.NO_INDEX, null, element);
+	}
+
+	@Override
+	public void add(int index, E element) {
+		record(ListChanges.ADD, index, null, element);
+	}
+
+	@Override
+	public void remove(int index, E element) {
+		record(ListChanges.REMOVE, index, null, element);
+	}
+
+	@Override
+	public void set(int index, E oldElement, E element) {
+		record(ListChanges.SET, index, oldElement, element);
+	}
+
+	private void record(byte kind, int index, E oldElement, E element) {
+		if( !inEvent ) {
+			changes.start(-1, null);
+		}
+		changes.record(kind, index, oldElement, element);
+		if( !inEvent ) {
+			changes.end(true);
+			deliver();
+		}
+	}
+
+	private void deliver() {
+		try {
+			if( changes.size() > 0 ) {
+				listener.onChanges(changes);
+			}
+		} finally {
+			changes.clear();
+		}
+	}
+}
@@ -0,0 +1,262 @@
+package com.github.simbo1905.chronicle.slavelist;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A list for the positional adds and removes which a {@link
+ * com.higherfrequencytrading.chronicle.datamodel.ListWrapper} replays. The
+ * elements are held in chunks of at most a fixed number of elements and a
+ * Fenwick tree over the chunk sizes finds the chunk holding a position in
+ * O(log chunks). An add or remove then shifts at most one chunk rather than
+ * the whole tail of the list as an ArrayList does, so a list of millions
+ * of elements costs about the same per operation as a small one.
+ *
+ * A full chunk is split in two and a chunk which falls below a quarter
+ * full is merged into a neighbour with room, each of which rebuilds the
+ * tree. Appends fill the last chunk and then open a new one, so a list
+ * built by appending is held in full chunks.
+ *
+ * Not thread safe.
+ *
+ * @author simbo
+ */
+public class ChunkedList<E> extends AbstractList<E> {
+
+	static final int DEFAULT_CHUNK_SIZE = 1024;
+
+	private final int chunkSize;
+
+	private Object[][] chunks;
+
+	private int[] sizes;
+
+	/**
+	 * The Fenwick tree of the chunk sizes indexed from one.
+	 */
+	private int[] tree;
+
+	private int chunkCount;
+
+	private int size;
+
+	/**
+	 * Where {@link #locate(int)} found the position.
+	 */
+	private int chunk, offset;
+
+	public ChunkedList() {
+		this(DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * @param chunkSize the most elements in a chunk, which trades the copy
+	 * within a chunk against the number of chunks
+	 */
+	public ChunkedList(int chunkSize) {
+		if( chunkSize < 4 ) {
+			throw new IllegalArgumentException("chunkSize must be at least 4: " + chunkSize);
+		}
+		this.chunkSize = chunkSize;
+		chunks = new Object[4][];
+		sizes = new int[4];
+		tree = new int[5];
+		chunks[0] = new Object[chunkSize];
+		chunkCount = 1;
+	}
+
+	public ChunkedList(Collection<? extends E> elements) {
+		this(DEFAULT_CHUNK_SIZE);
+		addAll(elements);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public E get(int index) {
+		checkIndex(index, size);
+		locate(index);
+		return (E) chunks[chunk][offset];
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public E set(int index, E element) {
+		checkIndex(index, size);
+		locate(index);
+		final E old = (E) chunks[chunk][offset];
+		chunks[chunk][offset] = element;
+		return old;
+	}
+
+	@Override
+	public void add(int index, E element) {
+		checkIndex(index, size + 1);
+		if( index == size ) {
+			if( sizes[chunkCount - 1] == chunkSize ) {
+				insertChunk(chunkCount);
+				rebuild();
+			}
+			chunk = chunkCount - 1;
+			offset = sizes[chunk];
+		} else {
+			locate(index);
+		}
+		if( sizes[chunk] == chunkSize ) {
+			split(chunk);
+			if( offset > sizes[chunk] ) {
+				offset -= sizes[chunk];
+				chunk++;
+			}
+		}
+		final Object[] elements = chunks[chunk];
+		System.arraycopy(elements, offset, elements, offset + 1, sizes[chunk] - offset);
+		elements[offset] = element;
+		sizes[chunk]++;
+		update(chunk, 1);
+		size++;
+		modCount++;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public E remove(int index) {
+		checkIndex(index, size);
+		locate(index);
+		final Object[] elements = chunks[chunk];
+		final E old = (E) elements[offset];
+		final int moved = sizes[chunk] - offset - 1;
+		System.arraycopy(elements, offset + 1, elements, offset, moved);
+		elements[--sizes[chunk]] = null;
+		update(chunk, -1);
+		size--;
+		modCount++;
+		if( sizes[chunk] < chunkSize / 4 && chunkCount > 1 ) {
+			mergeIfRoom(chunk);
+		}
+		return old;
+	}
+
+	@Override
+	public void clear() {
+		for( int index = 0; index < chunkCount; index++ ) {
+			chunks[index] = null;
+		}
+		chunks[0] = new Object[chunkSize];
+		chunkCount = 1;
+		Arrays.fill(sizes, 0);
+		Arrays.fill(tree, 0);
+		size = 0;
+		modCount++;
+	}
+
+	/**
+	 * @return how many chunks hold the elements
+	 */
+	int chunks() {
+		return chunkCount;
+	}
+
+	private void checkIndex(int index, int bound) {
+		if( index < 0 || index >= bound ) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+	}
+
+	/**
+	 * Descends the tree to the chunk holding the position.
+	 */
+	private void locate(int index) {
+		int position = 0;
+		int remaining = index;
+		for( int step = Integer.highestOneBit(chunkCount); step > 0; step >>= 1 ) {
+			final int next = position + step;
+			if( next <= chunkCount && tree[next] <= remaining ) {
+				position = next;
+				remaining -= tree[next];
+			}
+		}
+		chunk = position;
+		offset = remaining;
+	}
+
+	private void update(int chunk, int delta) {
+		for( int index = chunk + 1; index <= chunkCount; index += index & -index ) {
+			tree[index] += delta;
+		}
+	}
+
+	private void rebuild() {
+		Arrays.fill(tree, 0);
+		for( int index = 1; index <= chunkCount; index++ ) {
+			tree[index] += sizes[index - 1];
+			final int parent = index + (index & -index);
+			if( parent <= chunkCount ) {
+				tree[parent] += tree[index];
+			}
+		}
+	}
+
+	/**
+	 * Opens an empty chunk at the position leaving the caller to rebuild.
+	 */
+	private void insertChunk(int at) {
+		if( chunkCount == chunks.length ) {
+			final int capacity = chunks.length * 2;
+			chunks = Arrays.copyOf(chunks, capacity);
+			sizes = Arrays.copyOf(sizes, capacity);
+			tree = new int[capacity + 1];
+		}
+		System.arraycopy(chunks, at, chunks, at + 1, chunkCount - at);
+		System.arraycopy(sizes, at, sizes, at + 1, chunkCount - at);
+		chunks[at] = new Object[chunkSize];
+		sizes[at] = 0;
+		chunkCount++;
+	}
+
+	/**
+	 * Moves the upper half of the full chunk into a new chunk after it.
+	 */
+	private void split(int full) {
+		insertChunk(full + 1);
+		final int kept = chunkSize / 2;
+		System.arraycopy(chunks[full], kept, chunks[full + 1], 0, chunkSize - kept);
+		Arrays.fill(chunks[full], kept, chunkSize, null);
+		sizes[full + 1] = chunkSize - kept;
+		sizes[full] = kept;
+		rebuild();
+	}
+
+	/**
+	 * Moves the elements of a chunk which has become sparse into a
+	 * neighbour which has room for them, or drops it once it is empty.
+	 */
+	private void mergeIfRoom(int sparse) {
+		final int count = sizes[sparse];
+		if( count > 0 ) {
+			if( sparse > 0 && sizes[sparse - 1] + count <= chunkSize / 2 ) {
+				final int previous = sparse - 1;
+				System.arraycopy(chunks[sparse], 0, chunks[previous], sizes[previous], count);
+				sizes[previous] += count;
+			} else if( sparse + 1 < chunkCount && sizes[sparse + 1] + count <= chunkSize / 2 ) {
+				final int next = sparse + 1;
+				System.arraycopy(chunks[next], 0, chunks[next], count, sizes[next]);
+				System.arraycopy(chunks[sparse], 0, chunks[next], 0, count);
+				sizes[next] += count;
+			} else {
+				return;
+			}
+		}
+		System.arraycopy(chunks, sparse + 1, chunks, sparse, chunkCount - sparse - 1);
+		System.arraycopy(sizes, sparse + 1, sizes, sparse, chunkCount - sparse - 1);
+		chunkCount--;
+		chunks[chunkCount] = null;
+		sizes[chunkCount] = 0;
+		rebuild();
+	}
+}
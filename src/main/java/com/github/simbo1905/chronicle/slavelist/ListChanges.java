@@ -0,0 +1,145 @@
+package com.github.simbo1905.chronicle.slavelist;
+
+import java.util.Arrays;
+
+/**
+ * The changes which a replicated list applied between an eventStart and an
+ * eventEnd held in parallel arrays which are reused from event to event, so
+ * a view can walk them by position without an object per change. The arrays
+ * grow to the largest event seen and are only valid up to {@link #size()}.
+ * 
+ * @author simbo
+ */
+public final class ListChanges<E> {
+
+	public static final byte ADD = 1;
+
+	public static final byte REMOVE = 2;
+
+	public static final byte SET = 3;
+
+	/**
+	 * The index of an add or remove of an element without a position.
+	 */
+	public static final int NO_INDEX = -1;
+
+	private byte[] kinds;
+
+	private int[] indexes;
+
+	private Object[] elements;
+
+	private Object[] oldElements;
+
+	private int size;
+
+	private long eventId;
+
+	private String name;
+
+	private boolean lastEvent;
+
+	ListChanges(int capacity) {
+		kinds = new byte[capacity];
+		indexes = new int[capacity];
+		elements = new Object[capacity];
+		oldElements = new Object[capacity];
+	}
+
+	void start(long eventId, String name) {
+		this.eventId = eventId;
+		this.name = name;
+	}
+
+	void record(byte kind, int index, Object oldElement, Object element) {
+		if( size == kinds.length ) {
+			final int capacity = size * 2;
+			kinds = Arrays.copyOf(kinds, capacity);
+			indexes = Arrays.copyOf(indexes, capacity);
+			elements = Arrays.copyOf(elements, capacity);
+			oldElements = Arrays.copyOf(oldElements, capacity);
+		}
+		kinds[size] = kind;
+		indexes[size] = index;
+		elements[size] = element;
+		oldElements[size] = oldElement;
+		size++;
+	}
+
+	void end(boolean lastEvent) {
+		this.lastEvent = lastEvent;
+	}
+
+	/**
+	 * Drops the references to the elements so they are not held until the
+	 * next event as large as this one.
+	 */
+	void clear() {
+		Arrays.fill(elements, 0, size, null);
+		Arrays.fill(oldElements, 0, size, null);
+		size = 0;
+	}
+
+	/**
+	 * @return the id of the event or -1 for a change outside an event
+	 */
+	public long eventId() {
+		return eventId;
+	}
+
+	/**
+	 * @return the name of the list or null for a change outside an event
+	 */
+	public String name() {
+		return name;
+	}
+
+	/**
+	 * @return true if no further event was available when this one ended 
+	 */
+	public boolean lastEvent() {
+		return lastEvent;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the {@link #ADD}, {@link #REMOVE} or {@link #SET} of each change
+	 */
+	public byte[] kinds() {
+		return kinds;
+	}
+
+	/**
+	 * @return the position of each change or {@link #NO_INDEX}
+	 */
+	public int[] indexes() {
+		return indexes;
+	}
+
+	/**
+	 * @return the element added, removed or set by each change
+	 */
+	public Object[] elements() {
+		return elements;
+	}
+
+	/**
+	 * @return the element which each set replaced, otherwise null
+	 */
+	public Object[] oldElements() {
+		return oldElements;
+	}
+
+	@SuppressWarnings("unchecked")
+	public E element(int change) {
+		return (E) elements[change];
+	}
+
+	@SuppressWarnings("unchecked")
+	public E oldElement(int change) {
+		return (E) oldElements[change];
+	}
+}
@@ -1,11 +1,13 @@
 package com.github.simbo1905.chronicle.slavelist;
 
-import java.util.ArrayList;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.List;
 
 import com.higherfrequencytrading.chronicle.Chronicle;
 import com.higherfrequencytrading.chronicle.datamodel.DataStore;
-import com.higherfrequencytrading.chronicle.datamodel.ListWrapper;
 import com.higherfrequencytrading.chronicle.datamodel.ModelMode;
 import com.higherfrequencytrading.chronicle.impl.IndexedChronicle;
 
@@ -14,21 +16,46 @@ public class ListWriterMaster {
 
 	public static void main(String[] args) throws Exception {
 		String name = TMP + "/chronicle";
+		File last = new File(name + ".testlist.last");
+		last.delete();
 		Chronicle chronicle = new IndexedChronicle(name);
 		DataStore dataStore = new DataStore(chronicle, ModelMode.MASTER);
-		List<String> underlying = new ArrayList<String>();
+		List<String> underlying = new ChunkedList<String>();
 		int maxMessageSize = 128;
-		ListWrapper<String> list = new ListWrapper<String>(dataStore,
-				"testlist", String.class, underlying, maxMessageSize);
+		SnapshotListWrapper<String> list = new SnapshotListWrapper<String>(dataStore, chronicle,
+				"testlist", String.class, underlying, maxMessageSize, new File(name + ".testlist.snapshot"));
 		dataStore.start();
 		for( int i = 0; i < 1000000; i++ ){ 
 			list.add(0, "hello"+i);
 			list.add(1, "world"+i);
 			list.remove(0);
 			list.remove(1); // does nothing until second loop and leaves one elements
+			if( i % 100000 == 0 ) {
+				list.snapshot(chronicle.size() - 1);
+			}
 		}
+		list.snapshot(chronicle.size() - 1);
+		publishLastIndex(last, chronicle.size() - 1);
 		System.out.println("list.size(): "+list.size());
 		System.out.println("list: "+list);
 		chronicle.close();
 	}
+
+	/**
+	 * Tells slaves the index of the last excerpt written so they know when
+	 * they have caught up. The file is renamed into place so that a slave
+	 * never reads it half written.
+	 */
+	static void publishLastIndex(File last, long index) throws IOException {
+		File tmp = new File(last.getPath() + ".tmp");
+		DataOutputStream out = new DataOutputStream(new FileOutputStream(tmp));
+		try {
+			out.writeLong(index);
+		} finally {
+			out.close();
+		}
+		if( !tmp.renameTo(last) ) {
+			throw new IOException("cannot rename "+tmp+" to "+last);
+		}
+	}
 }
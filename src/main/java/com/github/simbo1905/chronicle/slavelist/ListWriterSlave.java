@@ -1,13 +1,15 @@
 package com.github.simbo1905.chronicle.slavelist;
 
-import java.util.ArrayList;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import com.higherfrequencytrading.chronicle.Chronicle;
 import com.higherfrequencytrading.chronicle.datamodel.DataStore;
-import com.higherfrequencytrading.chronicle.datamodel.ListListener;
-import com.higherfrequencytrading.chronicle.datamodel.ListWrapper;
 import com.higherfrequencytrading.chronicle.datamodel.ModelMode;
 import com.higherfrequencytrading.chronicle.impl.IndexedChronicle;
 
@@ -19,59 +21,42 @@ public class ListWriterSlave {
 		System.out.println("file is "+name);
 		Chronicle chronicle = new IndexedChronicle(name);
 		DataStore dataStore = new DataStore(chronicle, ModelMode.READ_ONLY);
-		List<String> underlying = new ArrayList<String>();
+		List<String> underlying = new ChunkedList<String>();
 		int maxMessageSize = 128;
-		ListWrapper<String> list = new ListWrapper<String>(dataStore,
-				"testlist", String.class, underlying, maxMessageSize);
+		// starts from the snapshot which the master wrote and replays only the excerpts after it
+		final SnapshotListWrapper<String> list = new SnapshotListWrapper<String>(dataStore, chronicle,
+				"testlist", String.class, underlying, maxMessageSize, new File(name + ".testlist.snapshot"));
+		System.out.println("snapshot at "+list.snapshotIndex()+" of size "+list.size());
 		
 		final AtomicInteger addCounter = new AtomicInteger();
 		final AtomicInteger removeCounter = new AtomicInteger();
 		
-		list.addListener(new ListListener<String>() {
+		// counts each event's changes in one pass and publishes them once per event
+		list.addListener(new BatchingListListener<String>(new BatchListListener<String>() {
 			
 			@Override
-			public void eventStart(long eventId, String name) {
-			}
-			
-			@Override
-			public void eventEnd(boolean lastEvent) {
-			}
-			
-			@Override
-			public void remove(String e) {
-				removeCounter.getAndIncrement();
-			}
-			
-			@Override
-			public void add(String e) {
-				addCounter.getAndIncrement();
-			}
-			
-			@Override
-			public void set(int index, String oldElement, String element) {
-			}
-			
-			@Override
-			public void remove(int index, String element) {
-				removeCounter.getAndIncrement();
-				if( removeCounter.get() == 2*1000000-1){
-					System.out.println("notifying...");
-					synchronized (ListWriterSlave.class) {
-						ListWriterSlave.class.notifyAll();	
-					}					
+			public void onChanges(ListChanges<String> changes) {
+				final byte[] kinds = changes.kinds();
+				int adds = 0, removes = 0;
+				for( int change = 0; change < changes.size(); change++ ) {
+					if( kinds[change] == ListChanges.ADD ) {
+						adds++;
+					} else if( kinds[change] == ListChanges.REMOVE ) {
+						removes++;
+					}
 				}
+				addCounter.addAndGet(adds);
+				removeCounter.addAndGet(removes);
 			}
-			
-			@Override
-			public void add(int index, String element) {
-				addCounter.getAndIncrement();
-			}
-		});
+		}));
+		ReplicaProgress<String> progress = new ReplicaProgress<String>(chronicle, list.snapshotIndex());
+		list.addListener(progress);
 		System.out.println("starting...");
 		dataStore.start();
 		System.out.println("waiting...");
-		synchronized (ListWriterSlave.class) {
-			ListWriterSlave.class.wait(30000);	
+		final long lastIndex = awaitLastIndex(new File(name + ".testlist.last"), 30, TimeUnit.SECONDS);
+		if( lastIndex < 0 || !progress.awaitIndex(lastIndex, 30, TimeUnit.SECONDS) ) {
+			System.out.println("behind by "+progress.lagMessages()+" messages, "+progress.lagNanos()+"ns");
 		}
 		System.out.println("addCounter:"+addCounter.get());
 		System.out.println("removeCounter:"+removeCounter.get());
@@ -81,4 +66,25 @@ public class ListWriterSlave {
 		
 	}
 
+	/**
+	 * Waits for the master to publish the index of the last excerpt it wrote.
+	 *
+	 * @return the index or -1 if the timeout elapsed first
+	 */
+	static long awaitLastIndex(File last, long timeout, TimeUnit unit) throws IOException, InterruptedException {
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while( !last.exists() ) {
+			if( deadline - System.nanoTime() <= 0 ) {
+				return -1;
+			}
+			Thread.sleep(100);
+		}
+		DataInputStream in = new DataInputStream(new FileInputStream(last));
+		try {
+			return in.readLong();
+		} finally {
+			in.close();
+		}
+	}
+
 }
@@ -0,0 +1,152 @@
+package com.github.simbo1905.chronicle.slavelist;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.higherfrequencytrading.chronicle.Chronicle;
+import com.higherfrequencytrading.chronicle.datamodel.ListListener;
+
+/**
+ * Tracks the index of the last excerpt which a slave applied to a list so
+ * that other threads can block until a given index has been applied, such
+ * as the index a master returned for a write which must be read back, and
+ * can probe how far the slave is behind the chronicle.
+ *
+ * Add it as a listener of the list. The replay thread publishes the index
+ * at the end of each event and only unparks threads when some are waiting.
+ * A waiter spins briefly before it parks. The lag counts every excerpt in
+ * the chronicle so it assumes the chronicle holds only this list.
+ *
+ * @author simbo
+ */
+public class ReplicaProgress<E> implements ListListener<E> {
+
+	static final int SPINS = 100;
+
+	private final Chronicle chronicle;
+
+	private final Queue<Thread> waiters = new ConcurrentLinkedQueue<Thread>();
+
+	private volatile long applied;
+
+	/**
+	 * When the slave last applied the last excerpt in the chronicle.
+	 */
+	private volatile long caughtUpNanos;
+
+	private long eventId;
+
+	/**
+	 * @param chronicle the chronicle which the slave replays
+	 * @param applied the index already applied such as that of a snapshot
+	 * or -1 for none
+	 */
+	public ReplicaProgress(Chronicle chronicle, long applied) {
+		this.chronicle = chronicle;
+		this.applied = applied;
+		this.caughtUpNanos = System.nanoTime();
+	}
+
+	/**
+	 * @return the index of the last excerpt applied or -1 if none
+	 */
+	public long appliedIndex() {
+		return applied;
+	}
+
+	/**
+	 * @return how many excerpts in the chronicle are not yet applied
+	 */
+	public long lagMessages() {
+		return Math.max(0, chronicle.size() - 1 - applied);
+	}
+
+	/**
+	 * Chronicle 1.6 excerpts carry no time of writing so this is the time
+	 * since the slave was last seen to have applied the last excerpt in the
+	 * chronicle, either by the replay thread or by a probe, which bounds the
+	 * age of the oldest excerpt not yet applied. Probe regularly so that an
+	 * idle slave does not report the idle time as lag.
+	 *
+	 * @return zero if caught up otherwise the nanoseconds since it was
+	 */
+	public long lagNanos() {
+		final long caughtUp = caughtUpNanos;
+		if( lagMessages() == 0 ) {
+			caughtUpNanos = System.nanoTime();
+			return 0;
+		}
+		return System.nanoTime() - caughtUp;
+	}
+
+	/**
+	 * Blocks until the excerpt at the index has been applied.
+	 *
+	 * @return false if the timeout elapsed first
+	 */
+	public boolean awaitIndex(long index, long timeout, TimeUnit unit) throws InterruptedException {
+		for( int spin = 0; spin < SPINS; spin++ ) {
+			if( applied >= index ) {
+				return true;
+			}
+		}
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		final Thread thread = Thread.currentThread();
+		waiters.add(thread);
+		try {
+			while( applied < index ) {
+				if( Thread.interrupted() ) {
+					throw new InterruptedException();
+				}
+				final long remaining = deadline - System.nanoTime();
+				if( remaining <= 0 ) {
+					return false;
+				}
+				LockSupport.parkNanos(this, remaining);
+			}
+			return true;
+		} finally {
+			waiters.remove(thread);
+		}
+	}
+
+	@Override
+	public void eventStart(long eventId, String name) {
+		this.eventId = eventId;
+	}
+
+	@Override
+	public void eventEnd(boolean lastEvent) {
+		applied = eventId;
+		if( eventId >= chronicle.size() - 1 ) {
+			caughtUpNanos = System.nanoTime();
+		}
+		if( !waiters.isEmpty() ) {
+			for( Thread waiter : waiters ) {
+				LockSupport.unpark(waiter);
+			}
+		}
+	}
+
+	@Override
+	public void add(E element) {
+	}
+
+	@Override
+	public void remove(E element) {
+	}
+
+	@Override
+	public void add(int index, E element) {
+	}
+
+	@Override
+	public void remove(int index, E element) {
+	}
+
+	@Override
+	public void set(int index, E oldElement, E element) {
+	}
+}
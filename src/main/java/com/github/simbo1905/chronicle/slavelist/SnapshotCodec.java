@@ -0,0 +1,25 @@
+package com.github.simbo1905.chronicle.slavelist;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Writes and reads the elements of a {@link SnapshotListWrapper} to and from
+ * its snapshot file as compact binary. The wrapper writes a flag ahead of
+ * each element so a codec never sees a null.
+ *
+ * @author simbo
+ */
+public interface SnapshotCodec<E> {
+
+	/**
+	 * Writes the element at the current position of the output.
+	 */
+	void write(DataOutput out, E element) throws IOException;
+
+	/**
+	 * Reads an element written by {@link #write(DataOutput, Object)}.
+	 */
+	E read(DataInput in) throws IOException;
+}
@@ -0,0 +1,269 @@
+package com.github.simbo1905.chronicle.slavelist;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import com.higherfrequencytrading.chronicle.Chronicle;
+import com.higherfrequencytrading.chronicle.Excerpt;
+import com.higherfrequencytrading.chronicle.datamodel.DataStore;
+import com.higherfrequencytrading.chronicle.datamodel.ListWrapper;
+
+/**
+ * A {@link ListWrapper} which starts from a snapshot of its list rather than
+ * from an empty list. The snapshot file holds the index of the last excerpt
+ * it includes and the size followed by the elements in the compact binary
+ * of a {@link SnapshotCodec}, so when the data store replays the
+ * chronicle every excerpt of this list up to that index is skipped without
+ * being decoded or applied and only the suffix is replayed. Startup then
+ * costs the size of the list plus a walk of the index rather than the whole
+ * history of edits.
+ *
+ * A snapshot is written to a temporary file which is synced and renamed over
+ * the last one, so a reader always loads a complete snapshot. A slave takes
+ * one every so many replayed events on its reader thread, where the list is
+ * consistent with the last excerpt it applied, and a failure to write it is
+ * recorded rather than stopping the replay. A master takes one on its
+ * writing thread with the index of the last excerpt it wrote. A slave may
+ * load the snapshot written by its master. A snapshot of an index beyond
+ * the end of the chronicle, such as one left behind when the chronicle was
+ * replaced, is ignored and the list is replayed in full.
+ *
+ * @author simbo
+ */
+public class SnapshotListWrapper<E> extends ListWrapper<E> {
+
+	static final Charset UTF8 = Charset.forName("UTF-8");
+
+	public static final SnapshotCodec<String> STRING = new SnapshotCodec<String>() {
+		public void write(DataOutput out, String element) throws IOException {
+			final byte[] bytes = element.getBytes(UTF8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+
+		public String read(DataInput in) throws IOException {
+			final byte[] bytes = new byte[in.readInt()];
+			in.readFully(bytes);
+			return new String(bytes, UTF8);
+		}
+	};
+
+	public static final SnapshotCodec<Integer> INTEGER = new SnapshotCodec<Integer>() {
+		public void write(DataOutput out, Integer element) throws IOException {
+			out.writeInt(element);
+		}
+
+		public Integer read(DataInput in) throws IOException {
+			return in.readInt();
+		}
+	};
+
+	public static final SnapshotCodec<Long> LONG = new SnapshotCodec<Long>() {
+		public void write(DataOutput out, Long element) throws IOException {
+			out.writeLong(element);
+		}
+
+		public Long read(DataInput in) throws IOException {
+			return in.readLong();
+		}
+	};
+
+	public static final SnapshotCodec<Double> DOUBLE = new SnapshotCodec<Double>() {
+		public void write(DataOutput out, Double element) throws IOException {
+			out.writeDouble(element);
+		}
+
+		public Double read(DataInput in) throws IOException {
+			return in.readDouble();
+		}
+	};
+
+	private final List<E> underlying;
+
+	private final File file;
+
+	private final SnapshotCodec<E> codec;
+
+	/**
+	 * The index of the last excerpt in the loaded snapshot, -1 if none.
+	 */
+	private final long snapshotIndex;
+
+	private volatile long lastIndex;
+
+	private int every;
+
+	private int sinceSnapshot;
+
+	private volatile Exception snapshotFailure;
+
+	/**
+	 * Snapshots the elements with the built in codec of their class, one of
+	 * String, Integer, Long or Double.
+	 *
+	 * @see #SnapshotListWrapper(DataStore, Chronicle, String, Class, List, int, File, SnapshotCodec)
+	 */
+	public SnapshotListWrapper(DataStore dataStore, Chronicle chronicle, String name, Class<E> eClass,
+			List<E> underlying, int maxMessageSize, File file) throws IOException {
+		this(dataStore, chronicle, name, eClass, underlying, maxMessageSize, file, codecFor(eClass));
+	}
+
+	/**
+	 * Loads the snapshot file, if there is one, into the underlying list
+	 * which must be empty.
+	 *
+	 * @param chronicle the chronicle which the data store replays
+	 */
+	public SnapshotListWrapper(DataStore dataStore, Chronicle chronicle, String name, Class<E> eClass,
+			List<E> underlying, int maxMessageSize, File file, SnapshotCodec<E> codec) throws IOException {
+		super(dataStore, name, eClass, underlying, maxMessageSize);
+		this.underlying = underlying;
+		this.file = file;
+		this.codec = codec;
+		this.snapshotIndex = file.exists() ? load(chronicle.size()) : -1;
+		this.lastIndex = snapshotIndex;
+	}
+
+	/**
+	 * @throws IllegalArgumentException if there is no built in codec for the
+	 * class
+	 */
+	@SuppressWarnings("unchecked")
+	static <E> SnapshotCodec<E> codecFor(Class<E> eClass) {
+		if( eClass == String.class ) {
+			return (SnapshotCodec<E>) STRING;
+		} else if( eClass == Integer.class ) {
+			return (SnapshotCodec<E>) INTEGER;
+		} else if( eClass == Long.class ) {
+			return (SnapshotCodec<E>) LONG;
+		} else if( eClass == Double.class ) {
+			return (SnapshotCodec<E>) DOUBLE;
+		}
+		throw new IllegalArgumentException("no built in snapshot codec for " + eClass.getName());
+	}
+
+	/**
+	 * @return the index of the snapshot or -1 if it is not below the size
+	 * of the chronicle and so was not loaded
+	 */
+	private long load(long size) throws IOException {
+		final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			final long index = in.readLong();
+			if( index >= size ) {
+				return -1;
+			}
+			final int elements = in.readInt();
+			for( int element = 0; element < elements; element++ ) {
+				underlying.add(in.readBoolean() ? codec.read(in) : null);
+			}
+			return index;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Takes a snapshot on the reader thread after every so many events
+	 * which are replayed, or never if zero.
+	 */
+	public void snapshotEvery(int events) {
+		this.every = events;
+	}
+
+	/**
+	 * @return the index of the last excerpt in the snapshot loaded at
+	 * startup or -1 if there was none
+	 */
+	public long snapshotIndex() {
+		return snapshotIndex;
+	}
+
+	/**
+	 * @return the index of the last excerpt applied to the list
+	 */
+	public long lastIndex() {
+		return lastIndex;
+	}
+
+	/**
+	 * @return why the last snapshot taken on the reader thread could not be
+	 * written or null if it was
+	 */
+	public Exception snapshotFailure() {
+		return snapshotFailure;
+	}
+
+	@Override
+	public void onExcerpt(Excerpt excerpt) {
+		final long index = excerpt.index();
+		if( index <= snapshotIndex ) {
+			excerpt.finish();
+			return;
+		}
+		super.onExcerpt(excerpt);
+		lastIndex = index;
+		if( every > 0 && ++sinceSnapshot >= every ) {
+			sinceSnapshot = 0;
+			try {
+				snapshot();
+				snapshotFailure = null;
+			} catch (IOException e) {
+				snapshotFailure = e;
+			} catch (RuntimeException e) {
+				snapshotFailure = e;
+			}
+		}
+	}
+
+	/**
+	 * Writes the list as of the last excerpt it applied. Call on the thread
+	 * which replays the list.
+	 */
+	public void snapshot() throws IOException {
+		snapshot(lastIndex);
+	}
+
+	/**
+	 * Writes the list as of the excerpt at the index which a master passes
+	 * as the index of the last excerpt it has written.
+	 */
+	public void snapshot(long index) throws IOException {
+		final File temp = new File(file.getPath() + ".tmp");
+		final FileOutputStream fileOut = new FileOutputStream(temp);
+		final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
+		boolean written = false;
+		try {
+			out.writeLong(index);
+			out.writeInt(underlying.size());
+			for( E element : underlying ) {
+				out.writeBoolean(element != null);
+				if( element != null ) {
+					codec.write(out, element);
+				}
+			}
+			out.flush();
+			fileOut.getFD().sync();
+			written = true;
+		} finally {
+			out.close();
+			if( !written ) {
+				temp.delete();
+			}
+		}
+		if( !temp.renameTo(file) && !(file.delete() && temp.renameTo(file)) ) {
+			throw new IOException("could not replace snapshot " + file);
+		}
+		sinceSnapshot = 0;
+	}
+}
@@ -0,0 +1,155 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.higherfrequencytrading.chronicle.impl.IndexedChronicle;
+import com.higherfrequencytrading.chronicle.tools.ChronicleTools;
+
+public class BackpressureTests {
+
+	static final String TMP = System.getProperty("java.io.tmpdir");
+
+	private static String location = TMP+"/"+BackpressureTests.class.getSimpleName();
+
+	static {
+		ChronicleTools.deleteOnExit(location);
+	}
+
+	static final int PAYLOAD_SIZE = 16;
+
+	static final int CAPACITY = 4;
+
+	private IndexedChronicle chronicle;
+
+	@Before
+	public void setup() throws Exception {
+		chronicle = new IndexedChronicle(location);
+	}
+
+	private void deleteFiles(String name, String group) {
+		for( File file : new File[]{ new File(location + "." + name + "." + group + ".cursor"), 
+				new File(location + "." + name + ".counter") } ) {
+			file.delete();
+			file.deleteOnExit();
+		}
+	}
+
+	@Test
+	public void testFailWhenFullUntilGroupConsumes() throws Exception {
+		// given
+		deleteFiles("bounded1", "a");
+		Fifo<String> fifo = new Fifo<String>("bounded1", chronicle, String.class, PAYLOAD_SIZE, 2 << 3);
+		Fifo<String>.FifoHead head = fifo.head(Capacity.of(CAPACITY, Overflow.FAIL, "a"));
+		head.start();
+		for( int index = 0; index < CAPACITY; index++ ) {
+			head.add(Integer.toString(index));
+		}
+
+		// when
+		try {
+			head.add("full");
+			fail("expected the head to be full");
+		} catch (IllegalStateException e) {
+			// full
+		}
+
+		// then
+		assertThat(head.offer("full"), is(false));
+		assertThat(head.lag(), is((long) CAPACITY));
+
+		// when the group consumes
+		Fifo<String>.FifoTail tail = fifo.tail("a");
+		tail.start();
+		assertThat(tail.take(), is("0"));
+		assertThat(tail.take(), is("1"));
+
+		// then there is room again
+		assertThat(head.lag(), is((long) CAPACITY - 2));
+		assertThat(head.offer("4"), is(true));
+		assertThat(head.offer("5", 10, TimeUnit.MILLISECONDS), is(true));
+		assertThat(head.offer("full", 10, TimeUnit.MILLISECONDS), is(false));
+
+		tail.close();
+		head.close();
+	}
+
+	@Test
+	public void testBlockWhenFullUntilGroupConsumes() throws Exception {
+		// given
+		deleteFiles("bounded2", "a");
+		Fifo<String> fifo = new Fifo<String>("bounded2", chronicle, String.class, PAYLOAD_SIZE, 2 << 3);
+		final Fifo<String>.FifoHead head = fifo.head(Capacity.of(CAPACITY, Overflow.BLOCK, "a"));
+		head.start();
+		final int some = CAPACITY * 4;
+		final AtomicInteger added = new AtomicInteger();
+		Thread producer = new Thread(new Runnable() {
+			public void run() {
+				for( int index = 0; index < some; index++ ) {
+					head.add(Integer.toString(index));
+					added.incrementAndGet();
+				}
+			}
+		});
+
+		// when
+		producer.start();
+		Thread.sleep(200);
+
+		// then
+		assertThat(added.get(), is(CAPACITY));
+
+		// when the group consumes
+		Fifo<String>.FifoTail tail = fifo.tail("a");
+		tail.start();
+		for( int index = 0; index < some; index++ ) {
+			assertThat(tail.poll(10, TimeUnit.SECONDS), is(Integer.toString(index)));
+			assertTrue("lag " + head.lag(), head.lag() <= CAPACITY);
+		}
+
+		// then
+		producer.join(10000);
+		assertThat(added.get(), is(some));
+
+		tail.close();
+		head.close();
+	}
+
+	@Test
+	public void testDropOldestSkipsGroupPastDroppedMessages() throws Exception {
+		// given
+		deleteFiles("bounded3", "a");
+		Fifo<String> fifo = new Fifo<String>("bounded3", chronicle, String.class, PAYLOAD_SIZE, 2 << 3);
+		Fifo<String>.FifoHead head = fifo.head(Capacity.of(CAPACITY, Overflow.DROP_OLDEST, "a"));
+		head.start();
+
+		// when
+		for( int index = 0; index < CAPACITY + 3; index++ ) {
+			head.add(Integer.toString(index));
+		}
+
+		// then
+		assertThat(head.lag(), is((long) CAPACITY));
+		Fifo<String>.FifoTail tail = fifo.tail("a");
+		tail.start();
+		for( int index = 3; index < CAPACITY + 3; index++ ) {
+			assertThat(tail.poll(10, TimeUnit.SECONDS), is(Integer.toString(index)));
+		}
+		assertThat(tail.poll(100, TimeUnit.MILLISECONDS), is(nullValue()));
+		assertThat(tail.droppedMessages(), is(3L));
+		assertThat(head.lag(), is(0L));
+
+		tail.close();
+		head.close();
+	}
+}
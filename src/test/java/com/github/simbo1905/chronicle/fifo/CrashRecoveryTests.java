@@ -0,0 +1,237 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.higherfrequencytrading.chronicle.Chronicle;
+import com.higherfrequencytrading.chronicle.Excerpt;
+import com.higherfrequencytrading.chronicle.datamodel.DataStore;
+import com.higherfrequencytrading.chronicle.datamodel.ModelMode;
+import com.higherfrequencytrading.chronicle.impl.IndexedChronicle;
+import com.higherfrequencytrading.chronicle.tools.ChronicleTools;
+
+/**
+ * Injects the faults a crashed master leaves behind and checks that heads
+ * recover and tails never see a partial batch.
+ */
+public class CrashRecoveryTests {
+
+	static final String TMP = System.getProperty("java.io.tmpdir");
+
+	private static String location = TMP+"/"+CrashRecoveryTests.class.getSimpleName();
+
+	static {
+		ChronicleTools.deleteOnExit(location);
+	}
+
+	int payloadSize = -1;
+
+	private IndexedChronicle chronicle;
+
+	@Before
+	public void setup() throws Exception {
+		payloadSize = UUID.randomUUID().toString().getBytes("UTF8").length+1;
+		chronicle = new IndexedChronicle(location);
+	}
+
+	/**
+	 * Fails part way through marshalling the message it is told to, or 
+	 * after reading the message it is told to.
+	 */
+	static class FailingMarshaller extends ObjectMarshaller<String> {
+		String poison;
+		volatile String readPoison;
+		@Override
+		public void write(Excerpt excerpt, String message) {
+			if( message.equals(poison) ) {
+				excerpt.writeInt(0xDEAD);
+				throw new IllegalStateException("crash");
+			}
+			super.write(excerpt, message);
+		}
+		@Override
+		public String read(Excerpt excerpt, String reuse) {
+			final String message = super.read(excerpt, reuse);
+			if( message.equals(readPoison) ) {
+				throw new IllegalStateException("cannot read " + message);
+			}
+			return message;
+		}
+	}
+
+	/**
+	 * Writes a batch header straight to the chronicle as a crashed head
+	 * would have left it.
+	 */
+	static void writeRaw(Chronicle chronicle, String name, int count, boolean committed) {
+		DataStore store = new DataStore(chronicle, ModelMode.MASTER);
+		store.start();
+		Excerpt excerpt = store.startExcerpt(64, name);
+		final int start = excerpt.position();
+		excerpt.writeInt(count);
+		excerpt.writeInt(start + Fifo.HEADER_SIZE);
+		excerpt.writeLong(System.nanoTime());
+		if( committed ) {
+			excerpt.writeInt(Fifo.COMMIT_MARKER);
+		}
+		excerpt.finish();
+	}
+
+	@Test
+	public void testExceptionBeforeFinishLeavesNothingBehind() throws Exception {
+		// given
+		FailingMarshaller marshaller = new FailingMarshaller();
+		marshaller.poison = "poison";
+		Fifo<String> fifo = new Fifo<String>("crash1", chronicle, String.class, payloadSize, 2 << 2, marshaller);
+		Fifo<String>.FifoHead head = fifo.head();
+		head.start();
+
+		// when
+		head.add("one");
+		try {
+			head.add("poison");
+			fail("expected the marshaller to fail");
+		} catch (IllegalStateException e) {
+			// the crash
+		}
+		head.add("two");
+
+		// then
+		Fifo<String>.FifoTail tail = fifo.tail();
+		tail.start();
+		assertThat(tail.take(), is("one"));
+		assertThat(tail.take(), is("two"));
+		assertThat(tail.poll(100, TimeUnit.MILLISECONDS), is(nullValue()));
+		assertThat(tail.tornExcerpts(), is(0L));
+		tail.close();
+		head.close();
+	}
+
+	@Test
+	public void testFailedReadIsNotPublished() throws Exception {
+		// given
+		for( String suffix : new String[]{ ".crash-read.g.cursor", ".crash-read.group.g.stats" } ) {
+			File file = new File(location + suffix);
+			file.delete();
+			file.deleteOnExit();
+		}
+		FailingMarshaller marshaller = new FailingMarshaller();
+		marshaller.readPoison = "bad";
+		Fifo<String> fifo = new Fifo<String>("crash-read", chronicle, String.class, payloadSize, 2 << 2, marshaller);
+		Fifo<String>.FifoHead head = fifo.head();
+		head.start();
+		head.add("one");
+		head.add("bad");
+		head.add("two");
+
+		// when
+		Fifo<String>.FifoTail tail = fifo.tail("g");
+		tail.start();
+
+		// then the tail fails after the last message it was handed
+		assertThat(tail.take(), is("one"));
+		try {
+			tail.take();
+			fail("expected the failed read to be reported");
+		} catch (IllegalStateException e) {
+			assertThat(e.getCause().getMessage(), is("cannot read bad"));
+		}
+		assertThat(tail.failure().getMessage(), is("cannot read bad"));
+		tail.close();
+
+		// and the group resumes at the message it never received
+		marshaller.readPoison = null;
+		tail = fifo.tail("g");
+		tail.start();
+		assertThat(tail.take(), is("bad"));
+		assertThat(tail.take(), is("two"));
+		tail.close();
+		head.close();
+	}
+
+	@Test
+	public void testTornExcerptIsFoundOnRestartAndSkipped() throws Exception {
+		// given
+		Fifo<String> fifo = new Fifo<String>("crash2", chronicle, String.class, payloadSize, 2 << 2);
+		Fifo<String>.FifoHead head = fifo.head();
+		head.start();
+		head.add("one");
+		writeRaw(chronicle, "crash2", 1, false);
+		head.close();
+
+		// when
+		Fifo<String>.FifoHead restarted = fifo.head();
+		restarted.start();
+		restarted.add("two");
+
+		// then
+		assertThat(restarted.tornExcerpts(), is(1));
+		Fifo<String>.FifoTail tail = fifo.tail();
+		tail.start();
+		assertThat(tail.take(), is("one"));
+		assertThat(tail.take(), is("two"));
+		assertThat(tail.tornExcerpts(), is(1L));
+		tail.close();
+		restarted.close();
+	}
+
+	@Test
+	public void testSealedSegmentIsNotAppendedTo() throws Exception {
+		// given a head which died after sealing a segment but before opening the next
+		Segments segments = new Segments(location+"-segments");
+		for( int segment = segments.first(); segment >= 0 && segment <= segments.last(); segment++ ) {
+			segments.delete(segment);
+		}
+		Fifo<String> fifo = new Fifo<String>("crash3", segments, RollPolicy.bySize(Long.MAX_VALUE), String.class, payloadSize, 2 << 2);
+		Fifo<String>.FifoHead head = fifo.head();
+		head.start();
+		head.add("one");
+		writeRaw(segments.open(0), "crash3", Fifo.ROLL_MARKER, true);
+		head.close();
+
+		// when
+		Fifo<String>.FifoHead restarted = fifo.head();
+		restarted.start();
+		restarted.add("two");
+
+		// then
+		assertThat(segments.last(), is(1));
+		Fifo<String>.FifoTail tail = fifo.tail();
+		tail.start();
+		assertThat(tail.take(), is("one"));
+		assertThat(tail.poll(10, TimeUnit.SECONDS), is("two"));
+		tail.close();
+		restarted.close();
+	}
+
+	@Test
+	public void testTrailerInsideHeaderIsTorn() throws Exception {
+		// given a header whose trailer offset points at its own stamp which holds a commit marker
+		DataStore store = new DataStore(chronicle, ModelMode.MASTER);
+		store.start();
+		Excerpt written = store.startExcerpt(64, "crash4");
+		final int start = written.position();
+		written.writeInt(1);
+		written.writeInt(start + Fifo.COUNT_SIZE + 4);
+		written.writeInt(Fifo.COMMIT_MARKER);
+		written.writeInt(0);
+		written.finish();
+
+		// when
+		Excerpt read = chronicle.createExcerpt();
+		read.index(chronicle.size() - 1);
+		read.readEnum(String.class);
+
+		// then
+		assertThat(Fifo.readHeader(read, null), is(Fifo.TORN));
+	}
+}
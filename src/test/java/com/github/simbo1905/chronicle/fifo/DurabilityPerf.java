@@ -0,0 +1,60 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import java.util.concurrent.TimeUnit;
+
+import com.higherfrequencytrading.chronicle.impl.IndexedChronicle;
+import com.higherfrequencytrading.chronicle.tools.ChronicleTools;
+
+/**
+ * Reports the add latency percentiles of each {@link Durability} so a policy 
+ * can be chosen per queue. Run it on the disk the chronicle will live on as 
+ * the cost of a force is the cost of that device. 
+ */
+public final class DurabilityPerf
+{
+    static final String TMP = System.getProperty("java.io.tmpdir");
+
+    public static final int REPETITIONS = 100 * 1000;
+
+    private static final String GUID = "3F2504E0-4F89-11D3-9A0C-0305E82C3301";
+
+    public static void main(final String[] arg) throws Exception
+    {
+        final int payloadSize = GUID.getBytes("UTF8").length + 1;
+        final Durability[] durabilities =
+        {
+            Durability.ASYNC,
+            Durability.every(100, TimeUnit.MICROSECONDS),
+            Durability.every(10, TimeUnit.MILLISECONDS),
+            Durability.everyMessages(1000),
+            Durability.everyMessages(100),
+            Durability.SYNC,
+        };
+
+        for (int run = 0; run < 3; run++)
+        {
+            for (int policy = 0; policy < durabilities.length; policy++)
+            {
+                final Durability durability = durabilities[policy];
+                final String location = TMP + "/" + DurabilityPerf.class.getSimpleName() + "-" + policy + "-" + run;
+                ChronicleTools.deleteOnExit(location);
+                final IndexedChronicle chronicle = new IndexedChronicle(location);
+                final Fifo<String> fifo = new Fifo<String>("durability" + policy, chronicle, String.class, payloadSize, 2 << 14);
+
+                final Fifo<String>.FifoHead head = fifo.head(durability);
+                head.start();
+                for (int i = 0; i < REPETITIONS; i++)
+                {
+                    head.add(GUID);
+                }
+
+                System.out.format("%d %s\t%s\n", run, durability, head.addLatency());
+
+                head.close();
+                chronicle.close();
+                System.gc();
+                Thread.sleep(1000);
+            }
+        }
+    }
+}
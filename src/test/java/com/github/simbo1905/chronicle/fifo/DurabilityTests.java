@@ -0,0 +1,101 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.higherfrequencytrading.chronicle.impl.IndexedChronicle;
+import com.higherfrequencytrading.chronicle.tools.ChronicleTools;
+
+public class DurabilityTests {
+
+	static final String TMP = System.getProperty("java.io.tmpdir");
+
+	private static String location = TMP+"/"+DurabilityTests.class.getSimpleName();
+
+	static {
+		ChronicleTools.deleteOnExit(location);
+	}
+
+	int payloadSize = -1;
+
+	int some = -1;
+
+	private IndexedChronicle chronicle;
+
+	@Before
+	public void setup() throws Exception {
+		payloadSize = UUID.randomUUID().toString().getBytes("UTF8").length+1;
+		some = 2 << 6;
+		chronicle = new IndexedChronicle(location);
+	}
+
+	@Test
+	public void testEveryDurability() throws Exception {
+		final Durability[] durabilities = { Durability.ASYNC, Durability.SYNC,
+				Durability.everyMessages(10), Durability.every(100, TimeUnit.MICROSECONDS) };
+		for( int policy = 0; policy < durabilities.length; policy++ ) {
+			// given
+			final Durability durability = durabilities[policy];
+			Fifo<String> fifo = new Fifo<String>("durable"+policy, chronicle, String.class, payloadSize, 2 << 4);
+			Fifo<String>.FifoHead head = fifo.head(durability);
+			head.start();
+			Fifo<String>.FifoTail tail = fifo.tail();
+			tail.start();
+
+			// when
+			for( int index = 0; index < some; index++ ) {
+				head.add(Integer.toString(index));
+			}
+
+			// then
+			for( int index = 0; index < some; index++ ) {
+				assertThat(durability.toString(), tail.take(), is(Integer.toString(index)));
+			}
+			assertThat(head.addLatency().count(), is((long) some));
+
+			tail.close();
+			head.close();
+		}
+	}
+
+	@Test
+	public void testFailedPeriodicForceFailsTheNextAddAndClose() throws Exception {
+		// given
+		Fifo<String> fifo = new Fifo<String>("durable-failing", chronicle, String.class, payloadSize, 2 << 4);
+		Fifo<String>.FifoHead head = fifo.head(Durability.every(1, TimeUnit.MILLISECONDS));
+		head.start();
+		head.add("one");
+
+		// when the disk goes away under the flusher
+		head.files.data.close();
+		head.add("two");
+
+		// then
+		final long deadline = System.currentTimeMillis() + 10000;
+		IllegalStateException failed = null;
+		while( failed == null && System.currentTimeMillis() < deadline ) {
+			try {
+				head.add("three");
+				Thread.sleep(1);
+			} catch (IllegalStateException e) {
+				failed = e;
+			}
+		}
+		assertThat(failed != null, is(true));
+		assertThat(failed.getMessage(), is("periodic force of fifo durable-failing failed"));
+		try {
+			head.close();
+			fail("expected close to report the failed force");
+		} catch (IOException e) {
+			assertThat(e.getCause() instanceof IllegalStateException, is(true));
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.higherfrequencytrading.chronicle.impl.IndexedChronicle;
+import com.higherfrequencytrading.chronicle.tools.ChronicleTools;
+
+public class FifoBatchTests {
+	
+	static final String TMP = System.getProperty("java.io.tmpdir");
+	
+	private static String location = TMP+"/"+FifoBatchTests.class.getSimpleName();
+	
+	static { 
+		ChronicleTools.deleteOnExit(location);
+	}
+	
+	int payloadSize = -1;
+	int some = -1;
+
+	private IndexedChronicle chronicle;	
+	
+	@Before
+	public void setup() throws Exception {
+		payloadSize = UUID.randomUUID().toString().getBytes("UTF8").length+1;
+		some = 2 << 6;
+		chronicle = new IndexedChronicle(location);
+	}
+
+	@Test
+	public void testAddAllMixedWithAdd() throws Exception {
+		// given
+		Fifo<String> fifo = new Fifo<String>("batch1", chronicle, String.class, payloadSize, 2 << 4);
+		Fifo<String>.FifoHead head = fifo.head();
+		head.start();
+		Fifo<String>.FifoTail tail = fifo.tail();
+		tail.start();
+		
+		List<String> addedToHead = new ArrayList<String>();
+		List<String> batch = new ArrayList<String>();
+		
+		// when
+		for( int index = 0; index < some; index++ ){
+			String guid = UUID.randomUUID().toString();
+			if( index % 3 == 0 ) {
+				head.add(guid);
+				addedToHead.add(guid);
+			} else {
+				batch.add(guid);
+				if( batch.size() == 7 ) {
+					head.addAll(batch);
+					addedToHead.addAll(batch);
+					batch.clear();
+				}
+			}
+		}
+		head.addAll(batch);
+		addedToHead.addAll(batch);
+		
+		// then
+		for( int index = 0; index < some; index++ ){
+			assertThat(tail.remove(), is(addedToHead.get(index)));
+		}
+		
+		head.close();
+		tail.close();
+	}
+	
+	@Test
+	public void testEmptyBatchWritesNothing() throws Exception {
+		Fifo<String> fifo = new Fifo<String>("batch2", chronicle, String.class, payloadSize, 2 << 4);
+		Fifo<String>.FifoHead head = fifo.head();
+		head.start();
+		long size = chronicle.size();
+		
+		head.addAll(new ArrayList<String>());
+		
+		assertThat(chronicle.size(), is(size));
+		head.close();
+	}
+}
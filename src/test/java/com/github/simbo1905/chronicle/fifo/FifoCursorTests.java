@@ -0,0 +1,143 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.higherfrequencytrading.chronicle.impl.IndexedChronicle;
+import com.higherfrequencytrading.chronicle.tools.ChronicleTools;
+
+public class FifoCursorTests {
+
+	static final String TMP = System.getProperty("java.io.tmpdir");
+
+	private static String location = TMP+"/"+FifoCursorTests.class.getSimpleName();
+
+	static {
+		ChronicleTools.deleteOnExit(location);
+	}
+
+	int payloadSize = -1;
+
+	private IndexedChronicle chronicle;
+
+	@Before
+	public void setup() throws Exception {
+		payloadSize = UUID.randomUUID().toString().getBytes("UTF8").length+1;
+		chronicle = new IndexedChronicle(location);
+	}
+
+	private File cursorFile(String name, String group) {
+		File file = new File(location + "." + name + "." + group + ".cursor");
+		file.delete();
+		file.deleteOnExit();
+		return file;
+	}
+
+	@Test
+	public void testGroupsResumeIndependently() throws Exception {
+		// given
+		cursorFile("groups", "a");
+		cursorFile("groups", "b");
+		Fifo<String> fifo = new Fifo<String>("groups", chronicle, String.class, payloadSize, 2 << 3);
+		Fifo<String>.FifoHead head = fifo.head();
+		head.start();
+		List<String> expected = new ArrayList<String>();
+		for( int index = 0; index < 7; index++ ) {
+			expected.add(UUID.randomUUID().toString());
+		}
+		head.addAll(expected.subList(0, 5));
+		head.add(expected.get(5));
+		head.add(expected.get(6));
+
+		// when group a stops part way through the first batch
+		Fifo<String>.FifoTail a = fifo.tail("a");
+		a.start();
+		for( int index = 0; index < 3; index++ ) {
+			assertThat(a.take(), is(expected.get(index)));
+		}
+		a.close();
+
+		// and group b reads everything
+		Fifo<String>.FifoTail b = fifo.tail("b");
+		b.start();
+		for( int index = 0; index < 7; index++ ) {
+			assertThat(b.take(), is(expected.get(index)));
+		}
+		b.close();
+
+		// then a restarted group a resumes mid batch
+		a = fifo.tail("a");
+		a.start();
+		for( int index = 3; index < 7; index++ ) {
+			assertThat(a.take(), is(expected.get(index)));
+		}
+		assertThat(a.poll(100, TimeUnit.MILLISECONDS), is(nullValue()));
+		a.close();
+
+		// and a restarted group b has nothing left
+		b = fifo.tail("b");
+		b.start();
+		assertThat(b.poll(100, TimeUnit.MILLISECONDS), is(nullValue()));
+		b.close();
+
+		head.close();
+	}
+
+	@Test
+	public void testTornCommitKeepsPreviousPosition() throws Exception {
+		// given
+		File file = cursorFile("torn", "a");
+		FifoCursor cursor = new FifoCursor(file);
+		assertThat(cursor.index(), is(-1L));
+		cursor.commit(0, 3, 0);
+		cursor.commit(0, 4, 1);
+
+		// when the stamp of the last commit never made it to disk
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.seek(0);
+			raf.writeLong(0);
+		} finally {
+			raf.close();
+		}
+
+		// then the previous commit is read back
+		FifoCursor reopened = new FifoCursor(file);
+		assertThat(reopened.index(), is(3L));
+		assertThat(reopened.consumed(), is(1));
+	}
+
+	@Test
+	public void testCommitInterruptedBeforeItsCheckKeepsPreviousPosition() throws Exception {
+		// given
+		File file = cursorFile("unchecked", "a");
+		FifoCursor cursor = new FifoCursor(file);
+		cursor.commit(0, 3, 0);
+		cursor.commit(0, 4, 1);
+
+		// when the fields of the last commit were written but not the stamp after them
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.seek(FifoCursor.SLOT_SIZE - 8);
+			raf.writeLong(0);
+		} finally {
+			raf.close();
+		}
+
+		// then the previous commit is read back
+		FifoCursor reopened = new FifoCursor(file);
+		assertThat(reopened.index(), is(3L));
+		assertThat(reopened.consumed(), is(1));
+	}
+}
@@ -0,0 +1,86 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.higherfrequencytrading.chronicle.impl.IndexedChronicle;
+import com.higherfrequencytrading.chronicle.tools.ChronicleTools;
+
+public class FifoPollTests {
+	
+	static final String TMP = System.getProperty("java.io.tmpdir");
+	
+	private static String location = TMP+"/"+FifoPollTests.class.getSimpleName();
+	
+	static { 
+		ChronicleTools.deleteOnExit(location);
+	}
+	
+	int payloadSize = -1;
+
+	private IndexedChronicle chronicle;	
+	
+	@Before
+	public void setup() throws Exception {
+		payloadSize = UUID.randomUUID().toString().getBytes("UTF8").length+1;
+		chronicle = new IndexedChronicle(location);
+	}
+
+	@Test
+	public void testEveryWaitPolicy() throws Exception {
+		for( WaitPolicy waitPolicy : WaitPolicy.values() ) {
+			// given
+			Fifo<String> fifo = new Fifo<String>("poll"+waitPolicy, chronicle, String.class, payloadSize, 2 << 2);
+			Fifo<String>.FifoHead head = fifo.head();
+			head.start();
+			Fifo<String>.FifoTail tail = fifo.tail(waitPolicy);
+			tail.start();
+			
+			// when empty
+			long start = System.nanoTime();
+			String none = tail.poll(50, TimeUnit.MILLISECONDS);
+			long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			
+			// then
+			assertThat(waitPolicy.toString(), none, is(nullValue()));
+			assertTrue(waitPolicy+" waited "+waitedMs, waitedMs >= 40);
+			assertThat(tail.poll(), is(nullValue()));
+			
+			// when added
+			String first = UUID.randomUUID().toString();
+			String second = UUID.randomUUID().toString();
+			head.add(first);
+			head.add(second);
+			
+			// then
+			assertThat(tail.take(), is(first));
+			assertThat(tail.poll(10, TimeUnit.SECONDS), is(second));
+			
+			head.close();
+			tail.close();
+		}
+	}
+	
+	@Test(expected=UnsupportedOperationException.class)
+	public void testHandlerTailCannotBePolled() throws Exception {
+		Fifo<String> fifo = new Fifo<String>("pollhandler", chronicle, String.class, payloadSize, 2 << 2);
+		Fifo<String>.FifoTail tail = fifo.tail(new FifoHandler<String>() {
+			@Override
+			public void onMessage(String message, long sequence, boolean endOfBatch) throws Exception {
+			}
+		});
+		try {
+			tail.poll();
+		} finally {
+			tail.close();
+		}
+	}
+}
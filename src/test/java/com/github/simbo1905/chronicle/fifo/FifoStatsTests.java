@@ -0,0 +1,144 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.higherfrequencytrading.chronicle.impl.IndexedChronicle;
+import com.higherfrequencytrading.chronicle.tools.ChronicleTools;
+
+public class FifoStatsTests {
+
+	static final String TMP = System.getProperty("java.io.tmpdir");
+
+	private static String location = TMP+"/"+FifoStatsTests.class.getSimpleName();
+
+	static {
+		ChronicleTools.deleteOnExit(location);
+	}
+
+	static final int PAYLOAD_SIZE = 16;
+
+	private IndexedChronicle chronicle;
+
+	@Before
+	public void setup() throws Exception {
+		chronicle = new IndexedChronicle(location);
+	}
+
+	private void deleteFiles(String name, String group) {
+		for( String suffix : new String[]{ group + ".cursor", "group." + group + ".stats", "head.stats" } ) {
+			File file = new File(location + "." + name + "." + suffix);
+			file.delete();
+			file.deleteOnExit();
+		}
+	}
+
+	@Test
+	public void testStatsAreReadableThroughTheirFiles() throws Exception {
+		// given
+		deleteFiles("stats1", "a");
+		Fifo<String> fifo = new Fifo<String>("stats1", chronicle, String.class, PAYLOAD_SIZE, 2 << 3);
+		Fifo<String>.FifoHead head = fifo.head();
+		head.start();
+		Fifo<String>.FifoTail tail = fifo.tail("a");
+		tail.start();
+
+		// when
+		head.add("one");
+		head.addAll(Arrays.asList("two", "three"));
+		for( int index = 0; index < 3; index++ ) {
+			tail.poll(10, TimeUnit.SECONDS);
+		}
+
+		// then the files read the same as the live counters
+		FifoStats headStats = fifo.stats();
+		assertThat(headStats.messages(), is(3L));
+		assertThat(headStats.batches(), is(2L));
+		assertThat(headStats.latency().count(), is(2L));
+		FifoStats tailStats = fifo.stats("a");
+		assertThat(tailStats.messages(), is(3L));
+		assertThat(tailStats.index(), is(tail.stats().index()));
+		assertThat(tailStats.ordinal(), is(1));
+		assertThat(tailStats.latency().count(), is(3L));
+		assertTrue(tailStats.toString(), tailStats.latency().max() > 0);
+
+		tail.close();
+		head.close();
+	}
+
+	@Test
+	public void testGroupNamedHeadKeepsItsOwnStats() throws Exception {
+		// given
+		deleteFiles("stats3", "head");
+		Fifo<String> fifo = new Fifo<String>("stats3", chronicle, String.class, PAYLOAD_SIZE, 2 << 3);
+		Fifo<String>.FifoHead head = fifo.head();
+		head.start();
+		Fifo<String>.FifoTail tail = fifo.tail("head");
+		tail.start();
+
+		// when
+		head.addAll(Arrays.asList("one", "two"));
+		for( int index = 0; index < 2; index++ ) {
+			tail.poll(10, TimeUnit.SECONDS);
+		}
+
+		// then the group's stats do not overwrite the head's
+		assertThat(fifo.stats().batches(), is(1L));
+		assertThat(fifo.stats().latency().count(), is(1L));
+		assertThat(fifo.stats("head").latency().count(), is(2L));
+
+		tail.close();
+		head.close();
+	}
+
+	@Test
+	public void testRingOccupancyIsSampledPerBatch() throws Exception {
+		// given
+		deleteFiles("stats2", "a");
+		Fifo<String> fifo = new Fifo<String>("stats2", chronicle, String.class, PAYLOAD_SIZE, 2 << 3);
+		Fifo<String>.FifoHead head = fifo.head();
+		head.start();
+		Fifo<String>.FifoTail tail = fifo.tail();
+		tail.start();
+
+		// when nothing is consumed
+		head.addAll(Arrays.asList("one", "two", "three"));
+		head.add("four");
+		long deadline = System.currentTimeMillis() + 10000;
+		while( tail.stats().ringOccupancy() < 3 && System.currentTimeMillis() < deadline ) {
+			Thread.sleep(10);
+		}
+
+		// then the second batch found the first still in the ring
+		assertThat(tail.stats().ringOccupancy(), is(3L));
+		assertThat(tail.stats().messages(), is(0L));
+
+		tail.close();
+		head.close();
+	}
+
+	@Test
+	public void testLatencyIsMeasuredAgainstTheWallClock() throws Exception {
+		// given
+		FifoStats stats = new FifoStats();
+		long wallClock = FifoStats.wallClockNanos();
+
+		// when a head in another process stamped a batch a second ago and one whose clock is ahead
+		stats.consumed(wallClock - TimeUnit.SECONDS.toNanos(1));
+		stats.consumed(wallClock + TimeUnit.SECONDS.toNanos(1));
+
+		// then
+		assertTrue(Math.abs(wallClock / 1000000 - System.currentTimeMillis()) < 1000);
+		assertThat(stats.latency().count(), is(2L));
+		assertTrue(stats.toString(), stats.latency().max() >= TimeUnit.SECONDS.toNanos(1));
+		assertTrue(stats.toString(), stats.latency().max() < TimeUnit.SECONDS.toNanos(2));
+	}
+}
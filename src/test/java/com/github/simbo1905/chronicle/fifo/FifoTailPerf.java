@@ -0,0 +1,169 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+
+import com.higherfrequencytrading.chronicle.impl.IndexedChronicle;
+import com.higherfrequencytrading.chronicle.tools.ChronicleTools;
+
+/**
+ * Compares the ways of draining a {@link Fifo.FifoTail}. The "ArrayBlockingQueue" 
+ * case reproduces the original tail which copied every message off the ring 
+ * into a fair queue that was polled with {@link Thread#yield()}. 
+ * 
+ * The journal holds far more messages than the ring so each tail is started 
+ * on its own thread, as starting it replays the journal into the ring which 
+ * blocks until the drain makes room. 
+ */
+public final class FifoTailPerf
+{
+    static final String TMP = System.getProperty("java.io.tmpdir");
+
+    public static final int REPETITIONS = 1 * 1000 * 1000;
+
+    private static final String GUID = "3F2504E0-4F89-11D3-9A0C-0305E82C3301";
+
+    public static void main(final String[] arg) throws Exception
+    {
+        final int payloadSize = GUID.getBytes("UTF8").length + 1;
+
+        for (int run = 0; run < 5; run++)
+        {
+            for (final TailCase testCase : testCases)
+            {
+                final String location = TMP + "/" + FifoTailPerf.class.getSimpleName() + "-" + testCase.name + run;
+                ChronicleTools.deleteOnExit(location);
+                final IndexedChronicle chronicle = new IndexedChronicle(location);
+                final Fifo<String> fifo = new Fifo<String>(testCase.name, chronicle, String.class, payloadSize, 2 << 14);
+
+                final Fifo<String>.FifoHead head = fifo.head();
+                head.start();
+                for (int i = 0; i < REPETITIONS; i++)
+                {
+                    head.add(GUID);
+                }
+
+                final long nanos = testCase.drain(fifo, REPETITIONS);
+
+                System.out.format("%d %s\tremove=%,dns per message, %,d per second\n",
+                                  run, testCase.name, nanos / REPETITIONS,
+                                  (REPETITIONS * 1000L * 1000L * 1000L) / nanos);
+
+                head.close();
+                chronicle.close();
+                System.gc();
+                Thread.sleep(1000);
+            }
+        }
+    }
+
+    private static final TailCase[] testCases =
+    {
+        new TailCase("ArrayBlockingQueue")
+        {
+            long drain(final Fifo<String> fifo, final int count) throws Exception
+            {
+                final ArrayBlockingQueue<String> buffer = new ArrayBlockingQueue<String>(2 << 14, true);
+                final Fifo<String>.FifoTail tail = fifo.tail(new FifoHandler<String>()
+                {
+                    public void onMessage(String message, long sequence, boolean endOfBatch) throws Exception
+                    {
+                        buffer.put(message);
+                    }
+                });
+                final long start = System.nanoTime();
+                start(tail);
+                for (int i = 0; i < count; i++)
+                {
+                    String value = buffer.poll();
+                    while (value == null)
+                    {
+                        Thread.yield();
+                        value = buffer.poll();
+                    }
+                    check(value);
+                }
+                final long nanos = System.nanoTime() - start;
+                tail.close();
+                return nanos;
+            }
+        },
+
+        new TailCase("remove")
+        {
+            long drain(final Fifo<String> fifo, final int count) throws Exception
+            {
+                final Fifo<String>.FifoTail tail = fifo.tail();
+                final long start = System.nanoTime();
+                start(tail);
+                for (int i = 0; i < count; i++)
+                {
+                    check(tail.remove());
+                }
+                final long nanos = System.nanoTime() - start;
+                tail.close();
+                return nanos;
+            }
+        },
+
+        new TailCase("FifoHandler")
+        {
+            long drain(final Fifo<String> fifo, final int count) throws Exception
+            {
+                final CountDownLatch done = new CountDownLatch(1);
+                final Fifo<String>.FifoTail tail = fifo.tail(new FifoHandler<String>()
+                {
+                    int received = 0;
+
+                    public void onMessage(String message, long sequence, boolean endOfBatch) throws Exception
+                    {
+                        check(message);
+                        if (++received == count)
+                        {
+                            done.countDown();
+                        }
+                    }
+                });
+                final long start = System.nanoTime();
+                start(tail);
+                done.await();
+                final long nanos = System.nanoTime() - start;
+                tail.close();
+                return nanos;
+            }
+        },
+    };
+
+    static void start(final Fifo<String>.FifoTail tail)
+    {
+        final Thread reader = new Thread("reader")
+        {
+            public void run()
+            {
+                tail.start();
+            }
+        };
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    static void check(final String value)
+    {
+        if (!GUID.equals(value))
+        {
+            throw new IllegalStateException(String.format("%s != %s", value, GUID));
+        }
+    }
+
+    abstract static class TailCase
+    {
+        final String name;
+
+        TailCase(final String name)
+        {
+            this.name = name;
+        }
+
+        abstract long drain(Fifo<String> fifo, int count) throws Exception;
+    }
+}
@@ -98,6 +98,17 @@ public class FifoTests {
 		// mock the chronicle stuff
 		final Excerpt excerpt = Mockito.mock(Excerpt.class);
 		final AtomicInteger counter = new AtomicInteger();
+		final int trailer = Fifo.HEADER_SIZE + Fifo.LENGTH_SIZE + payloadSize;
+		final int[] ints = { 1, trailer, payloadSize }; // batches of one: count, trailer offset, message length
+		final AtomicInteger read = new AtomicInteger();
+		when(excerpt.readInt()).thenAnswer(new Answer<Integer>() {
+			@Override
+			public Integer answer(InvocationOnMock invocation) throws Throwable {
+				return ints[read.getAndIncrement() % ints.length];
+			}
+		});
+		when(excerpt.capacity()).thenReturn(1 << 10);
+		when(excerpt.readInt(trailer)).thenReturn(Fifo.COMMIT_MARKER); // committed trailer
 		when(excerpt.readObject()).thenAnswer(new Answer<String>() {
 			@Override
 			public String answer(InvocationOnMock invocation) throws Throwable {
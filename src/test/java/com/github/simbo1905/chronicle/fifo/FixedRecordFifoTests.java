@@ -0,0 +1,146 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.higherfrequencytrading.chronicle.impl.IndexedChronicle;
+import com.higherfrequencytrading.chronicle.tools.ChronicleTools;
+
+public class FixedRecordFifoTests {
+
+	static final String TMP = System.getProperty("java.io.tmpdir");
+
+	private static String location = TMP+"/"+FixedRecordFifoTests.class.getSimpleName();
+
+	static {
+		ChronicleTools.deleteOnExit(location);
+	}
+
+	static final int RECORD = 12;
+
+	private IndexedChronicle chronicle;
+
+	@Before
+	public void setup() throws Exception {
+		chronicle = new IndexedChronicle(location);
+	}
+
+	private static byte[] records(int count) {
+		byte[] records = new byte[count * RECORD];
+		UnsafeMemory memory = new UnsafeMemory(records, true);
+		for( int index = 0; index < count; index++ ) {
+			memory.putLong(index);
+			memory.putInt(-index);
+		}
+		return records;
+	}
+
+	@Test
+	public void testTakeAndPoll() throws Exception {
+		// given
+		FixedRecordFifo fifo = new FixedRecordFifo("record1", chronicle, RECORD, 2 << 3);
+		FixedRecordFifo.RecordHead head = fifo.head();
+		head.start();
+		FixedRecordFifo.RecordTail tail = fifo.recordTail();
+		tail.start();
+		byte[] records = records(4);
+		byte[] into = new byte[4 * RECORD];
+
+		// when empty
+		assertThat(tail.poll(into, 0), is(false));
+		assertThat(tail.poll(into, 0, 20, TimeUnit.MILLISECONDS), is(false));
+
+		// when added
+		head.add(records, 0);
+		head.addAll(records, RECORD, 3);
+
+		// then
+		tail.take(into, 0);
+		for( int index = 1; index < 4; index++ ) {
+			assertThat(tail.poll(into, index * RECORD, 10, TimeUnit.SECONDS), is(true));
+		}
+		assertArrayEquals(records, into);
+
+		head.close();
+		tail.close();
+	}
+
+	@Test
+	public void testHandlerReadsRecordsInPlace() throws Exception {
+		// given
+		final int count = 1000;
+		final CountDownLatch latch = new CountDownLatch(count);
+		final AtomicLong expected = new AtomicLong();
+		final AtomicLong errors = new AtomicLong();
+		FixedRecordFifo fifo = new FixedRecordFifo("record2", chronicle, RECORD, 2 << 4);
+		FixedRecordFifo.RecordHead head = fifo.head();
+		head.start();
+		FixedRecordFifo.RecordTail tail = fifo.recordTail(new RecordHandler() {
+			@Override
+			public void onMessage(byte[] records, int offset, long sequence, boolean endOfBatch) throws Exception {
+				UnsafeMemory memory = new UnsafeMemory(records, true);
+				memory.position(offset);
+				long value = expected.getAndIncrement();
+				if( memory.getLong() != value || memory.getInt() != -value ) {
+					errors.incrementAndGet();
+				}
+				latch.countDown();
+			}
+		});
+		tail.start();
+		byte[] records = records(count);
+
+		// when
+		for( int index = 0; index < count; index++ ) {
+			head.add(records, index * RECORD);
+		}
+
+		// then
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		assertThat(errors.get(), is(0L));
+
+		head.close();
+		tail.close();
+	}
+
+	@Test
+	public void testGenericTailReadsRecords() throws Exception {
+		// given
+		FixedRecordFifo fifo = new FixedRecordFifo("record3", chronicle, RECORD, 2 << 3);
+		FixedRecordFifo.RecordHead head = fifo.head();
+		head.start();
+		Fifo<byte[]>.FifoTail tail = fifo.tail();
+		tail.start();
+		byte[] records = records(1);
+
+		// when
+		head.add(records);
+
+		// then
+		assertArrayEquals(records, tail.take());
+
+		head.close();
+		tail.close();
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testRejectsRecordOfWrongSize() throws Exception {
+		FixedRecordFifo fifo = new FixedRecordFifo("record4", chronicle, RECORD, 2 << 3);
+		FixedRecordFifo.RecordHead head = fifo.head();
+		head.start();
+		try {
+			head.add(new byte[RECORD + 1]);
+		} finally {
+			head.close();
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.higherfrequencytrading.chronicle.impl.IndexedChronicle;
+import com.higherfrequencytrading.chronicle.tools.ChronicleTools;
+
+public class FlyweightTests {
+	
+	static final String TMP = System.getProperty("java.io.tmpdir");
+	
+	private static String location = TMP+"/"+FlyweightTests.class.getSimpleName();
+	
+	static { 
+		ChronicleTools.deleteOnExit(location);
+	}
+	
+	static class Tick {
+		long id;
+		double price;
+	}
+	
+	static class TickView extends Flyweight {
+		static final PojoMarshaller<Tick> MARSHALLER = new PojoMarshaller<Tick>(Tick.class);
+		static final int ID = MARSHALLER.offsetOf("id");
+		static final int PRICE = MARSHALLER.offsetOf("price");
+		
+		long id() {
+			return getLong(ID);
+		}
+		
+		double price() {
+			return getDouble(PRICE);
+		}
+	}
+	
+	int some = -1;
+
+	private IndexedChronicle chronicle;	
+	
+	@Before
+	public void setup() throws Exception {
+		some = 2 << 4;
+		chronicle = new IndexedChronicle(location);
+	}
+
+	@Test
+	public void testFlyweightReadsInPlace() throws Exception {
+		// given
+		Fifo<Tick> fifo = new Fifo<Tick>("flyweight1", chronicle, Tick.class, 
+				TickView.MARSHALLER.fixedSize(), 2 << 2, TickView.MARSHALLER);
+		Fifo<Tick>.FifoHead head = fifo.head();
+		head.start();
+		for( int index = 0; index < some; index++ ){
+			Tick tick = new Tick();
+			tick.id = index;
+			tick.price = index * 0.5;
+			head.add(tick);
+		}
+		
+		final long[] ids = new long[some];
+		final double[] prices = new double[some];
+		final TickView[] leaked = new TickView[1];
+		final CountDownLatch done = new CountDownLatch(some);
+		
+		// when
+		Fifo<Tick>.FlyweightTail<TickView> tail = fifo.tail(new TickView(), new FlyweightHandler<TickView>() {
+			int count = 0;
+			@Override
+			public void onMessage(TickView view) {
+				ids[count] = view.id();
+				prices[count] = view.price();
+				count++;
+				leaked[0] = view;
+				done.countDown();
+			}
+		});
+		tail.start();
+		assertTrue("timed out", done.await(10, TimeUnit.SECONDS));
+		
+		// then
+		for( int index = 0; index < some; index++ ){
+			assertThat(ids[index], is((long) index));
+			assertThat(prices[index], is(index * 0.5));
+		}
+		// the handler counts down before the reader unbinds the view
+		final long deadline = System.currentTimeMillis() + 10000;
+		while( leaked[0].isBound() && System.currentTimeMillis() < deadline ) {
+			Thread.yield();
+		}
+		assertThat(leaked[0].isBound(), is(false));
+		
+		head.close();
+		tail.close();
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void testUnboundViewThrows() throws Exception {
+		new TickView().id();
+	}
+}
@@ -0,0 +1,64 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import com.higherfrequencytrading.chronicle.impl.IndexedChronicle;
+import com.higherfrequencytrading.chronicle.tools.ChronicleTools;
+
+/**
+ * Measures what each {@link Integrity} costs end to end, from the head 
+ * adding a message to a tail removing it, so the checksum can be left on 
+ * in production at a known price. 
+ */
+public final class IntegrityPerf
+{
+    static final String TMP = System.getProperty("java.io.tmpdir");
+
+    public static final int REPETITIONS = 1 * 1000 * 1000;
+
+    private static final String GUID = "3F2504E0-4F89-11D3-9A0C-0305E82C3301";
+
+    public static void main(final String[] arg) throws Exception
+    {
+        final int payloadSize = GUID.getBytes("UTF8").length + 1;
+        System.out.format("checksum marker %s\n",
+                          new BatchChecksum().marker() == BatchChecksum.CRC32C_MARKER ? "CRC32C" : "CRC32");
+
+        for (int run = 0; run < 5; run++)
+        {
+            for (final Integrity integrity : Integrity.values())
+            {
+                final String location = TMP + "/" + IntegrityPerf.class.getSimpleName() + "-" + integrity + run;
+                ChronicleTools.deleteOnExit(location);
+                final IndexedChronicle chronicle = new IndexedChronicle(location);
+                final Fifo<String> fifo = new Fifo<String>("integrity" + integrity, chronicle, String.class, payloadSize,
+                                                           2 << 14, new ObjectMarshaller<String>(), integrity);
+
+                final Fifo<String>.FifoHead head = fifo.head();
+                head.start();
+                final long addStart = System.nanoTime();
+                for (int i = 0; i < REPETITIONS; i++)
+                {
+                    head.add(GUID);
+                }
+                final long addNanos = System.nanoTime() - addStart;
+
+                final Fifo<String>.FifoTail tail = fifo.tail();
+                final long removeStart = System.nanoTime();
+                tail.start();
+                for (int i = 0; i < REPETITIONS; i++)
+                {
+                    FifoTailPerf.check(tail.remove());
+                }
+                final long removeNanos = System.nanoTime() - removeStart;
+
+                System.out.format("%d %s\tadd=%,dns remove=%,dns per message\n",
+                                  run, integrity, addNanos / REPETITIONS, removeNanos / REPETITIONS);
+
+                tail.close();
+                head.close();
+                chronicle.close();
+                System.gc();
+                Thread.sleep(1000);
+            }
+        }
+    }
+}
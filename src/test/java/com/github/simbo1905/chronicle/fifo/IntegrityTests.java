@@ -0,0 +1,149 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.higherfrequencytrading.chronicle.Excerpt;
+import com.higherfrequencytrading.chronicle.impl.IndexedChronicle;
+import com.higherfrequencytrading.chronicle.tools.ChronicleTools;
+
+public class IntegrityTests {
+
+	static final String TMP = System.getProperty("java.io.tmpdir");
+
+	private static String location = TMP+"/"+IntegrityTests.class.getSimpleName();
+
+	static {
+		ChronicleTools.deleteOnExit(location);
+	}
+
+	int payloadSize = -1;
+
+	private IndexedChronicle chronicle;
+
+	@Before
+	public void setup() throws Exception {
+		payloadSize = UUID.randomUUID().toString().getBytes("UTF8").length+1;
+		chronicle = new IndexedChronicle(location);
+	}
+
+	/**
+	 * Flips a bit in the last byte of the last message of the excerpt.
+	 */
+	private void rot(long index) {
+		Excerpt excerpt = chronicle.createExcerpt();
+		excerpt.index(index);
+		excerpt.readEnum(String.class);
+		final int start = excerpt.position();
+		final int trailer = excerpt.readInt(start + Fifo.COUNT_SIZE);
+		final int last = trailer - Fifo.CHECKSUM_SIZE - 1;
+		excerpt.writeByte(last, excerpt.readByte(last) ^ 1);
+		excerpt.finish();
+	}
+
+	private Fifo<String>.FifoHead headWithThree(Fifo<String> fifo) throws Exception {
+		Fifo<String>.FifoHead head = fifo.head();
+		head.start();
+		head.add("one");
+		head.add("two");
+		head.add("three");
+		return head;
+	}
+
+	@Test
+	public void testVerifyingTailSkipsCorruptBatch() throws Exception {
+		// given
+		final long first = chronicle.size();
+		Fifo<String> fifo = new Fifo<String>("verify1", chronicle, String.class, payloadSize, 2 << 2, 
+				new ObjectMarshaller<String>(), Integrity.VERIFY);
+		Fifo<String>.FifoHead head = headWithThree(fifo);
+
+		// when
+		rot(first + 1);
+
+		// then
+		Fifo<String>.FifoTail tail = fifo.tail();
+		tail.start();
+		assertThat(tail.take(), is("one"));
+		assertThat(tail.take(), is("three"));
+		assertThat(tail.poll(100, TimeUnit.MILLISECONDS), is(nullValue()));
+		assertThat(tail.corruptExcerpts(), is(1L));
+		tail.close();
+		head.close();
+	}
+
+	@Test
+	public void testScrubberFindsCorruptBatch() throws Exception {
+		// given
+		final long first = chronicle.size();
+		Fifo<String> fifo = new Fifo<String>("verify2", chronicle, String.class, payloadSize, 2 << 2, 
+				new ObjectMarshaller<String>(), Integrity.CHECKSUM);
+		Fifo<String>.FifoHead head = headWithThree(fifo);
+
+		// when
+		rot(first + 2);
+		Fifo<String>.Scrubber scrubber = fifo.scrubber();
+		scrubber.start();
+
+		// then
+		final long deadline = System.currentTimeMillis() + 10000;
+		while( scrubber.messages() + scrubber.corruptExcerpts() < 3 && System.currentTimeMillis() < deadline ) {
+			Thread.sleep(10);
+		}
+		assertThat(scrubber.messages(), is(2L));
+		assertThat(scrubber.corruptExcerpts(), is(1L));
+		scrubber.close();
+		head.close();
+	}
+
+	@Test
+	public void testHeadCountsCorruptBatchOnRestart() throws Exception {
+		// given
+		final long first = chronicle.size();
+		Fifo<String> fifo = new Fifo<String>("verify3", chronicle, String.class, payloadSize, 2 << 2, 
+				new ObjectMarshaller<String>(), Integrity.CHECKSUM);
+		headWithThree(fifo).close();
+
+		// when
+		rot(first);
+		Fifo<String>.FifoHead restarted = fifo.head();
+		restarted.start();
+
+		// then
+		assertThat(restarted.corruptExcerpts(), is(1));
+		assertThat(restarted.tornExcerpts(), is(0));
+		restarted.close();
+	}
+
+	@Test
+	public void testChecksumSpansMoreThanOneWindow() throws Exception {
+		// given a range of an excerpt longer than the checksum's window
+		final byte[] bytes = new byte[BatchChecksum.WINDOW_SIZE * 2 + 100];
+		new Random(1).nextBytes(bytes);
+		Excerpt excerpt = chronicle.createExcerpt();
+		excerpt.startExcerpt(bytes.length + 32);
+		excerpt.writeEnum("window");
+		final int start = excerpt.position();
+		excerpt.write(bytes, 0, bytes.length);
+		excerpt.writeInt(0);
+
+		// when
+		final int computed = new BatchChecksum().compute(BatchChecksum.CRC32_MARKER, excerpt, start, start + bytes.length);
+
+		// then
+		CRC32 expected = new CRC32();
+		expected.update(bytes, 0, bytes.length);
+		assertThat(computed, is((int) expected.getValue()));
+		assertThat(excerpt.position(), is(start + bytes.length + 4));
+		excerpt.finish();
+	}
+}
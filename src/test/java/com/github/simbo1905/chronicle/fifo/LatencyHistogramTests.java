@@ -0,0 +1,65 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTests {
+
+	@Test
+	public void testSmallValuesAreExact() {
+		// given
+		LatencyHistogram histogram = new LatencyHistogram();
+
+		// when
+		for( long value = 1; value <= 50; value++ ) {
+			histogram.record(value);
+		}
+
+		// then
+		assertThat(histogram.count(), is(50L));
+		assertThat(histogram.percentile(50), is(25L));
+		assertThat(histogram.percentile(100), is(50L));
+		assertThat(histogram.max(), is(50L));
+	}
+
+	@Test
+	public void testLargeValuesAreWithinPrecision() {
+		// given
+		LatencyHistogram histogram = new LatencyHistogram();
+
+		// when one slow outlier in a thousand
+		for( int index = 0; index < 999; index++ ) {
+			histogram.record(10000 + index);
+		}
+		histogram.record(5000000);
+
+		// then
+		assertWithin(histogram.percentile(50), 10499);
+		assertWithin(histogram.percentile(99), 10989);
+		assertThat(histogram.percentile(99.99), is(5000000L));
+	}
+
+	@Test
+	public void testBucketsAreContiguous() {
+		for( int index = 1; index < 1800; index++ ) {
+			assertThat(LatencyHistogram.lowest(index), is(LatencyHistogram.highest(index - 1) + 1));
+			assertThat(LatencyHistogram.index(LatencyHistogram.lowest(index)), is(index));
+		}
+	}
+
+	@Test
+	public void testResetForgetsEverything() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(123456);
+		histogram.reset();
+		assertThat(histogram.count(), is(0L));
+		assertThat(histogram.percentile(99), is(0L));
+	}
+
+	private static void assertWithin(long actual, long expected) {
+		assertTrue(actual+" not within 3% of "+expected, Math.abs(actual - expected) <= expected * 0.03);
+	}
+}
@@ -0,0 +1,177 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.higherfrequencytrading.chronicle.impl.IndexedChronicle;
+import com.higherfrequencytrading.chronicle.tools.ChronicleTools;
+
+public class LongFifoTests {
+
+	static final String TMP = System.getProperty("java.io.tmpdir");
+
+	private static String location = TMP+"/"+LongFifoTests.class.getSimpleName();
+
+	static {
+		ChronicleTools.deleteOnExit(location);
+	}
+
+	private IndexedChronicle chronicle;
+
+	@Before
+	public void setup() throws Exception {
+		chronicle = new IndexedChronicle(location);
+	}
+
+	@Test
+	public void testTakeAndPoll() throws Exception {
+		// given
+		LongFifo fifo = new LongFifo("long1", chronicle, 2 << 3);
+		LongFifo.LongHead head = fifo.head();
+		head.start();
+		LongFifo.LongTail tail = fifo.longTail();
+		tail.start();
+		long[] into = new long[8];
+
+		// when empty
+		assertThat(tail.poll(into), is(0));
+		assertThat(tail.poll(into, 20, TimeUnit.MILLISECONDS), is(0));
+
+		// when added
+		head.add(Long.MIN_VALUE);
+		head.addAll(new long[]{-1, 1, 2, 3, Long.MAX_VALUE}, 1, 4);
+
+		// then
+		assertThat(tail.take(), is(Long.MIN_VALUE));
+		long[] polled = new long[4];
+		int taken = 0;
+		while( taken < polled.length ) {
+			int count = tail.poll(into, 10, TimeUnit.SECONDS);
+			System.arraycopy(into, 0, polled, taken, count);
+			taken += count;
+		}
+		assertArrayEquals(new long[]{1, 2, 3, Long.MAX_VALUE}, polled);
+		assertThat(tail.stats().messages(), is(5L));
+
+		head.close();
+		tail.close();
+	}
+
+	@Test
+	public void testHandlerSeesEveryValueInOrder() throws Exception {
+		// given
+		final int count = 1000;
+		final CountDownLatch latch = new CountDownLatch(count);
+		final AtomicLong expected = new AtomicLong();
+		final AtomicLong errors = new AtomicLong();
+		LongFifo fifo = new LongFifo("long2", chronicle, 2 << 4);
+		LongFifo.LongHead head = fifo.head();
+		head.start();
+		LongFifo.LongTail tail = fifo.longTail(new LongHandler() {
+			@Override
+			public void onMessage(long value, long sequence, boolean endOfBatch) throws Exception {
+				if( value != expected.getAndIncrement() ) {
+					errors.incrementAndGet();
+				}
+				latch.countDown();
+			}
+		});
+		tail.start();
+
+		// when
+		for( long value = 0; value < count; value++ ) {
+			head.add(value);
+		}
+
+		// then
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		assertThat(errors.get(), is(0L));
+
+		head.close();
+		tail.close();
+	}
+
+	@Test
+	public void testFailingHandlerIsReported() throws Exception {
+		// given a handler which fails on the first of more values than the ring holds
+		LongFifo fifo = new LongFifo("long5", chronicle, 2 << 2);
+		LongFifo.LongHead head = fifo.head();
+		head.start();
+		LongFifo.LongTail tail = fifo.longTail(new LongHandler() {
+			@Override
+			public void onMessage(long value, long sequence, boolean endOfBatch) throws Exception {
+				throw new IllegalStateException("cannot handle " + value);
+			}
+		});
+		tail.start();
+
+		// when
+		for( long value = 0; value < 100; value++ ) {
+			head.add(value);
+		}
+
+		// then
+		final long deadline = System.currentTimeMillis() + 10000;
+		while( tail.failure() == null && System.currentTimeMillis() < deadline ) {
+			Thread.sleep(1);
+		}
+		assertThat(tail.failure().getMessage(), is("cannot handle 0"));
+
+		head.close();
+		tail.close();
+	}
+
+	@Test
+	public void testGroupResumesAfterLastTaken() throws Exception {
+		// given
+		LongFifo fifo = new LongFifo("long3", chronicle, 2 << 3);
+		LongFifo.LongHead head = fifo.head();
+		head.start();
+		head.addAll(new long[]{10, 11, 12, 13, 14}, 0, 5);
+		LongFifo.LongTail first = fifo.longTail("group");
+		first.start();
+		assertThat(first.take(), is(10L));
+		assertThat(first.take(), is(11L));
+		first.close();
+
+		// when
+		LongFifo.LongTail second = fifo.longTail("group");
+		second.start();
+
+		// then
+		assertThat(second.take(), is(12L));
+
+		head.close();
+		second.close();
+	}
+
+	@Test
+	public void testGenericTailReadsLongs() throws Exception {
+		// given
+		LongFifo fifo = new LongFifo("long4", chronicle, 2 << 3);
+		LongFifo.LongHead head = fifo.head();
+		head.start();
+		Fifo<Long>.FifoTail tail = fifo.tail();
+		tail.start();
+
+		// when
+		head.add(42L);
+		head.add(Long.valueOf(43));
+
+		// then
+		assertThat(tail.take(), is(42L));
+		assertThat(tail.take(), is(43L));
+
+		head.close();
+		tail.close();
+	}
+}
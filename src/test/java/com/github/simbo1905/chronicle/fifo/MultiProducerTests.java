@@ -0,0 +1,276 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.higherfrequencytrading.chronicle.impl.IndexedChronicle;
+import com.higherfrequencytrading.chronicle.tools.ChronicleTools;
+
+public class MultiProducerTests {
+	
+	static final String TMP = System.getProperty("java.io.tmpdir");
+	
+	private static String location = TMP+"/"+MultiProducerTests.class.getSimpleName();
+	
+	static { 
+		ChronicleTools.deleteOnExit(location);
+		ChronicleTools.deleteOnExit(location+"-a");
+		ChronicleTools.deleteOnExit(location+"-b");
+		ChronicleTools.deleteOnExit(location+"-resume");
+		ChronicleTools.deleteOnExit(location+"-failing");
+	}
+	
+	static final int PRODUCERS = 4;
+	
+	static final int PAYLOAD_SIZE = 16;
+	
+	int some = -1;
+
+	private IndexedChronicle chronicle;	
+	
+	@Before
+	public void setup() throws Exception {
+		some = 2 << 7;
+		chronicle = new IndexedChronicle(location);
+	}
+
+	@Test
+	public void testSharedHeadFromManyThreads() throws Exception {
+		// given
+		Fifo<String> fifo = new Fifo<String>("shared1", chronicle, String.class, PAYLOAD_SIZE, 2 << 4);
+		final Fifo<String>.SharedHead head = fifo.sharedHead();
+		head.start();
+		Fifo<String>.FifoTail tail = fifo.tail();
+		tail.start();
+		
+		// when
+		final CyclicBarrier gate = new CyclicBarrier(PRODUCERS);
+		List<Thread> producers = new ArrayList<Thread>();
+		for( int p = 0; p < PRODUCERS; p++ ) {
+			final String producer = "p"+p;
+			Thread thread = new Thread() {
+				@Override
+				public void run() {
+					try {
+						gate.await();
+					} catch (Exception e) {
+						throw new RuntimeException("could not await gate", e);
+					}
+					for( int index = 0; index < some; index++ ) {
+						head.add(producer+":"+index);
+					}
+				}
+			};
+			producers.add(thread);
+			thread.start();
+		}
+		
+		// then
+		assertInOrderPerProducer(tail, PRODUCERS * some);
+		
+		for( Thread thread : producers ) {
+			thread.join();
+		}
+		head.close();
+		tail.close();
+	}
+	
+	@Test
+	public void testMergeSubJournals() throws Exception {
+		// given a sub-journal per producer
+		List<Fifo<String>> sources = new ArrayList<Fifo<String>>();
+		List<Fifo<String>.FifoHead> heads = new ArrayList<Fifo<String>.FifoHead>();
+		for( String producer : new String[]{"a", "b"} ) {
+			deleteGroupFiles(location+"-"+producer, "merge."+producer);
+			Fifo<String> source = new Fifo<String>("merge."+producer, 
+					new IndexedChronicle(location+"-"+producer), String.class, PAYLOAD_SIZE, 2 << 4);
+			Fifo<String>.FifoHead head = source.head();
+			head.start();
+			for( int index = 0; index < some; index++ ) {
+				head.add(producer+":"+index);
+			}
+			sources.add(source);
+			heads.add(head);
+		}
+		Fifo<String> merged = new Fifo<String>("merged", chronicle, String.class, PAYLOAD_SIZE, 2 << 4);
+		Fifo<String>.SharedHead target = merged.sharedHead();
+		target.start();
+		Fifo<String>.FifoTail tail = merged.tail();
+		tail.start();
+		
+		// when
+		FifoMerger<String> merger = new FifoMerger<String>(target, sources, WaitPolicy.PARK);
+		merger.start();
+		
+		// then
+		assertInOrderPerProducer(tail, 2 * some);
+		
+		merger.close();
+		target.close();
+		tail.close();
+		for( Fifo<String>.FifoHead head : heads ) {
+			head.close();
+		}
+	}
+
+	@Test
+	public void testRestartedMergerResumesFromItsGroupCursor() throws Exception {
+		// given a merger which has merged everything so far
+		Fifo<String> source = new Fifo<String>("resume", new IndexedChronicle(location+"-resume"), String.class, PAYLOAD_SIZE, 2 << 4);
+		deleteGroupFiles(location+"-resume", "resume");
+		List<Fifo<String>> sources = new ArrayList<Fifo<String>>();
+		sources.add(source);
+		Fifo<String>.FifoHead head = source.head();
+		head.start();
+		for( int index = 0; index < some; index++ ) {
+			head.add("r:"+index);
+		}
+		Fifo<String> merged = new Fifo<String>("resumed", chronicle, String.class, PAYLOAD_SIZE, 2 << 4);
+		Fifo<String>.SharedHead target = merged.sharedHead();
+		target.start();
+		Fifo<String>.FifoTail tail = merged.tail();
+		tail.start();
+		FifoMerger<String> merger = new FifoMerger<String>(target, sources, WaitPolicy.PARK);
+		merger.start();
+		for( int index = 0; index < some; index++ ) {
+			assertThat(tail.poll(10, TimeUnit.SECONDS), is("r:"+index));
+		}
+		merger.close();
+		
+		// when more is written and the merger is restarted
+		for( int index = some; index < 2 * some; index++ ) {
+			head.add("r:"+index);
+		}
+		merger = new FifoMerger<String>(target, sources, WaitPolicy.PARK);
+		merger.start();
+		
+		// then only the new messages are merged
+		for( int index = some; index < 2 * some; index++ ) {
+			assertThat(tail.poll(10, TimeUnit.SECONDS), is("r:"+index));
+		}
+		assertThat(tail.poll(200, TimeUnit.MILLISECONDS) == null, is(true));
+		
+		merger.close();
+		target.close();
+		tail.close();
+		head.close();
+	}
+	
+	@Test
+	public void testFailedAppendFailsTheSharedHead() throws Exception {
+		// given a shared head over a head which fails once a group is one behind
+		for( File file : new File[]{ new File(location + ".bounded.slow.cursor"), new File(location + ".bounded.counter") } ) {
+			file.delete();
+			file.deleteOnExit();
+		}
+		Fifo<String> fifo = new Fifo<String>("bounded", chronicle, String.class, PAYLOAD_SIZE, 2 << 4);
+		Fifo<String>.SharedHead head = fifo.new SharedHead(fifo.head(Capacity.of(1, Overflow.FAIL, "slow")), WaitPolicy.PARK);
+		head.start();
+		
+		// when
+		final long deadline = System.currentTimeMillis() + 10000;
+		while( head.failure() == null && System.currentTimeMillis() < deadline ) {
+			try {
+				head.add("more");
+			} catch (IllegalStateException e) {
+				break;
+			}
+			Thread.sleep(1);
+		}
+		
+		// then
+		assertThat(head.failure() instanceof IllegalStateException, is(true));
+		try {
+			head.add("four");
+			fail("expected add to report the failed append");
+		} catch (IllegalStateException e) {
+			assertThat(e.getCause() == head.failure(), is(true));
+		}
+		try {
+			head.close();
+			fail("expected close to report the failed append");
+		} catch (IOException e) {
+			assertThat(e.getCause() == head.failure(), is(true));
+		}
+	}
+	
+	@Test
+	public void testFailedAddStopsTheMergerAndFailsClose() throws Exception {
+		// given a target which cannot be added to
+		Fifo<String> source = new Fifo<String>("failing", new IndexedChronicle(location+"-failing"), String.class, PAYLOAD_SIZE, 2 << 4);
+		deleteGroupFiles(location+"-failing", "failing");
+		List<Fifo<String>> sources = new ArrayList<Fifo<String>>();
+		sources.add(source);
+		Fifo<String>.FifoHead head = source.head();
+		head.start();
+		head.add("f:0");
+		Fifo<String> merged = new Fifo<String>("failed", chronicle, String.class, PAYLOAD_SIZE, 2 << 4);
+		Fifo<String>.SharedHead target = merged.new SharedHead(merged.head(), WaitPolicy.PARK) {
+			@Override
+			public long add(String t) {
+				throw new IllegalStateException("target is full");
+			}
+		};
+		target.start();
+		
+		// when
+		FifoMerger<String> merger = new FifoMerger<String>(target, sources, WaitPolicy.PARK);
+		merger.start();
+		
+		// then
+		final long deadline = System.currentTimeMillis() + 10000;
+		while( merger.failure() == null && System.currentTimeMillis() < deadline ) {
+			Thread.sleep(1);
+		}
+		assertThat(merger.failure().getMessage(), is("target is full"));
+		try {
+			merger.close();
+			fail("expected close to report the failed merge");
+		} catch (IOException e) {
+			assertThat(e.getCause() == merger.failure(), is(true));
+		}
+		
+		// and the message was not committed
+		Fifo<String>.FifoTail group = source.tail(FifoMerger.GROUP);
+		group.start();
+		assertThat(group.poll(10, TimeUnit.SECONDS), is("f:0"));
+		group.close();
+		target.close();
+		head.close();
+	}
+	
+	private void deleteGroupFiles(String path, String name) {
+		for( String suffix : new String[]{ FifoMerger.GROUP + ".cursor", "group." + FifoMerger.GROUP + ".stats" } ) {
+			File file = new File(path + "." + name + "." + suffix);
+			file.delete();
+			file.deleteOnExit();
+		}
+	}
+
+	private void assertInOrderPerProducer(Fifo<String>.FifoTail tail, int count) {
+		Map<String, Integer> next = new HashMap<String, Integer>();
+		for( int index = 0; index < count; index++ ) {
+			String[] message = tail.remove().split(":");
+			Integer expected = next.get(message[0]);
+			expected = (expected == null) ? 0 : expected;
+			assertThat(Integer.valueOf(message[1]), is(expected));
+			next.put(message[0], expected + 1);
+		}
+		for( Integer received : next.values() ) {
+			assertThat(received, is(some));
+		}
+	}
+}
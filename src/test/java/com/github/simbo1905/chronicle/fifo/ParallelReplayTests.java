@@ -0,0 +1,270 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.simbo1905.chronicle.slavelist.ReplicaProgress;
+import com.higherfrequencytrading.chronicle.Excerpt;
+import com.higherfrequencytrading.chronicle.datamodel.DataStore;
+import com.higherfrequencytrading.chronicle.datamodel.ListListener;
+import com.higherfrequencytrading.chronicle.datamodel.ListWrapper;
+import com.higherfrequencytrading.chronicle.datamodel.ModelMode;
+import com.higherfrequencytrading.chronicle.datamodel.Wrapper;
+import com.higherfrequencytrading.chronicle.impl.IndexedChronicle;
+import com.higherfrequencytrading.chronicle.tools.ChronicleTools;
+
+public class ParallelReplayTests {
+
+	static final String TMP = System.getProperty("java.io.tmpdir");
+
+	private static String location = TMP+"/"+ParallelReplayTests.class.getSimpleName();
+
+	static {
+		ChronicleTools.deleteOnExit(location);
+		ChronicleTools.deleteOnExit(location+"-failing");
+		ChronicleTools.deleteOnExit(location+"-notify");
+	}
+
+	static final int NAMES = 4;
+
+	private IndexedChronicle chronicle;
+
+	@Before
+	public void setup() throws Exception {
+		chronicle = new IndexedChronicle(location);
+	}
+
+	@Test
+	public void testEachNameReplaysInOrderOnItsOwnThread() throws Exception {
+		// given lists whose excerpts are interleaved in the chronicle
+		DataStore master = new DataStore(chronicle, ModelMode.MASTER);
+		List<ListWrapper<String>> written = new ArrayList<ListWrapper<String>>();
+		for( int name = 0; name < NAMES; name++ ) {
+			written.add(new ListWrapper<String>(master, "list" + name, String.class, new ArrayList<String>(), 128));
+		}
+		master.start();
+		final long[] lastIndexes = new long[NAMES];
+		for( int i = 0; i < 1000; i++ ) {
+			for( int name = 0; name < NAMES; name++ ) {
+				written.get(name).add(i % 7 == 0 ? 0 : written.get(name).size(), name + ":" + i);
+				if( i % 3 == 0 ) {
+					written.get(name).remove(0);
+				}
+				lastIndexes[name] = chronicle.size() - 1;
+			}
+		}
+
+		// when
+		IndexedChronicle slaveChronicle = new IndexedChronicle(location);
+		DataStore slave = new DataStore(slaveChronicle, ModelMode.READ_ONLY);
+		ParallelReplay replay = new ParallelReplay(slave, slaveChronicle, WaitPolicy.PARK, 2 << 6);
+		List<ListWrapper<String>> read = new ArrayList<ListWrapper<String>>();
+		List<ReplicaProgress<String>> progress = new ArrayList<ReplicaProgress<String>>();
+		final Set<Thread> threads = new HashSet<Thread>();
+		for( int name = 0; name < NAMES; name++ ) {
+			ListWrapper<String> list = new ListWrapper<String>(slave, "list" + name, String.class, new ArrayList<String>(), 128);
+			ReplicaProgress<String> applied = new ReplicaProgress<String>(slaveChronicle, -1);
+			list.addListener(applied);
+			list.addListener(new ThreadListener(threads));
+			replay.add("list" + name, list);
+			read.add(list);
+			progress.add(applied);
+		}
+		replay.start();
+
+		// then
+		for( int name = 0; name < NAMES; name++ ) {
+			assertThat(progress.get(name).awaitIndex(lastIndexes[name], 10, TimeUnit.SECONDS), is(true));
+			assertThat((List<String>) read.get(name), is((List<String>) written.get(name)));
+		}
+		assertThat(replay.backlog(), is(0L));
+		synchronized (threads) {
+			assertThat(threads.size(), is(NAMES));
+			assertTrue(!threads.contains(Thread.currentThread()));
+		}
+		replay.close();
+		slaveChronicle.close();
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testBufferSizeMustBePowerOfTwo() throws Exception {
+		new ParallelReplay(new DataStore(chronicle, ModelMode.READ_ONLY), chronicle, WaitPolicy.PARK, 100);
+	}
+
+	@Test
+	public void testFailingWrapperFailsOnlyItsLane() throws Exception {
+		// given more edits of a failing list than its lane can buffer
+		IndexedChronicle written = new IndexedChronicle(location+"-failing");
+		DataStore master = new DataStore(written, ModelMode.MASTER);
+		ListWrapper<String> bad = new ListWrapper<String>(master, "bad", String.class, new ArrayList<String>(), 128);
+		ListWrapper<String> good = new ListWrapper<String>(master, "good", String.class, new ArrayList<String>(), 128);
+		master.start();
+		long lastGood = -1;
+		for( int i = 0; i < 100; i++ ) {
+			bad.add("bad:" + i);
+			good.add("good:" + i);
+			lastGood = written.size() - 1;
+		}
+
+		// when the listener of one list throws
+		IndexedChronicle slaveChronicle = new IndexedChronicle(location+"-failing");
+		DataStore slave = new DataStore(slaveChronicle, ModelMode.READ_ONLY);
+		ParallelReplay replay = new ParallelReplay(slave, slaveChronicle, WaitPolicy.PARK, 2 << 1);
+		ListWrapper<String> badRead = new ListWrapper<String>(slave, "bad", String.class, new ArrayList<String>(), 128);
+		badRead.addListener(new ThreadListener(new HashSet<Thread>()) {
+			@Override
+			public void eventStart(long eventId, String name) {
+				throw new IllegalStateException("cannot apply " + eventId);
+			}
+		});
+		ListWrapper<String> goodRead = new ListWrapper<String>(slave, "good", String.class, new ArrayList<String>(), 128);
+		ReplicaProgress<String> applied = new ReplicaProgress<String>(slaveChronicle, -1);
+		goodRead.addListener(applied);
+		replay.add("bad", badRead);
+		replay.add("good", goodRead);
+		replay.start();
+
+		// then the other list still catches up
+		assertThat(applied.awaitIndex(lastGood, 10, TimeUnit.SECONDS), is(true));
+		assertThat((List<String>) goodRead, is((List<String>) good));
+
+		// and the failure is reported
+		try {
+			replay.backlog();
+			fail("expected the backlog to report the failed lane");
+		} catch (IllegalStateException e) {
+			assertThat(e.getMessage(), is("replay of bad failed"));
+			assertThat(e.getCause().getMessage(), is("cannot apply 0"));
+		}
+		try {
+			replay.close();
+			fail("expected close to report the failed lane");
+		} catch (IllegalStateException e) {
+			assertThat(e.getMessage(), is("replay of bad failed"));
+		}
+		slaveChronicle.close();
+		written.close();
+	}
+
+	@Test
+	public void testNotifyOffIsAppliedInOrderOnTheWorker() throws Exception {
+		// given
+		IndexedChronicle written = new IndexedChronicle(location+"-notify");
+		DataStore master = new DataStore(written, ModelMode.MASTER);
+		ListWrapper<String> list = new ListWrapper<String>(master, "list", String.class, new ArrayList<String>(), 128);
+		master.start();
+		list.add("one");
+		list.add("two");
+
+		// when a data store replays the chronicle with notifications off
+		IndexedChronicle replayed = new IndexedChronicle(location+"-notify");
+		DataStore store = new DataStore(replayed, ModelMode.MASTER);
+		ParallelReplay replay = new ParallelReplay(store, replayed, WaitPolicy.PARK, 2 << 3);
+		RecordingWrapper recorder = new RecordingWrapper(4);
+		replay.add("list", recorder);
+		replay.start();
+
+		// then the worker sees the toggles in order with the excerpts
+		assertThat(recorder.await(10, TimeUnit.SECONDS), is(true));
+		assertThat(recorder.calls, is(Arrays.asList("notifyOff:true", "excerpt:0", "excerpt:1", "notifyOff:false")));
+		assertTrue(!recorder.threads.contains(Thread.currentThread()));
+		assertThat(recorder.threads.size(), is(1));
+		replay.close();
+		replayed.close();
+		written.close();
+	}
+
+	static class RecordingWrapper implements Wrapper {
+
+		final List<String> calls = new ArrayList<String>();
+
+		final Set<Thread> threads = new HashSet<Thread>();
+
+		final int expected;
+
+		RecordingWrapper(int expected) {
+			this.expected = expected;
+		}
+
+		@Override
+		public synchronized void onExcerpt(Excerpt excerpt) {
+			record("excerpt:" + excerpt.index());
+			excerpt.finish();
+		}
+
+		@Override
+		public synchronized void notifyOff(boolean notifyOff) {
+			record("notifyOff:" + notifyOff);
+		}
+
+		private void record(String call) {
+			calls.add(call);
+			threads.add(Thread.currentThread());
+			notifyAll();
+		}
+
+		synchronized boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+			final long deadline = System.nanoTime() + unit.toNanos(timeout);
+			while( calls.size() < expected ) {
+				final long remaining = deadline - System.nanoTime();
+				if( remaining <= 0 ) {
+					return false;
+				}
+				TimeUnit.NANOSECONDS.timedWait(this, remaining);
+			}
+			return true;
+		}
+	}
+
+	static class ThreadListener implements ListListener<String> {
+
+		final Set<Thread> threads;
+
+		ThreadListener(Set<Thread> threads) {
+			this.threads = threads;
+		}
+
+		@Override
+		public void eventStart(long eventId, String name) {
+			synchronized (threads) {
+				threads.add(Thread.currentThread());
+			}
+		}
+
+		@Override
+		public void eventEnd(boolean lastEvent) {
+		}
+
+		@Override
+		public void add(String element) {
+		}
+
+		@Override
+		public void remove(String element) {
+		}
+
+		@Override
+		public void add(int index, String element) {
+		}
+
+		@Override
+		public void remove(int index, String element) {
+		}
+
+		@Override
+		public void set(int index, String oldElement, String element) {
+		}
+	}
+}
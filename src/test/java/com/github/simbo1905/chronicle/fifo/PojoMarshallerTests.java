@@ -0,0 +1,141 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.higherfrequencytrading.chronicle.Excerpt;
+import com.higherfrequencytrading.chronicle.impl.IndexedChronicle;
+import com.higherfrequencytrading.chronicle.tools.ChronicleTools;
+
+public class PojoMarshallerTests {
+	
+	static final String TMP = System.getProperty("java.io.tmpdir");
+	
+	private static String location = TMP+"/"+PojoMarshallerTests.class.getSimpleName();
+	
+	static { 
+		ChronicleTools.deleteOnExit(location);
+	}
+	
+	static class Base {
+		long sourceId;
+	}
+	
+	static class Order extends Base {
+		static int ignoredStatic = 99;
+		transient int ignoredTransient;
+		boolean special;
+		byte flags;
+		char side;
+		short venue;
+		int orderCode;
+		float ratio;
+		double price;
+		double[] prices;
+		long[] quantities;
+		byte[] tag;
+	}
+	
+	static class NotFlat {
+		String name;
+	}
+
+	private IndexedChronicle chronicle;
+	
+	@Before
+	public void setup() throws Exception {
+		chronicle = new IndexedChronicle(location);
+	}
+	
+	private Order order(long sourceId) {
+		Order order = new Order();
+		order.sourceId = sourceId;
+		order.special = true;
+		order.flags = 7;
+		order.side = 'B';
+		order.venue = 12;
+		order.orderCode = 777;
+		order.ratio = 0.5f;
+		order.price = 101.25;
+		order.prices = new double[]{0.1, 0.2, 0.3};
+		order.quantities = new long[]{1, 2, 3};
+		order.tag = null;
+		return order;
+	}
+	
+	private long write(PojoMarshaller<Order> marshaller, Order order) {
+		final long index = chronicle.size();
+		Excerpt excerpt = chronicle.createExcerpt();
+		excerpt.startExcerpt(256);
+		marshaller.write(excerpt, order);
+		excerpt.finish();
+		return index;
+	}
+	
+	private Order read(PojoMarshaller<Order> marshaller, long index, Order reuse) {
+		Excerpt excerpt = chronicle.createExcerpt();
+		excerpt.index(index);
+		Order order = marshaller.read(excerpt, reuse);
+		excerpt.finish();
+		return order;
+	}
+	
+	@Test
+	public void testRoundTrip() throws Exception {
+		// given
+		PojoMarshaller<Order> marshaller = new PojoMarshaller<Order>(Order.class);
+		Order expected = order(1010L);
+		
+		// when
+		Order actual = read(marshaller, write(marshaller, expected), null);
+		
+		// then
+		assertThat(actual.sourceId, is(expected.sourceId));
+		assertThat(actual.special, is(expected.special));
+		assertThat(actual.flags, is(expected.flags));
+		assertThat(actual.side, is(expected.side));
+		assertThat(actual.venue, is(expected.venue));
+		assertThat(actual.orderCode, is(expected.orderCode));
+		assertThat(actual.ratio, is(expected.ratio));
+		assertThat(actual.price, is(expected.price));
+		assertArrayEquals(expected.prices, actual.prices, 0.0);
+		assertArrayEquals(expected.quantities, actual.quantities);
+		assertThat(actual.tag, is((byte[]) null));
+	}
+	
+	@Test
+	public void testReuseKeepsArrays() throws Exception {
+		// given
+		PojoMarshaller<Order> marshaller = new PojoMarshaller<Order>(Order.class);
+		Order reuse = read(marshaller, write(marshaller, order(1L)), null);
+		double[] prices = reuse.prices;
+		
+		// when
+		Order actual = read(marshaller, write(marshaller, order(2L)), reuse);
+		
+		// then
+		assertThat(actual, sameInstance(reuse));
+		assertThat(actual.prices, sameInstance(prices));
+		assertThat(actual.sourceId, is(2L));
+	}
+	
+	@Test
+	public void testLayout() throws Exception {
+		PojoMarshaller<Order> marshaller = new PojoMarshaller<Order>(Order.class);
+		assertThat(marshaller.offsetOf("sourceId"), is(0));
+		assertThat(marshaller.offsetOf("flags"), is(8));
+		assertThat(marshaller.offsetOf("price"), is(8+1+4));
+		assertThat(marshaller.offsetOf("special"), is(8+1+4+8+4+2));
+		assertThat(marshaller.fixedSize(), is(8+1+1+2+2+4+4+8));
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testRejectsObjectFields() throws Exception {
+		new PojoMarshaller<NotFlat>(NotFlat.class);
+	}
+}
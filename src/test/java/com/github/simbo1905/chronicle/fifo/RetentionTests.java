@@ -0,0 +1,154 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class RetentionTests {
+
+	static final String TMP = System.getProperty("java.io.tmpdir");
+
+	private static String location = TMP+"/"+RetentionTests.class.getSimpleName();
+
+	static final int MESSAGES = 10;
+
+	int payloadSize = -1;
+
+	private Segments segments;
+
+	private List<String> expected;
+
+	@Before
+	public void setup() throws Exception {
+		payloadSize = UUID.randomUUID().toString().getBytes("UTF8").length+1;
+		segments = new Segments(location);
+		for( int segment = segments.first(); segment >= 0 && segment <= segments.last(); segment++ ) {
+			segments.delete(segment);
+		}
+		expected = new ArrayList<String>();
+		for( int index = 0; index < MESSAGES; index++ ) {
+			expected.add(UUID.randomUUID().toString());
+		}
+	}
+
+	private Fifo<String> rollingFifo(String name) throws Exception {
+		for( String group : new String[]{"a", "b"} ) {
+			File cursor = new File(location + "." + name + "." + group + ".cursor");
+			cursor.delete();
+			cursor.deleteOnExit();
+		}
+		// roughly three messages per segment
+		RollPolicy rollPolicy = RollPolicy.bySize(3 * (Fifo.HEADER_SIZE + payloadSize + Fifo.LENGTH_SIZE + Fifo.TRAILER_SIZE + name.length() + 3));
+		return new Fifo<String>(name, segments, rollPolicy, String.class, payloadSize, 2 << 3);
+	}
+
+	@Test
+	public void testTailsFollowRolledSegments() throws Exception {
+		// given
+		Fifo<String> fifo = rollingFifo("rolling1");
+		Fifo<String>.FifoHead head = fifo.head();
+		head.start();
+
+		// when
+		for( String message : expected ) {
+			head.add(message);
+		}
+
+		// then
+		assertTrue("rolled to "+segments.last(), segments.last() >= 3);
+		Fifo<String>.FifoTail tail = fifo.tail();
+		tail.start();
+		for( String message : expected ) {
+			assertThat(tail.poll(10, TimeUnit.SECONDS), is(message));
+		}
+		tail.close();
+		head.close();
+	}
+
+	@Test
+	public void testCompactDeletesSegmentsEveryGroupHasPassed() throws Exception {
+		// given
+		Fifo<String> fifo = rollingFifo("rolling2");
+		Fifo<String>.FifoHead head = fifo.head();
+		head.start();
+		for( String message : expected ) {
+			head.add(message);
+		}
+		Retention retention = new Retention(fifo, "a", "b");
+
+		// when only group a has read anything
+		Fifo<String>.FifoTail a = fifo.tail("a");
+		a.start();
+		for( int index = 0; index < 7; index++ ) {
+			assertThat(a.take(), is(expected.get(index)));
+		}
+		a.close();
+
+		// then nothing is deleted
+		assertThat(retention.compact(), is(0));
+		assertThat(segments.first(), is(0));
+
+		// when group b catches up
+		Fifo<String>.FifoTail b = fifo.tail("b");
+		b.start();
+		for( String message : expected ) {
+			assertThat(b.take(), is(message));
+		}
+		b.close();
+
+		// then segments behind group a are deleted
+		assertTrue(retention.compact() > 0);
+		assertTrue(segments.first() > 0);
+
+		// and a restarted group a resumes in the remaining segments
+		a = fifo.tail("a");
+		a.start();
+		for( int index = 7; index < MESSAGES; index++ ) {
+			assertThat(a.take(), is(expected.get(index)));
+		}
+		assertThat(a.poll(100, TimeUnit.MILLISECONDS), is(nullValue()));
+		a.close();
+
+		retention.close();
+		head.close();
+	}
+
+	@Test
+	public void testReopenedHeadRollsAtTheSizeLimit() throws Exception {
+		// given a segment which two messages fill
+		final String name = "rolling3";
+		final int capacity = Fifo.HEADER_SIZE + payloadSize + Fifo.LENGTH_SIZE + Fifo.CHECKSUM_SIZE + Fifo.TRAILER_SIZE + 2 + name.length() + 1;
+		Fifo<String> fifo = new Fifo<String>(name, segments, RollPolicy.bySize(2 * capacity), String.class, payloadSize, 2 << 3);
+		Fifo<String>.FifoHead head = fifo.head();
+		head.start();
+		head.add(expected.get(0));
+		head.add(expected.get(1));
+		assertThat(segments.last(), is(0));
+		head.close();
+
+		// when the head is reopened and adds one more
+		head = fifo.head();
+		head.start();
+		head.add(expected.get(2));
+
+		// then it rolled rather than growing the full segment
+		assertThat(segments.last(), is(1));
+		Fifo<String>.FifoTail tail = fifo.tail();
+		tail.start();
+		for( int index = 0; index < 3; index++ ) {
+			assertThat(tail.poll(10, TimeUnit.SECONDS), is(expected.get(index)));
+		}
+		tail.close();
+		head.close();
+	}
+}
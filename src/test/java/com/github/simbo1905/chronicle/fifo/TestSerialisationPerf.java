@@ -1,202 +1,314 @@
 package com.github.simbo1905.chronicle.fifo;
-import sun.misc.Unsafe;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.lang.reflect.Field;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
- 
+
+import com.higherfrequencytrading.chronicle.Excerpt;
+import com.higherfrequencytrading.chronicle.impl.IndexedChronicle;
+import com.higherfrequencytrading.chronicle.tools.ChronicleTools;
+
+/**
+ * Compares the codecs a {@link Marshaller} could be written with across
+ * object shapes whose arrays range from empty to large. Each run reports
+ * the throughput, percentiles of the write and read latency and the bytes
+ * each message takes. A latency sample is the mean of a block of
+ * {@link #BLOCK} operations as timing one operation costs more than many
+ * of the operations being timed, so the columns are labelled block-mean
+ * and understate the tail of a single operation.
+ */
 public final class TestSerialisationPerf
 {
+    static final String TMP = System.getProperty("java.io.tmpdir");
+
     public static final int REPETITIONS = 1 * 1000 * 1000;
- 
-    private static ObjectToBeSerialised ITEM =
-        new ObjectToBeSerialised(
-            1010L, true, 777, 99,
-            new double[]{0.1, 0.2, 0.3, 0.4, 0.5, 0.6, 0.7, 0.8, 0.9, 1.0},
-            new long[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
- 
- 
+
+    /**
+     * Large shapes repeat less so each run moves at most this many bytes.
+     */
+    public static final long BYTES_PER_RUN = 50L * 1000 * 1000;
+
+    public static final int MIN_REPETITIONS = 10 * 1000;
+
+    public static final int BLOCK = 100;
+
+    public static final int RUNS = 5;
+
+    /**
+     * The shapes as the lengths of the prices and quantities arrays.
+     */
+    private static final int[][] SHAPES =
+    {
+        {0, 0},
+        {10, 10},
+        {100, 0},
+        {0, 100},
+        {1000, 1000},
+    };
+
     public static void main(final String[] arg) throws Exception
     {
-        for (final PerformanceTestCase testCase : testCases)
+        final String location = TMP + "/" + TestSerialisationPerf.class.getSimpleName();
+        ChronicleTools.deleteOnExit(location);
+        final IndexedChronicle chronicle = new IndexedChronicle(location);
+
+        for (final int[] shape : SHAPES)
         {
-            for (int i = 0; i < 5; i++)
+            final ObjectToBeSerialised item = ObjectToBeSerialised.withShape(shape[0], shape[1]);
+            final int capacity = 2 * item.size() + 1024;
+            final int repetitions = roundToBlock((int) Math.max(MIN_REPETITIONS, Math.min(REPETITIONS, BYTES_PER_RUN / item.size())));
+            final PerformanceTestCase[] testCases = testCases(capacity, chronicle);
+
+            for (final PerformanceTestCase testCase : testCases)
             {
-                testCase.performTest();
- 
-                System.out.format("%d %s\twrite=%,dns read=%,dns total=%,dns\n",
-                                  i,
-                                  testCase.getName(),
-                                  testCase.getWriteTimeNanos(),
-                                  testCase.getReadTimeNanos(),
-                                  testCase.getWriteTimeNanos() + 
-                                  testCase.getReadTimeNanos());
- 
-                if (!ITEM.equals(testCase.getTestOutput()))
+                for (int i = 0; i < RUNS; i++)
                 {
-                    throw new IllegalStateException("Objects do not match");
+                    testCase.performTest(item, repetitions);
+
+                    System.out.format("%d %s\t%s\tops/s=%,d bytes=%,d\twrite %s\tread %s\n",
+                                      i,
+                                      "prices=" + shape[0] + ",quantities=" + shape[1],
+                                      testCase.getName(),
+                                      testCase.getOpsPerSecond(),
+                                      testCase.getBytesPerMessage(),
+                                      percentiles(testCase.getWriteLatency()),
+                                      percentiles(testCase.getReadLatency()));
+
+                    if (!item.equals(testCase.getTestOutput()))
+                    {
+                        throw new IllegalStateException("Objects do not match");
+                    }
+
+                    System.gc();
+                    Thread.sleep(1000);
                 }
- 
-                System.gc();
-                Thread.sleep(3000);
             }
         }
+
+        chronicle.close();
+    }
+
+    private static int roundToBlock(final int repetitions)
+    {
+        return (repetitions / BLOCK) * BLOCK;
     }
- 
-    private static final PerformanceTestCase[] testCases =
+
+    private static String percentiles(final LatencyHistogram histogram)
     {
-//        new PerformanceTestCase("Serialisation", REPETITIONS, ITEM)
-//        {
-//            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-// 
-//            public void testWrite(ObjectToBeSerialised item) throws Exception
-//            {
-//                for (int i = 0; i < REPETITIONS; i++)
-//                {
-//                    baos.reset();
-// 
-//                    ObjectOutputStream oos = new ObjectOutputStream(baos);
-//                    oos.writeObject(item);
-//                    oos.close();
-//                }
-//            }
-// 
-//            public ObjectToBeSerialised testRead() throws Exception
-//            {
-//                ObjectToBeSerialised object = null;
-//                for (int i = 0; i < REPETITIONS; i++)
-//                {
-//                    ByteArrayInputStream bais = 
-//                        new ByteArrayInputStream(baos.toByteArray());
-//                    ObjectInputStream ois = new ObjectInputStream(bais);
-//                    object = (ObjectToBeSerialised)ois.readObject();
-//                }
-// 
-//                return object;
-//            }
-//        },
- 
-//        new PerformanceTestCase("ByteBuffer", REPETITIONS, ITEM)
-//        {
-//            ByteBuffer byteBuffer = ByteBuffer.allocate(1024);
-// 
-//            public void testWrite(ObjectToBeSerialised item) throws Exception
-//            {
-//                for (int i = 0; i < REPETITIONS; i++)
-//                {
-//                    byteBuffer.clear();
-//                    item.write(byteBuffer);
-//                }
-//            }
-// 
-//            public ObjectToBeSerialised testRead() throws Exception
-//            {
-//                ObjectToBeSerialised object = null;
-//                for (int i = 0; i < REPETITIONS; i++)
-//                {
-//                    byteBuffer.flip();
-//                    object = ObjectToBeSerialised.read(byteBuffer);
-//                }
-// 
-//                return object;
-//            }
-//        },
- 
-        new PerformanceTestCase("UnsafeMemory", REPETITIONS, ITEM)
+        return String.format("block-mean p50=%,dns p99=%,dns p999=%,dns",
+                             histogram.percentile(50),
+                             histogram.percentile(99),
+                             histogram.percentile(99.9));
+    }
+
+    private static PerformanceTestCase[] testCases(final int capacity, final IndexedChronicle chronicle)
+    {
+        return new PerformanceTestCase[]
         {
-            UnsafeMemory buffer = new UnsafeMemory(new byte[1024]);
- 
-            public void testWrite(ObjectToBeSerialised item) throws Exception
+            new PerformanceTestCase("Serialisation")
+            {
+                ByteArrayOutputStream baos = new ByteArrayOutputStream(capacity);
+                byte[] bytes;
+
+                public int write(ObjectToBeSerialised item) throws Exception
+                {
+                    baos.reset();
+                    ObjectOutputStream oos = new ObjectOutputStream(baos);
+                    oos.writeObject(item);
+                    oos.close();
+                    return baos.size();
+                }
+
+                public ObjectToBeSerialised read() throws Exception
+                {
+                    if (bytes == null || bytes.length != baos.size())
+                    {
+                        bytes = baos.toByteArray();
+                    }
+                    ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes));
+                    return (ObjectToBeSerialised)ois.readObject();
+                }
+            },
+
+            new ByteBufferTestCase("ByteBuffer heap", ByteBuffer.allocate(capacity)),
+
+            new ByteBufferTestCase("ByteBuffer direct", ByteBuffer.allocateDirect(capacity)),
+
+            new PerformanceTestCase("UnsafeMemory")
             {
-                for (int i = 0; i < REPETITIONS; i++)
+                UnsafeMemory buffer = new UnsafeMemory(new byte[capacity]);
+
+                public int write(ObjectToBeSerialised item) throws Exception
                 {
                     buffer.reset();
                     item.write(buffer);
+                    return (int)buffer.position();
                 }
-            }
- 
-            public ObjectToBeSerialised testRead() throws Exception
-            {
-                ObjectToBeSerialised object = null;
-                for (int i = 0; i < REPETITIONS; i++)
+
+                public ObjectToBeSerialised read() throws Exception
                 {
                     buffer.reset();
-                    object = ObjectToBeSerialised.read(buffer);
+                    return ObjectToBeSerialised.read(buffer);
                 }
- 
-                return object;
-            }
-        },
-    };
+            },
+
+            new PerformanceTestCase("Excerpt")
+            {
+                Excerpt excerpt = excerpt(chronicle, capacity);
+
+                public int write(ObjectToBeSerialised item) throws Exception
+                {
+                    excerpt.position(0);
+                    item.write(excerpt);
+                    return excerpt.position();
+                }
+
+                public ObjectToBeSerialised read() throws Exception
+                {
+                    excerpt.position(0);
+                    return ObjectToBeSerialised.read(excerpt);
+                }
+            },
+        };
+    }
+
+    /**
+     * One excerpt of the chronicle which every repetition overwrites in place
+     * so the run measures the excerpt's write methods rather than the
+     * chronicle growing.
+     */
+    private static Excerpt excerpt(final IndexedChronicle chronicle, final int capacity)
+    {
+        final Excerpt excerpt = chronicle.createExcerpt();
+        excerpt.startExcerpt(capacity);
+        excerpt.position(capacity - 1);
+        excerpt.writeByte(0);
+        excerpt.finish();
+        excerpt.index(chronicle.size() - 1);
+        return excerpt;
+    }
 }
- 
+
+class ByteBufferTestCase extends PerformanceTestCase
+{
+    private final ByteBuffer byteBuffer;
+
+    public ByteBufferTestCase(final String name, final ByteBuffer byteBuffer)
+    {
+        super(name);
+        this.byteBuffer = byteBuffer;
+    }
+
+    public int write(ObjectToBeSerialised item) throws Exception
+    {
+        byteBuffer.clear();
+        item.write(byteBuffer);
+        return byteBuffer.position();
+    }
+
+    public ObjectToBeSerialised read() throws Exception
+    {
+        byteBuffer.rewind();
+        return ObjectToBeSerialised.read(byteBuffer);
+    }
+}
+
 abstract class PerformanceTestCase
 {
     private final String name;
-    private final int repetitions;
-    private final ObjectToBeSerialised testInput;
+    private final LatencyHistogram writeLatency = new LatencyHistogram();
+    private final LatencyHistogram readLatency = new LatencyHistogram();
     private ObjectToBeSerialised testOutput;
-    private long writeTimeNanos;
-    private long readTimeNanos;
- 
-    public PerformanceTestCase(final String name, final int repetitions,
-                               final ObjectToBeSerialised testInput)
+    private long opsPerSecond;
+    private int bytesPerMessage;
+
+    public PerformanceTestCase(final String name)
     {
         this.name = name;
-        this.repetitions = repetitions;
-        this.testInput = testInput;
     }
- 
+
     public String getName()
     {
         return name;
     }
- 
+
     public ObjectToBeSerialised getTestOutput()
     {
         return testOutput;
     }
- 
-    public long getWriteTimeNanos()
+
+    /**
+     * @return how many times a message could be written and read back
+     */
+    public long getOpsPerSecond()
     {
-        return writeTimeNanos;
+        return opsPerSecond;
     }
- 
-    public long getReadTimeNanos()
+
+    public int getBytesPerMessage()
     {
-        return readTimeNanos;
+        return bytesPerMessage;
     }
- 
-    public void performTest() throws Exception
+
+    public LatencyHistogram getWriteLatency()
     {
-        final long startWriteNanos = System.nanoTime();
-        testWrite(testInput);
-        writeTimeNanos = (System.nanoTime() - startWriteNanos) / repetitions;
- 
-        final long startReadNanos = System.nanoTime();
-        testOutput = testRead();
-        readTimeNanos = (System.nanoTime() - startReadNanos) / repetitions;
+        return writeLatency;
+    }
+
+    public LatencyHistogram getReadLatency()
+    {
+        return readLatency;
+    }
+
+    public void performTest(final ObjectToBeSerialised testInput, final int repetitions) throws Exception
+    {
+        writeLatency.reset();
+        readLatency.reset();
+        long writeNanos = 0;
+        long readNanos = 0;
+        for (int block = 0; block < repetitions / TestSerialisationPerf.BLOCK; block++)
+        {
+            final long startWriteNanos = System.nanoTime();
+            for (int i = 0; i < TestSerialisationPerf.BLOCK; i++)
+            {
+                bytesPerMessage = write(testInput);
+            }
+            final long startReadNanos = System.nanoTime();
+            for (int i = 0; i < TestSerialisationPerf.BLOCK; i++)
+            {
+                testOutput = read();
+            }
+            final long endNanos = System.nanoTime();
+
+            writeNanos += startReadNanos - startWriteNanos;
+            readNanos += endNanos - startReadNanos;
+            writeLatency.record((startReadNanos - startWriteNanos) / TestSerialisationPerf.BLOCK);
+            readLatency.record((endNanos - startReadNanos) / TestSerialisationPerf.BLOCK);
+        }
+        opsPerSecond = repetitions * 1000L * 1000L * 1000L / Math.max(1, writeNanos + readNanos);
     }
- 
-    public abstract void testWrite(ObjectToBeSerialised item) throws Exception;
-    public abstract ObjectToBeSerialised testRead() throws Exception;
+
+    /**
+     * @return the bytes written
+     */
+    public abstract int write(ObjectToBeSerialised item) throws Exception;
+    public abstract ObjectToBeSerialised read() throws Exception;
 }
- 
+
 class ObjectToBeSerialised implements Serializable
 {
     private static final long serialVersionUID = 10275539472837495L;
- 
+
     private final long sourceId;
     private final boolean special;
     private final int orderCode;
     private final int priority;
     private final double[] prices;
     private final long[] quantities;
- 
+
     public ObjectToBeSerialised(final long sourceId, final boolean special,
                                 final int orderCode, final int priority,
                                 final double[] prices, final long[] quantities)
@@ -208,52 +320,75 @@ class ObjectToBeSerialised implements Serializable
         this.prices = prices;
         this.quantities = quantities;
     }
- 
+
+    public static ObjectToBeSerialised withShape(final int pricesSize, final int quantitiesSize)
+    {
+        final double[] prices = new double[pricesSize];
+        for (int i = 0; i < pricesSize; i++)
+        {
+            prices[i] = (i + 1) / 10.0;
+        }
+        final long[] quantities = new long[quantitiesSize];
+        for (int i = 0; i < quantitiesSize; i++)
+        {
+            quantities[i] = i + 1;
+        }
+        return new ObjectToBeSerialised(1010L, true, 777, 99, prices, quantities);
+    }
+
+    /**
+     * @return the bytes of the binary encodings
+     */
+    public int size()
+    {
+        return 8 + 1 + 4 + 4 + 4 + 8 * prices.length + 4 + 8 * quantities.length;
+    }
+
     public void write(final ByteBuffer byteBuffer)
     {
         byteBuffer.putLong(sourceId);
         byteBuffer.put((byte)(special ? 1 : 0));
         byteBuffer.putInt(orderCode);
         byteBuffer.putInt(priority);
- 
+
         byteBuffer.putInt(prices.length);
         for (final double price : prices)
         {
             byteBuffer.putDouble(price);
         }
- 
+
         byteBuffer.putInt(quantities.length);
         for (final long quantity : quantities)
         {
             byteBuffer.putLong(quantity);
         }
     }
- 
+
     public static ObjectToBeSerialised read(final ByteBuffer byteBuffer)
     {
         final long sourceId = byteBuffer.getLong();
         final boolean special = 0 != byteBuffer.get();
         final int orderCode = byteBuffer.getInt();
         final int priority = byteBuffer.getInt();
- 
+
         final int pricesSize = byteBuffer.getInt();
         final double[] prices = new double[pricesSize];
         for (int i = 0; i < pricesSize; i++)
         {
             prices[i] = byteBuffer.getDouble();
         }
- 
+
         final int quantitiesSize = byteBuffer.getInt();
         final long[] quantities = new long[quantitiesSize];
         for (int i = 0; i < quantitiesSize; i++)
         {
             quantities[i] = byteBuffer.getLong();
         }
- 
-        return new ObjectToBeSerialised(sourceId, special, orderCode, 
+
+        return new ObjectToBeSerialised(sourceId, special, orderCode,
                                         priority, prices, quantities);
     }
- 
+
     public void write(final UnsafeMemory buffer)
     {
         buffer.putLong(sourceId);
@@ -263,7 +398,7 @@ class ObjectToBeSerialised implements Serializable
         buffer.putDoubleArray(prices);
         buffer.putLongArray(quantities);
     }
- 
+
     public static ObjectToBeSerialised read(final UnsafeMemory buffer)
     {
         final long sourceId = buffer.getLong();
@@ -272,11 +407,56 @@ class ObjectToBeSerialised implements Serializable
         final int priority = buffer.getInt();
         final double[] prices = buffer.getDoubleArray();
         final long[] quantities = buffer.getLongArray();
- 
-        return new ObjectToBeSerialised(sourceId, special, orderCode, 
+
+        return new ObjectToBeSerialised(sourceId, special, orderCode,
                                         priority, prices, quantities);
     }
- 
+
+    public void write(final Excerpt excerpt)
+    {
+        excerpt.writeLong(sourceId);
+        excerpt.writeBoolean(special);
+        excerpt.writeInt(orderCode);
+        excerpt.writeInt(priority);
+
+        excerpt.writeInt(prices.length);
+        for (final double price : prices)
+        {
+            excerpt.writeDouble(price);
+        }
+
+        excerpt.writeInt(quantities.length);
+        for (final long quantity : quantities)
+        {
+            excerpt.writeLong(quantity);
+        }
+    }
+
+    public static ObjectToBeSerialised read(final Excerpt excerpt)
+    {
+        final long sourceId = excerpt.readLong();
+        final boolean special = excerpt.readBoolean();
+        final int orderCode = excerpt.readInt();
+        final int priority = excerpt.readInt();
+
+        final int pricesSize = excerpt.readInt();
+        final double[] prices = new double[pricesSize];
+        for (int i = 0; i < pricesSize; i++)
+        {
+            prices[i] = excerpt.readDouble();
+        }
+
+        final int quantitiesSize = excerpt.readInt();
+        final long[] quantities = new long[quantitiesSize];
+        for (int i = 0; i < quantitiesSize; i++)
+        {
+            quantities[i] = excerpt.readLong();
+        }
+
+        return new ObjectToBeSerialised(sourceId, special, orderCode,
+                                        priority, prices, quantities);
+    }
+
     @Override
     public boolean equals(final Object o)
     {
@@ -288,9 +468,9 @@ class ObjectToBeSerialised implements Serializable
         {
             return false;
         }
- 
+
         final ObjectToBeSerialised that = (ObjectToBeSerialised)o;
- 
+
         if (orderCode != that.orderCode)
         {
             return false;
@@ -315,143 +495,7 @@ class ObjectToBeSerialised implements Serializable
         {
             return false;
         }
- 
+
         return true;
     }
 }
- 
-class UnsafeMemory
-{
-    private static final Unsafe unsafe;
-    static
-    {
-        try
-        {
-            Field field = Unsafe.class.getDeclaredField("theUnsafe");
-            field.setAccessible(true);
-            unsafe = (Unsafe)field.get(null);
-        }
-        catch (Exception e)
-        {
-            throw new RuntimeException(e);
-        }
-    }
- 
-    private static final long byteArrayOffset = unsafe.arrayBaseOffset(byte[].class);
-    private static final long longArrayOffset = unsafe.arrayBaseOffset(long[].class);
-    private static final long doubleArrayOffset = unsafe.arrayBaseOffset(double[].class);
- 
-    private static final int SIZE_OF_BOOLEAN = 1;
-    private static final int SIZE_OF_INT = 4;
-    private static final int SIZE_OF_LONG = 8;
- 
-    private int pos = 0;
-    private final byte[] buffer;
- 
-    public UnsafeMemory(final byte[] buffer)
-    {
-        if (null == buffer)
-        {
-            throw new NullPointerException("buffer cannot be null");
-        }
- 
-        this.buffer = buffer;
-    }
- 
-    public void reset()
-    {
-        this.pos = 0;
-    }
- 
-    public void putBoolean(final boolean value)
-    {
-        unsafe.putBoolean(buffer, byteArrayOffset + pos, value);
-        pos += SIZE_OF_BOOLEAN;
-    }
- 
-    public boolean getBoolean()
-    {
-        boolean value = unsafe.getBoolean(buffer, byteArrayOffset + pos);
-        pos += SIZE_OF_BOOLEAN;
- 
-        return value;
-    }
- 
-    public void putInt(final int value)
-    {
-        unsafe.putInt(buffer, byteArrayOffset + pos, value);
-        pos += SIZE_OF_INT;
-    }
- 
-    public int getInt()
-    {
-        int value = unsafe.getInt(buffer, byteArrayOffset + pos);
-        pos += SIZE_OF_INT;
- 
-        return value;
-    }
- 
-    public void putLong(final long value)
-    {
-        unsafe.putLong(buffer, byteArrayOffset + pos, value);
-        pos += SIZE_OF_LONG;
-    }
- 
-    public long getLong()
-    {
-        long value = unsafe.getLong(buffer, byteArrayOffset + pos);
-        pos += SIZE_OF_LONG;
- 
-        return value;
-    }
- 
-    public void putLongArray(final long[] values)
-    {
-        putInt(values.length);
- 
-        long bytesToCopy = values.length << 3;
-        unsafe.copyMemory(values, longArrayOffset,
-                          buffer, byteArrayOffset + pos,
-                          bytesToCopy);
-        pos += bytesToCopy;
-    }
- 
-    public long[] getLongArray()
-    {
-        int arraySize = getInt();
-        long[] values = new long[arraySize];
- 
-        long bytesToCopy = values.length << 3;
-        unsafe.copyMemory(buffer, byteArrayOffset + pos,
-                          values, longArrayOffset,
-                          bytesToCopy);
-        pos += bytesToCopy;
- 
-        return values;
-    }
- 
-    public void putDoubleArray(final double[] values)
-    {
-        putInt(values.length);
- 
-        long bytesToCopy = values.length << 3;
-        unsafe.copyMemory(values, doubleArrayOffset,
-                          buffer, byteArrayOffset + pos,
-                          bytesToCopy);
-        pos += bytesToCopy;
-    }
- 
-    public double[] getDoubleArray()
-    {
-        int arraySize = getInt();
-        double[] values = new double[arraySize];
- 
-        long bytesToCopy = values.length << 3;
-        unsafe.copyMemory(buffer, byteArrayOffset + pos,
-                          values, doubleArrayOffset,
-                          bytesToCopy);
-        pos += bytesToCopy;
- 
-        return values;
-    }
-}
\ No newline at end of file
@@ -0,0 +1,268 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.higherfrequencytrading.chronicle.Excerpt;
+import com.higherfrequencytrading.chronicle.impl.IndexedChronicle;
+import com.higherfrequencytrading.chronicle.tools.ChronicleTools;
+
+public class UnsafeMemoryTests {
+
+	static final String TMP = System.getProperty("java.io.tmpdir");
+
+	private static String location = TMP+"/"+UnsafeMemoryTests.class.getSimpleName();
+
+	static {
+		ChronicleTools.deleteOnExit(location);
+	}
+
+	static class Leg {
+		long quantity;
+		String venue;
+	}
+
+	static class Order {
+		long sourceId;
+		boolean special;
+		int orderCode;
+		double price;
+		String trader;
+		double[] prices;
+		long[] quantities;
+		Leg leg;
+	}
+
+	static final UnsafeCodec<Leg> LEG = new UnsafeCodec<Leg>() {
+		@Override
+		public void write(UnsafeMemory memory, Leg leg) {
+			memory.putLong(leg.quantity);
+			memory.putAscii(leg.venue);
+		}
+
+		@Override
+		public Leg read(UnsafeMemory memory, Leg reuse) {
+			Leg leg = reuse != null ? reuse : new Leg();
+			leg.quantity = memory.getLong();
+			leg.venue = memory.getAscii();
+			return leg;
+		}
+	};
+
+	static final UnsafeCodec<Order> ORDER = new UnsafeCodec<Order>() {
+		@Override
+		public void write(UnsafeMemory memory, Order order) {
+			memory.putLong(order.sourceId);
+			memory.putBoolean(order.special);
+			memory.putInt(order.orderCode);
+			memory.putDouble(order.price);
+			memory.putString(order.trader);
+			memory.putDoubleArray(order.prices);
+			memory.putLongArray(order.quantities);
+			memory.putObject(order.leg, LEG);
+		}
+
+		@Override
+		public Order read(UnsafeMemory memory, Order reuse) {
+			Order order = reuse != null ? reuse : new Order();
+			order.sourceId = memory.getLong();
+			order.special = memory.getBoolean();
+			order.orderCode = memory.getInt();
+			order.price = memory.getDouble();
+			order.trader = memory.getString();
+			order.prices = memory.getDoubleArray(order.prices);
+			order.quantities = memory.getLongArray(order.quantities);
+			order.leg = memory.getObject(LEG, order.leg);
+			return order;
+		}
+	};
+
+	private IndexedChronicle chronicle;
+
+	@Before
+	public void setup() throws Exception {
+		chronicle = new IndexedChronicle(location);
+	}
+
+	private Order order(long sourceId) {
+		Order order = new Order();
+		order.sourceId = sourceId;
+		order.special = true;
+		order.orderCode = 777;
+		order.price = 101.25;
+		order.trader = "Zo\u00eb \u20ac \ud83d\ude00";
+		order.prices = new double[]{0.1, 0.2, 0.3};
+		order.quantities = null;
+		order.leg = new Leg();
+		order.leg.quantity = 5;
+		order.leg.venue = "LSE";
+		return order;
+	}
+
+	private void assertOrder(Order actual, Order expected) {
+		assertThat(actual.sourceId, is(expected.sourceId));
+		assertThat(actual.special, is(expected.special));
+		assertThat(actual.orderCode, is(expected.orderCode));
+		assertThat(actual.price, is(expected.price));
+		assertThat(actual.trader, is(expected.trader));
+		assertArrayEquals(expected.prices, actual.prices, 0.0);
+		assertThat(actual.quantities, is((long[]) null));
+		assertThat(actual.leg.quantity, is(expected.leg.quantity));
+		assertThat(actual.leg.venue, is(expected.leg.venue));
+	}
+
+	private void assertRoundTrip(UnsafeMemory memory) {
+		// given
+		Order expected = order(1010L);
+
+		// when
+		ORDER.write(memory, expected);
+		long written = memory.position();
+		memory.reset();
+		Order actual = ORDER.read(memory, null);
+
+		// then
+		assertOrder(actual, expected);
+		assertThat(memory.position(), is(written));
+	}
+
+	@Test
+	public void testHeapRoundTrip() throws Exception {
+		assertRoundTrip(new UnsafeMemory(new byte[256]));
+	}
+
+	@Test
+	public void testDirectRoundTrip() throws Exception {
+		assertRoundTrip(new UnsafeMemory(ByteBuffer.allocateDirect(256), true));
+	}
+
+	@Test
+	public void testUtf8MatchesTheJdk() throws Exception {
+		// given
+		String text = "Zo\u00eb \u20ac \ud83d\ude00";
+		UnsafeMemory memory = new UnsafeMemory(new byte[64], true);
+
+		// when
+		memory.putString(text);
+
+		// then
+		assertThat(memory.position(), is(4L + text.getBytes("UTF-8").length));
+		memory.reset();
+		StringBuilder builder = new StringBuilder();
+		assertThat(memory.getString(builder), is(true));
+		assertThat(builder.toString(), is(text));
+	}
+
+	@Test
+	public void testMappedFileIsSharedBetweenMappings() throws Exception {
+		// given
+		File file = new File(location+".mapped");
+		file.deleteOnExit();
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		MappedByteBuffer writer = raf.getChannel().map(MapMode.READ_WRITE, 0, 256);
+		MappedByteBuffer reader = raf.getChannel().map(MapMode.READ_WRITE, 0, 256);
+		raf.close();
+		Order expected = order(42L);
+
+		// when
+		ORDER.write(new UnsafeMemory(writer), expected);
+
+		// then
+		assertOrder(ORDER.read(new UnsafeMemory(reader), null), expected);
+	}
+
+	@Test
+	public void testReuseKeepsArrays() throws Exception {
+		// given
+		UnsafeMemory memory = new UnsafeMemory(new byte[256]);
+		ORDER.write(memory, order(1L));
+		memory.reset();
+		Order reuse = ORDER.read(memory, null);
+		double[] prices = reuse.prices;
+		Leg leg = reuse.leg;
+
+		// when
+		memory.reset();
+		ORDER.write(memory, order(2L));
+		memory.reset();
+		Order actual = ORDER.read(memory, reuse);
+
+		// then
+		assertThat(actual, sameInstance(reuse));
+		assertThat(actual.prices, sameInstance(prices));
+		assertThat(actual.leg, sameInstance(leg));
+		assertThat(actual.sourceId, is(2L));
+	}
+
+	@Test
+	public void testCheckedThrowsPastCapacity() throws Exception {
+		// given
+		UnsafeMemory memory = new UnsafeMemory(new byte[12], true);
+		memory.putLong(1L);
+
+		// when
+		try {
+			memory.putLong(2L);
+			fail("wrote past the capacity");
+		} catch (IndexOutOfBoundsException e) {
+			// then
+			assertThat(memory.position(), is(8L));
+		}
+	}
+
+	@Test
+	public void testCheckedRejectsCorruptLength() throws Exception {
+		// given
+		UnsafeMemory memory = new UnsafeMemory(new byte[64], true);
+		memory.putInt(1 << 20);
+		memory.reset();
+
+		// when
+		try {
+			memory.getLongArray();
+			fail("read a length larger than the memory");
+		} catch (IndexOutOfBoundsException e) {
+			// then
+			assertThat(memory.position(), is(4L));
+		}
+	}
+
+	@Test
+	public void testUnsafeMarshallerRoundTrip() throws Exception {
+		// given
+		UnsafeMarshaller<Order> marshaller = new UnsafeMarshaller<Order>(ORDER, 256);
+		Order expected = order(7L);
+		Excerpt excerpt = chronicle.createExcerpt();
+		excerpt.startExcerpt(512);
+		marshaller.write(excerpt, expected);
+		excerpt.finish();
+
+		// when
+		excerpt.index(chronicle.size() - 1);
+		Order actual = marshaller.read(excerpt, null);
+		excerpt.finish();
+
+		// then
+		assertOrder(actual, expected);
+	}
+
+	@Test(expected=IndexOutOfBoundsException.class)
+	public void testUnsafeMarshallerRejectsOversizeMessage() throws Exception {
+		UnsafeMarshaller<Order> marshaller = new UnsafeMarshaller<Order>(ORDER, 16);
+		Excerpt excerpt = chronicle.createExcerpt();
+		excerpt.startExcerpt(512);
+		marshaller.write(excerpt, order(1L));
+	}
+}
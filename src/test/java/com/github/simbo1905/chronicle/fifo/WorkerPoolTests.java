@@ -0,0 +1,129 @@
+package com.github.simbo1905.chronicle.fifo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.higherfrequencytrading.chronicle.impl.IndexedChronicle;
+import com.higherfrequencytrading.chronicle.tools.ChronicleTools;
+
+public class WorkerPoolTests {
+
+	static final String TMP = System.getProperty("java.io.tmpdir");
+
+	private static String location = TMP+"/"+WorkerPoolTests.class.getSimpleName();
+
+	static {
+		ChronicleTools.deleteOnExit(location);
+	}
+
+	static final int WORKERS = 4;
+
+	static final int KEYS = 8;
+
+	static final int PAYLOAD_SIZE = 16;
+
+	int some = -1;
+
+	private IndexedChronicle chronicle;
+
+	@Before
+	public void setup() throws Exception {
+		some = 2 << 9;
+		chronicle = new IndexedChronicle(location);
+	}
+
+	@Test
+	public void testCompetingWorkersHandleEachMessageOnce() throws Exception {
+		// given
+		Fifo<String> fifo = new Fifo<String>("workers1", chronicle, String.class, PAYLOAD_SIZE, 2 << 4);
+		Fifo<String>.FifoHead head = fifo.head();
+		head.start();
+		final Set<String> handled = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+		final CountDownLatch latch = new CountDownLatch(some);
+		Fifo<String>.FifoTail tail = fifo.tail(WORKERS, new FifoHandler<String>() {
+			@Override
+			public void onMessage(String message, long sequence, boolean endOfBatch) throws Exception {
+				assertTrue("duplicate "+message, handled.add(message));
+				latch.countDown();
+			}
+		});
+		tail.start();
+
+		// when
+		for( int index = 0; index < some; index++ ) {
+			head.add(Integer.toString(index));
+		}
+
+		// then
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		assertThat(handled.size(), is(some));
+
+		head.close();
+		tail.close();
+	}
+
+	@Test
+	public void testPartitionsKeepFifoOrderPerKey() throws Exception {
+		// given
+		Fifo<String> fifo = new Fifo<String>("workers2", chronicle, String.class, PAYLOAD_SIZE, 2 << 4);
+		Fifo<String>.FifoHead head = fifo.head();
+		head.start();
+		final Map<Integer, Integer> next = new ConcurrentHashMap<Integer, Integer>();
+		final Map<Integer, Thread> owners = new ConcurrentHashMap<Integer, Thread>();
+		final CountDownLatch latch = new CountDownLatch(some);
+		final Partitioner<String> byKey = new Partitioner<String>() {
+			@Override
+			public int partition(String message) {
+				return key(message);
+			}
+		};
+		Fifo<String>.FifoTail tail = fifo.tail(WORKERS, byKey, new FifoHandler<String>() {
+			@Override
+			public void onMessage(String message, long sequence, boolean endOfBatch) throws Exception {
+				final int key = key(message);
+				final int expected = next.containsKey(key) ? next.get(key) : 0;
+				assertThat(message, Integer.parseInt(message.substring(message.indexOf(':')+1)), is(expected));
+				next.put(key, expected + 1);
+				if( owners.containsKey(key) ) {
+					assertThat(owners.get(key), is(Thread.currentThread()));
+				} else {
+					owners.put(key, Thread.currentThread());
+				}
+				latch.countDown();
+			}
+		});
+		tail.start();
+
+		// when
+		Map<Integer, Integer> sent = new HashMap<Integer, Integer>();
+		for( int index = 0; index < some; index++ ) {
+			final int key = index % KEYS;
+			final int count = sent.containsKey(key) ? sent.get(key) : 0;
+			head.add(key+":"+count);
+			sent.put(key, count + 1);
+		}
+
+		// then
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		assertThat(next, is(sent));
+
+		head.close();
+		tail.close();
+	}
+
+	static int key(String message) {
+		return Integer.parseInt(message.substring(0, message.indexOf(':')));
+	}
+}
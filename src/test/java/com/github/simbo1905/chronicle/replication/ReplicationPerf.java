@@ -0,0 +1,84 @@
+package com.github.simbo1905.chronicle.replication;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+
+import com.github.simbo1905.chronicle.fifo.Fifo;
+import com.github.simbo1905.chronicle.fifo.FifoHandler;
+import com.github.simbo1905.chronicle.fifo.LatencyHistogram;
+import com.higherfrequencytrading.chronicle.impl.IndexedChronicle;
+import com.higherfrequencytrading.chronicle.tools.ChronicleTools;
+
+/**
+ * Replicates a fifo over loopback and reports the throughput of the copy 
+ * and the lag from the master's add to a tail reading the slave's copy. 
+ * Each message carries the nanoTime of its add so the master and slave must 
+ * share a clock which they do in this one jvm. 
+ */
+public final class ReplicationPerf
+{
+    static final String TMP = System.getProperty("java.io.tmpdir");
+
+    public static final int REPETITIONS = 1000 * 1000;
+
+    public static void main(final String[] arg) throws Exception
+    {
+        final int payloadSize = Long.toString(Long.MAX_VALUE).length() + 1;
+
+        for (int run = 0; run < 3; run++)
+        {
+            final String location = TMP + "/" + ReplicationPerf.class.getSimpleName() + "-" + run;
+            ChronicleTools.deleteOnExit(location + "-master");
+            ChronicleTools.deleteOnExit(location + "-slave");
+            final IndexedChronicle master = new IndexedChronicle(location + "-master");
+            final IndexedChronicle slave = new IndexedChronicle(location + "-slave");
+
+            final Fifo<String> fifo = new Fifo<String>("replication", master, String.class, payloadSize, 2 << 14);
+            final Fifo<String> copy = new Fifo<String>("replication", slave, String.class, payloadSize, 2 << 14);
+            final Fifo<String>.FifoHead head = fifo.head();
+            head.start();
+
+            final ReplicationMaster publisher = new ReplicationMaster(master, new InetSocketAddress("localhost", 0));
+            publisher.start();
+            final ReplicationSlave replica = new ReplicationSlave(slave, new InetSocketAddress("localhost", publisher.port()));
+            replica.start();
+
+            final LatencyHistogram lag = new LatencyHistogram();
+            final CountDownLatch latch = new CountDownLatch(REPETITIONS);
+            final Fifo<String>.FifoTail tail = copy.tail(new FifoHandler<String>()
+            {
+                @Override
+                public void onMessage(final String message, final long sequence, final boolean endOfBatch) throws Exception
+                {
+                    lag.record(System.nanoTime() - Long.parseLong(message));
+                    latch.countDown();
+                }
+            });
+            tail.start();
+
+            final long start = System.nanoTime();
+            for (int i = 0; i < REPETITIONS; i++)
+            {
+                head.add(Long.toString(System.nanoTime()));
+            }
+            latch.await();
+            final long elapsed = System.nanoTime() - start;
+
+            final long excerpts = slave.size();
+            System.out.format("%d excerpts/s=%,d messages/s=%,d lag %s\n",
+                              run,
+                              excerpts * 1000L * 1000L * 1000L / elapsed,
+                              REPETITIONS * 1000L * 1000L * 1000L / elapsed,
+                              lag);
+
+            tail.close();
+            replica.close();
+            publisher.close();
+            head.close();
+            master.close();
+            slave.close();
+            System.gc();
+            Thread.sleep(1000);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.github.simbo1905.chronicle.replication;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.simbo1905.chronicle.fifo.Fifo;
+import com.higherfrequencytrading.chronicle.impl.IndexedChronicle;
+import com.higherfrequencytrading.chronicle.tools.ChronicleTools;
+
+public class ReplicationTests {
+
+	static final String TMP = System.getProperty("java.io.tmpdir");
+
+	private static String location = TMP+"/"+ReplicationTests.class.getSimpleName();
+
+	static {
+		ChronicleTools.deleteOnExit(location+"-master");
+		ChronicleTools.deleteOnExit(location+"-slave");
+		ChronicleTools.deleteOnExit(location+"-gap");
+	}
+
+	int payloadSize = -1;
+
+	private IndexedChronicle master;
+
+	private IndexedChronicle slave;
+
+	@Before
+	public void setup() throws Exception {
+		payloadSize = UUID.randomUUID().toString().getBytes("UTF8").length+1;
+		master = new IndexedChronicle(location+"-master");
+		slave = new IndexedChronicle(location+"-slave");
+	}
+
+	@Test
+	public void testSlaveResumesFromWhereItStopped() throws Exception {
+		// given
+		Fifo<String> fifo = new Fifo<String>("replicated", master, String.class, payloadSize, 2 << 2);
+		Fifo<String>.FifoHead head = fifo.head();
+		head.start();
+		ReplicationMaster publisher = new ReplicationMaster(master, new InetSocketAddress("localhost", 0));
+		publisher.start();
+		InetSocketAddress address = new InetSocketAddress("localhost", publisher.port());
+		ReplicationSlave replica = new ReplicationSlave(slave, address);
+		replica.start();
+		Fifo<String> copy = new Fifo<String>("replicated", slave, String.class, payloadSize, 2 << 2);
+		Fifo<String>.FifoTail tail = copy.tail();
+		tail.start();
+
+		// when
+		String first = UUID.randomUUID().toString();
+		head.add(first);
+
+		// then
+		assertThat(tail.poll(10, TimeUnit.SECONDS), is(first));
+
+		// when the slave is stopped while the master carries on
+		replica.close();
+		String second = UUID.randomUUID().toString();
+		String third = UUID.randomUUID().toString();
+		head.add(second);
+		head.add(third);
+		assertThat(tail.poll(100, TimeUnit.MILLISECONDS), is(nullValue()));
+
+		// then a restarted slave sends only what it missed
+		replica = new ReplicationSlave(slave, address);
+		replica.start();
+		assertThat(tail.poll(10, TimeUnit.SECONDS), is(second));
+		assertThat(tail.poll(10, TimeUnit.SECONDS), is(third));
+		assertThat(tail.poll(100, TimeUnit.MILLISECONDS), is(nullValue()));
+		assertThat(slave.size(), is(master.size()));
+		long deadline = System.currentTimeMillis() + 10000;
+		while( publisher.acked() != master.size() && System.currentTimeMillis() < deadline ) {
+			Thread.sleep(10);
+		}
+		assertThat(publisher.acked(), is(master.size()));
+
+		tail.close();
+		replica.close();
+		publisher.close();
+		head.close();
+	}
+
+	private static long readAck(SocketChannel channel) throws Exception {
+		ByteBuffer ack = ByteBuffer.allocate(8);
+		while( ack.hasRemaining() ) {
+			if( channel.read(ack) < 0 ) {
+				throw new IllegalStateException("slave hung up");
+			}
+		}
+		ack.flip();
+		return ack.getLong();
+	}
+
+	private static void sendFrame(SocketChannel channel, long index, byte[] body) throws Exception {
+		ByteBuffer frame = ByteBuffer.allocate(ReplicationMaster.FRAME_HEADER + body.length);
+		frame.putLong(index).putInt(body.length).put(body);
+		frame.flip();
+		while( frame.hasRemaining() ) {
+			channel.write(frame);
+		}
+	}
+
+	@Test
+	public void testSlaveResyncsAfterAGap() throws Exception {
+		// given a master which skips an index
+		IndexedChronicle gapped = new IndexedChronicle(location+"-gap");
+		ServerSocketChannel server = ServerSocketChannel.open();
+		server.socket().bind(new InetSocketAddress("localhost", 0));
+		ReplicationSlave replica = new ReplicationSlave(gapped, new InetSocketAddress("localhost", server.socket().getLocalPort()));
+		final long size = gapped.size();
+		replica.start();
+		SocketChannel connection = server.accept();
+		assertThat(readAck(connection), is(size));
+
+		// when
+		sendFrame(connection, size + 1, new byte[]{1, 2, 3});
+
+		// then the slave hangs up and acknowledges where it is on reconnecting
+		assertThat(connection.read(ByteBuffer.allocate(8)), is(-1));
+		connection.close();
+		connection = server.accept();
+		assertThat(readAck(connection), is(size));
+		sendFrame(connection, size, new byte[]{1, 2, 3});
+		assertThat(readAck(connection), is(size + 1));
+		assertThat(replica.resyncs(), is(1L));
+		assertThat(replica.lastError() instanceof ProtocolException, is(true));
+		assertThat(replica.failure(), is(nullValue()));
+
+		replica.close();
+		connection.close();
+		server.close();
+		gapped.close();
+	}
+}
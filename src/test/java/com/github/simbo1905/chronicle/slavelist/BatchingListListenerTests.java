@@ -0,0 +1,109 @@
+package com.github.simbo1905.chronicle.slavelist;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class BatchingListListenerTests {
+
+	List<String> delivered;
+
+	BatchingListListener<String> listener;
+
+	@Before
+	public void setup() {
+		delivered = new ArrayList<String>();
+		listener = new BatchingListListener<String>(new BatchListListener<String>() {
+			@Override
+			public void onChanges(ListChanges<String> changes) {
+				final StringBuilder batch = new StringBuilder();
+				batch.append(changes.eventId()).append(':').append(changes.name()).append(':').append(changes.lastEvent());
+				for( int change = 0; change < changes.size(); change++ ) {
+					batch.append(' ').append(changes.kinds()[change]).append('@').append(changes.indexes()[change])
+						.append('=').append(changes.element(change));
+					if( changes.kinds()[change] == ListChanges.SET ) {
+						batch.append('<').append(changes.oldElement(change));
+					}
+				}
+				delivered.add(batch.toString());
+			}
+		}, 2);
+	}
+
+	@Test
+	public void testDeliversOncePerEvent() throws Exception {
+		// when
+		listener.eventStart(7, "list");
+		listener.add(0, "a");
+		listener.add(1, "b");
+		listener.set(0, "a", "c");
+		listener.remove(1, "b");
+		listener.add("d");
+		listener.eventEnd(false);
+		listener.eventStart(8, "list");
+		listener.remove(0, "c");
+		listener.eventEnd(true);
+
+		// then
+		assertThat(delivered.size(), is(2));
+		assertThat(delivered.get(0), is("7:list:false 1@0=a 1@1=b 3@0=c<a 2@1=b 1@-1=d"));
+		assertThat(delivered.get(1), is("8:list:true 2@0=c"));
+	}
+
+	@Test
+	public void testEmptyEventIsNotDelivered() throws Exception {
+		listener.eventStart(1, "list");
+		listener.eventEnd(true);
+		assertThat(delivered.size(), is(0));
+	}
+
+	@Test
+	public void testChangeOutsideEventIsDeliveredAlone() throws Exception {
+		listener.add(0, "a");
+		listener.remove(0, "a");
+		assertThat(delivered.size(), is(2));
+		assertThat(delivered.get(1).endsWith(" 2@0=a"), is(true));
+	}
+
+	@Test
+	public void testChangeOutsideEventHasNoEventIdOrName() throws Exception {
+		// given an event has been delivered
+		listener.eventStart(7, "list");
+		listener.add(0, "a");
+		listener.eventEnd(false);
+
+		// when
+		listener.add(1, "b");
+
+		// then
+		assertThat(delivered.get(1), is("-1:null:true 1@1=b"));
+	}
+
+	@Test
+	public void testElementsAreReleasedAfterDelivery() throws Exception {
+		// given
+		final List<ListChanges<String>> seen = new ArrayList<ListChanges<String>>();
+		BatchingListListener<String> holding = new BatchingListListener<String>(new BatchListListener<String>() {
+			@Override
+			public void onChanges(ListChanges<String> changes) {
+				seen.add(changes);
+			}
+		});
+
+		// when
+		holding.eventStart(1, "list");
+		holding.set(0, "old", "new");
+		holding.eventEnd(true);
+
+		// then
+		assertThat(seen.get(0).size(), is(0));
+		assertThat(seen.get(0).elements()[0], nullValue());
+		assertThat(seen.get(0).oldElements()[0], nullValue());
+	}
+}
@@ -0,0 +1,112 @@
+package com.github.simbo1905.chronicle.slavelist;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ChunkedListTests {
+
+	@Test
+	public void testMatchesArrayListUnderRandomEdits() throws Exception {
+		// given
+		Random random = new Random(1234);
+		List<Integer> expected = new ArrayList<Integer>();
+		ChunkedList<Integer> actual = new ChunkedList<Integer>(8);
+
+		// when
+		for( int step = 0; step < 100000; step++ ) {
+			final int operation = random.nextInt(10);
+			if( operation < 5 || expected.isEmpty() ) {
+				final int index = random.nextInt(expected.size() + 1);
+				expected.add(index, step);
+				actual.add(index, step);
+			} else if( operation < 9 ) {
+				final int index = random.nextInt(expected.size());
+				assertThat(actual.remove(index), is(expected.remove(index)));
+			} else {
+				final int index = random.nextInt(expected.size());
+				assertThat(actual.set(index, -step), is(expected.set(index, -step)));
+			}
+			// then
+			assertThat(actual.size(), is(expected.size()));
+		}
+		assertThat(actual, is(expected));
+	}
+
+	@Test
+	public void testFrontInsertsAndRemoves() throws Exception {
+		// given
+		List<String> expected = new ArrayList<String>();
+		ChunkedList<String> actual = new ChunkedList<String>(8);
+		for( int i = 0; i < 100; i++ ) {
+			expected.add("tail" + i);
+			actual.add("tail" + i);
+		}
+
+		// when
+		for( int i = 0; i < 1000; i++ ) {
+			for( List<String> list : Arrays.asList(expected, actual) ) {
+				list.add(0, "hello" + i);
+				list.add(1, "world" + i);
+				list.remove(0);
+				list.remove(1);
+			}
+		}
+
+		// then
+		assertThat(actual.size(), is(100));
+		assertThat(actual, is(expected));
+	}
+
+	@Test
+	public void testSparseChunksAreMerged() throws Exception {
+		// given
+		ChunkedList<Integer> list = new ChunkedList<Integer>(8);
+		for( int i = 0; i < 800; i++ ) {
+			list.add(i);
+		}
+		int full = list.chunks();
+
+		// when
+		for( int i = 799; i >= 0; i-- ) {
+			if( i % 8 != 0 ) {
+				list.remove(i);
+			}
+		}
+
+		// then
+		assertThat(full, is(100));
+		assertThat(list.size(), is(100));
+		assertTrue(list.chunks() + " chunks of " + full, list.chunks() <= full / 2);
+		for( int i = 0; i < 100; i++ ) {
+			assertThat(list.get(i), is(i * 8));
+		}
+	}
+
+	@Test
+	public void testClearAndCopy() throws Exception {
+		ChunkedList<String> list = new ChunkedList<String>(Arrays.asList("a", "b", "c"));
+		assertThat(list, is(Arrays.asList("a", "b", "c")));
+		list.clear();
+		assertThat(list.size(), is(0));
+		list.add("d");
+		assertThat(list.get(0), is("d"));
+	}
+
+	@Test(expected=IndexOutOfBoundsException.class)
+	public void testAddPastEnd() throws Exception {
+		new ChunkedList<String>().add(1, "a");
+	}
+
+	@Test(expected=IndexOutOfBoundsException.class)
+	public void testGetEmpty() throws Exception {
+		new ChunkedList<String>().get(0);
+	}
+}
@@ -0,0 +1,116 @@
+package com.github.simbo1905.chronicle.slavelist;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.higherfrequencytrading.chronicle.datamodel.DataStore;
+import com.higherfrequencytrading.chronicle.datamodel.ListWrapper;
+import com.higherfrequencytrading.chronicle.datamodel.ModelMode;
+import com.higherfrequencytrading.chronicle.impl.IndexedChronicle;
+import com.higherfrequencytrading.chronicle.tools.ChronicleTools;
+
+public class ReplicaProgressTests {
+
+	static final String TMP = System.getProperty("java.io.tmpdir");
+
+	static int count = 0;
+
+	String location;
+
+	IndexedChronicle chronicle;
+
+	ListWrapper<String> written;
+
+	@Before
+	public void setup() throws Exception {
+		location = TMP + "/" + ReplicaProgressTests.class.getSimpleName() + (count++);
+		ChronicleTools.deleteOnExit(location);
+		chronicle = new IndexedChronicle(location);
+		DataStore master = new DataStore(chronicle, ModelMode.MASTER);
+		written = new ListWrapper<String>(master, "list", String.class, new ArrayList<String>(), 128);
+		master.start();
+	}
+
+	@After
+	public void tearDown() {
+		chronicle.close();
+	}
+
+	@Test
+	public void testAwaitIndexWrittenAfterSlaveStarts() throws Exception {
+		// given
+		for( int i = 0; i < 10; i++ ) {
+			written.add(i, "before" + i);
+		}
+		IndexedChronicle slaveChronicle = new IndexedChronicle(location);
+		DataStore slave = new DataStore(slaveChronicle, ModelMode.READ_ONLY);
+		ListWrapper<String> read = new ListWrapper<String>(slave, "list", String.class, new ArrayList<String>(), 128);
+		ReplicaProgress<String> progress = new ReplicaProgress<String>(slaveChronicle, -1);
+		read.addListener(progress);
+		slave.start();
+		assertThat(progress.awaitIndex(9, 10, TimeUnit.SECONDS), is(true));
+
+		// when
+		final Thread writer = new Thread() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(50);
+				} catch (InterruptedException e) {
+					return;
+				}
+				written.add(10, "after");
+			}
+		};
+		writer.start();
+
+		// then
+		assertThat(progress.awaitIndex(10, 10, TimeUnit.SECONDS), is(true));
+		assertThat(read.get(10), is("after"));
+		assertThat(progress.appliedIndex(), is(10L));
+		assertThat(progress.lagMessages(), is(0L));
+		assertThat(progress.lagNanos(), is(0L));
+		writer.join();
+		slave.close();
+		slaveChronicle.close();
+	}
+
+	@Test
+	public void testAwaitTimesOutAndReportsLag() throws Exception {
+		// given a slave which has not been started
+		IndexedChronicle slaveChronicle = new IndexedChronicle(location);
+		DataStore slave = new DataStore(slaveChronicle, ModelMode.READ_ONLY);
+		ListWrapper<String> read = new ListWrapper<String>(slave, "list", String.class, new ArrayList<String>(), 128);
+		ReplicaProgress<String> progress = new ReplicaProgress<String>(slaveChronicle, -1);
+		read.addListener(progress);
+
+		// when
+		written.add(0, "a");
+		written.add(1, "b");
+		final long start = System.nanoTime();
+		final boolean applied = progress.awaitIndex(1, 20, TimeUnit.MILLISECONDS);
+
+		// then
+		assertThat(applied, is(false));
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+		assertThat(progress.appliedIndex(), is(-1L));
+		assertThat(progress.lagMessages(), is(2L));
+		assertTrue(progress.lagNanos() >= TimeUnit.MILLISECONDS.toNanos(20));
+		slaveChronicle.close();
+	}
+
+	@Test(expected=InterruptedException.class)
+	public void testAwaitIsInterruptible() throws Exception {
+		ReplicaProgress<String> progress = new ReplicaProgress<String>(chronicle, -1);
+		Thread.currentThread().interrupt();
+		progress.awaitIndex(0, 10, TimeUnit.SECONDS);
+	}
+}
@@ -0,0 +1,237 @@
+package com.github.simbo1905.chronicle.slavelist;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.higherfrequencytrading.chronicle.datamodel.DataStore;
+import com.higherfrequencytrading.chronicle.datamodel.ListListener;
+import com.higherfrequencytrading.chronicle.datamodel.ModelMode;
+import com.higherfrequencytrading.chronicle.impl.IndexedChronicle;
+import com.higherfrequencytrading.chronicle.tools.ChronicleTools;
+
+public class SnapshotListWrapperTests {
+
+	static final String TMP = System.getProperty("java.io.tmpdir");
+
+	static int count = 0;
+
+	String location;
+
+	File snapshot;
+
+	IndexedChronicle chronicle;
+
+	@Before
+	public void setup() throws Exception {
+		location = TMP + "/" + SnapshotListWrapperTests.class.getSimpleName() + (count++);
+		ChronicleTools.deleteOnExit(location);
+		snapshot = new File(location + ".snapshot");
+		snapshot.delete();
+		snapshot.deleteOnExit();
+		chronicle = new IndexedChronicle(location);
+	}
+
+	@After
+	public void tearDown() {
+		chronicle.close();
+		snapshot.delete();
+	}
+
+	@Test
+	public void testSlaveReplaysOnlyAfterSnapshot() throws Exception {
+		// given
+		DataStore master = new DataStore(chronicle, ModelMode.MASTER);
+		SnapshotListWrapper<String> written = new SnapshotListWrapper<String>(master, chronicle, "list", String.class,
+				new ArrayList<String>(), 128, snapshot);
+		master.start();
+		for( int i = 0; i < 100; i++ ) {
+			written.add(0, "hello" + i);
+			written.add(1, "world" + i);
+			written.remove(0);
+		}
+		written.snapshot(chronicle.size() - 1);
+		for( int i = 0; i < 10; i++ ) {
+			written.add(0, "after" + i);
+		}
+		final long last = chronicle.size() - 1;
+
+		// when
+		IndexedChronicle slaveChronicle = new IndexedChronicle(location);
+		DataStore slave = new DataStore(slaveChronicle, ModelMode.READ_ONLY);
+		SnapshotListWrapper<String> read = new SnapshotListWrapper<String>(slave, slaveChronicle, "list", String.class,
+				new ChunkedList<String>(), 128, snapshot);
+		final AtomicInteger adds = new AtomicInteger();
+		final CountDownLatch caughtUp = new CountDownLatch(1);
+		read.addListener(new CountingListener(adds, caughtUp, last));
+		slave.start();
+
+		// then
+		assertThat(read.snapshotIndex(), is(last - 10));
+		assertThat(caughtUp.await(10, TimeUnit.SECONDS), is(true));
+		assertThat(adds.get(), is(10));
+		assertThat((List<String>) read, is((List<String>) written));
+		slave.close();
+		slaveChronicle.close();
+	}
+
+	@Test
+	public void testSlaveSnapshotsEveryEvents() throws Exception {
+		// given
+		DataStore master = new DataStore(chronicle, ModelMode.MASTER);
+		SnapshotListWrapper<String> written = new SnapshotListWrapper<String>(master, chronicle, "list", String.class,
+				new ArrayList<String>(), 128, new File(location + ".master.snapshot"));
+		new File(location + ".master.snapshot").deleteOnExit();
+		master.start();
+		for( int i = 0; i < 25; i++ ) {
+			written.add(i, "element" + i);
+		}
+		IndexedChronicle slaveChronicle = new IndexedChronicle(location);
+		DataStore slave = new DataStore(slaveChronicle, ModelMode.READ_ONLY);
+		SnapshotListWrapper<String> read = new SnapshotListWrapper<String>(slave, slaveChronicle, "list", String.class,
+				new ArrayList<String>(), 128, snapshot);
+		read.snapshotEvery(10);
+		final CountDownLatch caughtUp = new CountDownLatch(1);
+		read.addListener(new CountingListener(new AtomicInteger(), caughtUp, 24));
+
+		// when
+		slave.start();
+		assertThat(caughtUp.await(10, TimeUnit.SECONDS), is(true));
+		slave.close();
+		slaveChronicle.close();
+
+		// then
+		DataStore restarted = new DataStore(chronicle, ModelMode.READ_ONLY);
+		SnapshotListWrapper<String> loaded = new SnapshotListWrapper<String>(restarted, chronicle, "list", String.class,
+				new ArrayList<String>(), 128, snapshot);
+		assertThat(loaded.snapshotIndex(), is(19L));
+		assertThat(loaded.size(), is(20));
+		assertThat(loaded.get(19), is("element19"));
+	}
+
+	@Test
+	public void testSnapshotBeyondTheChronicleIsIgnored() throws Exception {
+		// given a snapshot of more excerpts than the chronicle holds
+		DataStore master = new DataStore(chronicle, ModelMode.MASTER);
+		SnapshotListWrapper<String> written = new SnapshotListWrapper<String>(master, chronicle, "list", String.class,
+				new ArrayList<String>(), 128, snapshot);
+		master.start();
+		for( int i = 0; i < 5; i++ ) {
+			written.add(i, "element" + i);
+		}
+		written.snapshot(chronicle.size() + 10);
+
+		// when
+		IndexedChronicle slaveChronicle = new IndexedChronicle(location);
+		DataStore slave = new DataStore(slaveChronicle, ModelMode.READ_ONLY);
+		SnapshotListWrapper<String> read = new SnapshotListWrapper<String>(slave, slaveChronicle, "list", String.class,
+				new ArrayList<String>(), 128, snapshot);
+		final CountDownLatch caughtUp = new CountDownLatch(1);
+		read.addListener(new CountingListener(new AtomicInteger(), caughtUp, chronicle.size() - 1));
+		slave.start();
+
+		// then the list is replayed in full
+		assertThat(read.snapshotIndex(), is(-1L));
+		assertThat(caughtUp.await(10, TimeUnit.SECONDS), is(true));
+		assertThat((List<String>) read, is((List<String>) written));
+		slave.close();
+		slaveChronicle.close();
+	}
+
+	@Test
+	public void testFailedSnapshotDoesNotStopTheReplay() throws Exception {
+		// given a slave whose snapshots cannot be written
+		DataStore master = new DataStore(chronicle, ModelMode.MASTER);
+		SnapshotListWrapper<String> written = new SnapshotListWrapper<String>(master, chronicle, "list", String.class,
+				new ArrayList<String>(), 128, snapshot);
+		master.start();
+		for( int i = 0; i < 5; i++ ) {
+			written.add(i, "element" + i);
+		}
+		IndexedChronicle slaveChronicle = new IndexedChronicle(location);
+		DataStore slave = new DataStore(slaveChronicle, ModelMode.READ_ONLY);
+		SnapshotListWrapper<String> read = new SnapshotListWrapper<String>(slave, slaveChronicle, "list", String.class,
+				new ArrayList<String>(), 128, new File(location + ".missing/list.snapshot"));
+		read.snapshotEvery(1);
+		final CountDownLatch caughtUp = new CountDownLatch(1);
+		read.addListener(new CountingListener(new AtomicInteger(), caughtUp, chronicle.size() - 1));
+
+		// when
+		slave.start();
+
+		// then
+		assertThat(caughtUp.await(10, TimeUnit.SECONDS), is(true));
+		assertThat((List<String>) read, is((List<String>) written));
+		assertThat(read.snapshotFailure() instanceof IOException, is(true));
+		slave.close();
+		slaveChronicle.close();
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testElementsNeedACodec() throws Exception {
+		new SnapshotListWrapper<Object>(new DataStore(chronicle, ModelMode.READ_ONLY), chronicle, "list", Object.class,
+				new ArrayList<Object>(), 128, snapshot);
+	}
+
+	static class CountingListener implements ListListener<String> {
+
+		final AtomicInteger adds;
+
+		final CountDownLatch caughtUp;
+
+		final long last;
+
+		long eventId;
+
+		CountingListener(AtomicInteger adds, CountDownLatch caughtUp, long last) {
+			this.adds = adds;
+			this.caughtUp = caughtUp;
+			this.last = last;
+		}
+
+		@Override
+		public void eventStart(long eventId, String name) {
+			this.eventId = eventId;
+		}
+
+		@Override
+		public void eventEnd(boolean lastEvent) {
+			if( eventId == last ) {
+				caughtUp.countDown();
+			}
+		}
+
+		@Override
+		public void add(String element) {
+			adds.incrementAndGet();
+		}
+
+		@Override
+		public void remove(String element) {
+		}
+
+		@Override
+		public void add(int index, String element) {
+			adds.incrementAndGet();
+		}
+
+		@Override
+		public void remove(int index, String element) {
+		}
+
+		@Override
+		public void set(int index, String oldElement, String element) {
+		}
+	}
+}